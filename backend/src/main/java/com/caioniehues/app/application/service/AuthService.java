@@ -14,25 +14,42 @@ import com.caioniehues.app.domain.user.RefreshToken;
 import com.caioniehues.app.domain.user.Role;
 import com.caioniehues.app.domain.user.TokenBlacklist;
 import com.caioniehues.app.domain.user.User;
+import com.caioniehues.app.infrastructure.persistence.Bulkhead;
 import com.caioniehues.app.infrastructure.persistence.RefreshTokenRepository;
-import com.caioniehues.app.infrastructure.persistence.RoleRepository;
+import com.caioniehues.app.infrastructure.persistence.RefreshTokenRotation;
+import com.caioniehues.app.infrastructure.persistence.RoleRegistry;
 import com.caioniehues.app.infrastructure.persistence.TokenBlacklistRepository;
+import com.caioniehues.app.infrastructure.persistence.UserActivityRecorder;
+import com.caioniehues.app.infrastructure.messaging.InvalidationBus;
+import com.caioniehues.app.infrastructure.messaging.InvalidationEvent;
 import com.caioniehues.app.infrastructure.persistence.UserRepository;
+import com.caioniehues.app.infrastructure.persistence.WorkloadClass;
+import com.caioniehues.app.infrastructure.security.AuthPrincipal;
 import com.caioniehues.app.infrastructure.security.JwtService;
-import io.jsonwebtoken.Claims;
+import com.caioniehues.app.infrastructure.security.RefreshTokenIssuer;
+import com.caioniehues.app.infrastructure.security.RevokedTokenIndex;
+import com.caioniehues.app.infrastructure.security.TokenDigest;
+import com.caioniehues.app.infrastructure.security.VerifiedToken;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.LockedException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.SQLException;
 import java.time.Instant;
-import java.time.temporal.ChronoUnit;
 import java.util.HashSet;
 import java.util.List;
 
@@ -47,34 +64,57 @@ import java.util.List;
 public class AuthService {
 
     private final UserRepository userRepository;
-    private final RoleRepository roleRepository;
+    private final RoleRegistry roleRegistry;
     private final RefreshTokenRepository refreshTokenRepository;
     private final TokenBlacklistRepository tokenBlacklistRepository;
     private final PasswordEncoder passwordEncoder;
     private final UserMapper userMapper;
     private final AuthenticationManager authenticationManager;
     private final JwtService jwtService;
+    private final RefreshTokenIssuer refreshTokenIssuer;
+    private final AuthStore authStore;
+    private final UserDetailsService userDetailsService;
+    private final RevokedTokenIndex revokedTokenIndex;
+    private final InvalidationBus invalidationBus;
+    private final UserActivityRecorder userActivityRecorder;
 
     private static final String DEFAULT_ROLE_NAME = "USER";
+    private static final String UNIQUE_VIOLATION_SQL_STATE = "23505";
 
     /**
      * Register a new user with the provided details.
+     * <p>
+     * Runs without a surrounding transaction or bulkhead so that neither a connection nor an
+     * {@link WorkloadClass#AUTH} permit is held while the password is hashed; the pre-check and
+     * the insert go through {@link AuthStore}, each in a transaction of its own. The unique constraints on
+     * username and email are the final word on duplicates, which also covers concurrent
+     * registrations that pass the pre-check together.
      *
      * @param request Registration request containing user details
      * @return UserResponse with created user information
      * @throws DuplicateEmailException if email already exists
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public UserResponse register(RegisterRequest request) {
         log.info("Processing registration request for email: {}", request.getTrimmedEmail());
 
-        // Validate email uniqueness
+        // Validate email uniqueness before paying for the hash
         validateEmailUniqueness(request.getTrimmedEmail());
 
         // Build the new user entity
         User newUser = buildUserFromRequest(request);
 
         // Save the user
-        User savedUser = userRepository.save(newUser);
+        User savedUser;
+        try {
+            savedUser = authStore.saveUser(newUser);
+        } catch (DataIntegrityViolationException ex) {
+            if (isUniqueViolation(ex)) {
+                log.warn("Registration lost a race for email: {}", request.getTrimmedEmail());
+                throw DuplicateEmailException.forEmail(request.getTrimmedEmail());
+            }
+            throw ex;
+        }
         log.info("Successfully registered user with ID: {} and email: {}",
                 savedUser.getId(), savedUser.getEmail());
 
@@ -86,19 +126,23 @@ public class AuthService {
     }
 
     /**
-     * Validate that the email is not already in use
+     * Validate that the email is not already in use, ignoring case.
+     * The email doubles as the username, so one query checks both login keys.
      */
     private void validateEmailUniqueness(String email) {
-        if (userRepository.existsByEmail(email)) {
+        String loginKey = User.toLoginKey(email);
+        if (authStore.existsByLoginKey(loginKey)) {
             log.warn("Registration attempt with duplicate email: {}", email);
             throw DuplicateEmailException.forEmail(email);
         }
+    }
 
-        // Also check username since we use email as username
-        if (userRepository.existsByUsername(email)) {
-            log.warn("Registration attempt with email matching existing username: {}", email);
-            throw DuplicateEmailException.forEmail(email);
-        }
+    /**
+     * Check whether an insert failed on a unique constraint (SQLSTATE 23505).
+     */
+    private boolean isUniqueViolation(DataIntegrityViolationException ex) {
+        return ex.getMostSpecificCause() instanceof SQLException sqlException
+            && UNIQUE_VIOLATION_SQL_STATE.equals(sqlException.getSQLState());
     }
 
     /**
@@ -128,7 +172,7 @@ public class AuthService {
      * Assign the default USER role to the new user
      */
     private void assignDefaultRole(User user) {
-        roleRepository.findByName(DEFAULT_ROLE_NAME)
+        roleRegistry.findByName(DEFAULT_ROLE_NAME)
             .ifPresentOrElse(
                 role -> {
                     user.addRole(role);
@@ -152,12 +196,18 @@ public class AuthService {
 
     /**
      * Authenticate user and generate JWT tokens.
+     * <p>
+     * Runs without a surrounding transaction, like registration: the password check may wait
+     * for a hashing thread and then hash, and neither a connection nor an
+     * {@link WorkloadClass#AUTH} permit is held meanwhile. The session is written afterwards in
+     * a transaction of its own.
      *
      * @param request Login request with credentials
      * @return TokenResponse containing access and refresh tokens
      * @throws InvalidCredentialsException if credentials are invalid
      * @throws AccountLockedException if account is locked
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public TokenResponse login(LoginRequest request) {
         log.info("Processing login request for email: {}", request.getTrimmedEmail());
 
@@ -170,26 +220,27 @@ public class AuthService {
                 )
             );
 
-            User user = (User) authentication.getPrincipal();
-
-            // Invalidate any existing refresh tokens for this user
-            invalidateExistingRefreshTokens(user);
+            AuthPrincipal principal = (AuthPrincipal) authentication.getPrincipal();
 
             // Generate new tokens
-            String accessToken = jwtService.generateAccessToken(user);
-            String refreshToken = jwtService.generateRefreshToken(user);
+            String accessToken = jwtService.generateAccessToken(principal);
+            String refreshToken = refreshTokenIssuer.issue(principal);
 
-            // Save refresh token to database
-            saveRefreshToken(refreshToken, user);
+            // Replace any existing refresh tokens of this user with the new one
+            authStore.startSession(principal.id(), refreshToken);
 
-            log.info("Successful login for user: {}", user.getEmail());
-            logLoginEvent(user, true);
+            // Last login is written behind, off the login path
+            userActivityRecorder.recordLogin(principal.id());
+
+            log.info("Successful login for user: {}", principal.email());
+            logLoginEvent(principal, true);
 
             return TokenResponse.of(accessToken, refreshToken);
 
         } catch (BadCredentialsException ex) {
             log.warn("Failed login attempt for email: {}", request.getTrimmedEmail());
             logLoginEvent(request.getTrimmedEmail(), false);
+            recordFailedLogin(request.getTrimmedEmail());
             throw InvalidCredentialsException.defaultMessage();
         } catch (LockedException ex) {
             log.warn("Login attempt for locked account: {}", request.getTrimmedEmail());
@@ -204,55 +255,67 @@ public class AuthService {
      * @return New TokenResponse with rotated tokens
      * @throws InvalidRefreshTokenException if refresh token is invalid
      */
+    @Transactional(noRollbackFor = InvalidRefreshTokenException.class)
+    @Bulkhead(WorkloadClass.AUTH)
     public TokenResponse refreshToken(RefreshRequest request) {
         String refreshTokenString = request.refreshToken();
 
-        // Extract username from token
-        String username = jwtService.extractUsername(refreshTokenString);
-        User user = userRepository.findByEmail(username)
-            .orElseThrow(InvalidRefreshTokenException::invalid);
+        // Opaque tokens are validated by the digest lookup alone; JWTs are verified once up front
+        VerifiedToken verifiedToken = RefreshTokenIssuer.isOpaque(refreshTokenString)
+            ? null
+            : verifyRefreshToken(refreshTokenString);
+        byte[] tokenHash = TokenDigest.sha256(refreshTokenString);
 
-        // Validate refresh token
-        RefreshToken refreshToken = refreshTokenRepository.findByToken(refreshTokenString)
-            .orElseThrow(InvalidRefreshTokenException::invalid);
+        // Revoke the presented token in one conditional statement; only one concurrent refresh can win
+        RefreshTokenRotation rotation = refreshTokenRepository.rotate(tokenHash, Instant.now())
+            .orElseThrow(() -> rejectRefreshToken(tokenHash));
 
-        if (refreshToken.isRevoked()) {
-            log.warn("Attempt to use revoked refresh token for user: {}", username);
-            throw InvalidRefreshTokenException.revoked();
-        }
-
-        if (refreshToken.getExpiresAt().isBefore(Instant.now())) {
-            log.warn("Attempt to use expired refresh token for user: {}", username);
-            throw InvalidRefreshTokenException.expired();
-        }
-
-        // Additional JWT validation
-        if (!jwtService.validateTokenForUser(refreshTokenString, user)) {
-            log.warn("Invalid refresh token signature for user: {}", username);
+        UserDetails userDetails = userDetailsService.loadUserByUsername(rotation.getUsername());
+        if (!userDetails.isEnabled() || (verifiedToken != null && !verifiedToken.isIssuedTo(userDetails))) {
+            log.warn("Invalid refresh token for user: {}", rotation.getUsername());
             throw InvalidRefreshTokenException.invalid();
         }
 
-        // Implement token rotation - revoke old token
-        refreshToken.setRevoked(true);
-        refreshTokenRepository.save(refreshToken);
-
         // Generate new token pair
-        String newAccessToken = jwtService.generateAccessToken(user);
-        String newRefreshToken = jwtService.generateRefreshToken(user);
+        String newAccessToken = jwtService.generateAccessToken(userDetails);
+        String newRefreshToken = refreshTokenIssuer.issue(userDetails);
 
-        // Save new refresh token
-        saveRefreshToken(newRefreshToken, user);
+        // Successor stays in the same family so that reuse of any ancestor revokes it
+        authStore.saveRefreshToken(newRefreshToken, rotation.getUserId(), rotation.getFamilyId());
 
-        log.info("Successfully refreshed tokens for user: {}", user.getEmail());
+        log.info("Successfully refreshed tokens for user: {}", rotation.getUsername());
 
         return TokenResponse.of(newAccessToken, newRefreshToken);
     }
 
+    /**
+     * Work out why a refresh token could not be rotated.
+     * A token that was already revoked is being reused, so its whole family is revoked.
+     */
+    private InvalidRefreshTokenException rejectRefreshToken(byte[] tokenHash) {
+        RefreshToken refreshToken = refreshTokenRepository.findByTokenHash(tokenHash).orElse(null);
+
+        if (refreshToken == null) {
+            return InvalidRefreshTokenException.invalid();
+        }
+
+        if (refreshToken.isRevoked()) {
+            int revoked = refreshTokenRepository.revokeFamily(refreshToken.getFamilyId(), Instant.now());
+            log.warn("Reuse of revoked refresh token detected, revoked {} tokens of family {}",
+                revoked, refreshToken.getFamilyId());
+            return InvalidRefreshTokenException.revoked();
+        }
+
+        log.warn("Attempt to use expired refresh token of family {}", refreshToken.getFamilyId());
+        return InvalidRefreshTokenException.expired();
+    }
+
     /**
      * Logout user by invalidating their tokens.
      *
      * @param authHeader Authorization header containing the access token
      */
+    @Bulkhead(WorkloadClass.AUTH)
     public void logout(String authHeader) {
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             log.warn("Invalid authorization header for logout");
@@ -263,22 +326,25 @@ public class AuthService {
 
         try {
             // Extract user from token
-            String username = jwtService.extractUsername(token);
-            User user = userRepository.findByEmail(username)
+            VerifiedToken verifiedToken = jwtService.verify(token);
+            User user = userRepository.findByEmail(verifiedToken.subject())
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-            // Add access token to blacklist (extract JTI first)
-            String jti = jwtService.extractClaim(token, claims -> claims.getId());
+            // Add access token to blacklist
+            String jti = verifiedToken.jti();
             if (jti != null) {
                 TokenBlacklist blacklistEntry = TokenBlacklist.builder()
                     .jti(jti)
-                    .expiresAt(jwtService.extractClaim(token, Claims::getExpiration).toInstant())
+                    .expiresAt(verifiedToken.expiresAt())
                     .build();
                 tokenBlacklistRepository.save(blacklistEntry);
+                jwtService.evict(token);
+                invalidationBus.publish(InvalidationEvent.tokenRevoked(jti));
             }
 
             // Revoke all refresh tokens for this user
             refreshTokenRepository.revokeAllValidTokensForUser(user.getId(), Instant.now());
+            invalidationBus.publish(InvalidationEvent.sessionsRevoked(user.getId(), user.cacheKeys()));
 
             log.info("Successfully logged out user: {}", user.getEmail());
             logLogoutEvent(user);
@@ -295,6 +361,7 @@ public class AuthService {
      * @return Current authenticated user
      * @throws InvalidCredentialsException if token is invalid
      */
+    @Bulkhead(WorkloadClass.AUTH)
     public User getCurrentUser(String authHeader) {
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             throw InvalidCredentialsException.defaultMessage();
@@ -302,17 +369,23 @@ public class AuthService {
 
         String token = authHeader.substring(7);
 
+        VerifiedToken verifiedToken;
+        try {
+            verifiedToken = jwtService.verify(token);
+        } catch (JwtException | IllegalArgumentException ex) {
+            throw InvalidCredentialsException.defaultMessage();
+        }
+
         // Check if token is blacklisted by JTI
-        String jti = jwtService.extractClaim(token, claims -> claims.getId());
-        if (jti != null && tokenBlacklistRepository.existsByJti(jti)) {
+        String jti = verifiedToken.jti();
+        if (jti != null && revokedTokenIndex.isRevoked(jti)) {
             throw InvalidCredentialsException.defaultMessage();
         }
 
-        String username = jwtService.extractUsername(token);
-        User user = userRepository.findByEmail(username)
+        User user = userRepository.findByEmail(verifiedToken.subject())
             .orElseThrow(InvalidCredentialsException::defaultMessage);
 
-        if (!jwtService.validateTokenForUser(token, user)) {
+        if (!verifiedToken.isValidFor(user) || verifiedToken.epoch() < user.getTokenEpoch()) {
             throw InvalidCredentialsException.defaultMessage();
         }
 
@@ -320,33 +393,68 @@ public class AuthService {
     }
 
     /**
-     * Invalidate all existing refresh tokens for a user.
+     * Log the current user out on every device.
+     *
+     * @param authHeader Authorization header with Bearer token
+     * @throws InvalidCredentialsException if token is invalid
+     */
+    @Bulkhead(WorkloadClass.AUTH)
+    public void logoutAll(String authHeader) {
+        User user = getCurrentUser(authHeader);
+        revokeAllSessions(user);
+
+        log.info("Successfully logged out user from all sessions: {}", user.getEmail());
+    }
+
+    /**
+     * Revoke every access and refresh token issued to a user so far.
+     * Moves the user to a new token epoch instead of blacklisting each access token.
+     *
+     * @param user User whose tokens are revoked
      */
-    private void invalidateExistingRefreshTokens(User user) {
+    @Bulkhead(WorkloadClass.AUTH)
+    public void revokeAllSessions(User user) {
+        userRepository.incrementTokenEpoch(user.getId());
         refreshTokenRepository.revokeAllValidTokensForUser(user.getId(), Instant.now());
+        invalidationBus.publish(InvalidationEvent.sessionsRevoked(user.getId(), user.cacheKeys()));
     }
 
     /**
-     * Save a new refresh token to the database.
+     * Verify a refresh token JWT, translating JWT failures into refresh token errors.
      */
-    private void saveRefreshToken(String tokenString, User user) {
-        RefreshToken refreshToken = RefreshToken.builder()
-            .token(tokenString)
-            .user(user)
-            .expiresAt(Instant.now().plus(7, ChronoUnit.DAYS))
-            .revoked(false)
-            .build();
-        refreshTokenRepository.save(refreshToken);
+    private VerifiedToken verifyRefreshToken(String refreshTokenString) {
+        try {
+            return jwtService.verify(refreshTokenString);
+        } catch (ExpiredJwtException ex) {
+            log.warn("Attempt to use expired refresh token for user: {}", ex.getClaims().getSubject());
+            throw InvalidRefreshTokenException.expired();
+        } catch (JwtException | IllegalArgumentException ex) {
+            log.warn("Invalid refresh token: {}", ex.getMessage());
+            throw InvalidRefreshTokenException.invalid();
+        }
+    }
+
+    /**
+     * Count a failed login attempt against the account the login names, if any.
+     */
+    private void recordFailedLogin(String login) {
+        try {
+            if (userDetailsService.loadUserByUsername(login) instanceof AuthPrincipal principal) {
+                userActivityRecorder.recordFailedLogin(principal.id());
+            }
+        } catch (UsernameNotFoundException ex) {
+            // Unknown login, no account to count against
+        }
     }
 
     /**
      * Log login event for audit.
      */
-    private void logLoginEvent(User user, boolean success) {
+    private void logLoginEvent(AuthPrincipal principal, boolean success) {
         log.info("AUDIT: Login {} - User: {}, Email: {}, Timestamp: {}",
             success ? "SUCCESS" : "FAILED",
-            user.getId(),
-            user.getEmail(),
+            principal.id(),
+            principal.email(),
             Instant.now());
     }
 
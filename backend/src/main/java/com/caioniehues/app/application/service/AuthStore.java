@@ -0,0 +1,88 @@
+package com.caioniehues.app.application.service;
+
+import com.caioniehues.app.domain.user.RefreshToken;
+import com.caioniehues.app.domain.user.User;
+import com.caioniehues.app.infrastructure.persistence.Bulkhead;
+import com.caioniehues.app.infrastructure.persistence.RefreshTokenRepository;
+import com.caioniehues.app.infrastructure.persistence.UserRepository;
+import com.caioniehues.app.infrastructure.persistence.WorkloadClass;
+import com.caioniehues.app.infrastructure.security.TokenDigest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+
+/**
+ * Database work of {@link AuthService} that runs apart from password hashing.
+ * <p>
+ * Login and registration verify or hash a password, which takes far longer than their
+ * statements. They run outside of any transaction and call in here only for the statements,
+ * so no connection is held while a password is hashed or waits for a hashing thread. The
+ * {@link WorkloadClass#AUTH} bulkhead is taken here for the same reason, around the
+ * statements only.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional
+@Bulkhead(WorkloadClass.AUTH)
+public class AuthStore {
+
+    private static final long REFRESH_TOKEN_VALIDITY_DAYS = 7;
+
+    private final UserRepository userRepository;
+    private final RefreshTokenRepository refreshTokenRepository;
+
+    /**
+     * Check whether a login key is taken as username or email.
+     *
+     * @param loginKey Login key of the email being registered
+     * @return Whether a user already has the key
+     */
+    @Transactional(readOnly = true)
+    public boolean existsByLoginKey(String loginKey) {
+        return userRepository.existsByUsernameKeyOrEmailKey(loginKey, loginKey);
+    }
+
+    /**
+     * Insert a new user.
+     *
+     * @param user User with an already hashed password
+     * @return Saved user
+     */
+    public User saveUser(User user) {
+        return userRepository.save(user);
+    }
+
+    /**
+     * Start a new session of a user: revoke every valid refresh token and save a new one,
+     * starting a token family of its own.
+     *
+     * @param userId       User who logged in
+     * @param refreshToken Refresh token handed to the client
+     */
+    public void startSession(UUID userId, String refreshToken) {
+        refreshTokenRepository.revokeAllValidTokensForUser(userId, Instant.now());
+        saveRefreshToken(refreshToken, userId, UUID.randomUUID());
+    }
+
+    /**
+     * Save a new refresh token; the user is only referenced, not loaded.
+     *
+     * @param refreshToken Refresh token handed to the client
+     * @param userId       User the token is issued to
+     * @param familyId     Token family the token belongs to
+     */
+    public void saveRefreshToken(String refreshToken, UUID userId, UUID familyId) {
+        RefreshToken token = RefreshToken.builder()
+            .tokenHash(TokenDigest.sha256(refreshToken))
+            .familyId(familyId)
+            .user(userRepository.getReferenceById(userId))
+            .expiresAt(Instant.now().plus(REFRESH_TOKEN_VALIDITY_DAYS, ChronoUnit.DAYS))
+            .revoked(false)
+            .build();
+        refreshTokenRepository.save(token);
+    }
+}
@@ -0,0 +1,47 @@
+package com.caioniehues.app.config;
+
+import com.caioniehues.app.infrastructure.persistence.BulkheadInterceptor;
+import com.caioniehues.app.infrastructure.persistence.BulkheadProperties;
+import com.caioniehues.app.infrastructure.persistence.BulkheadRegistry;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+import org.springframework.lang.NonNull;
+
+import java.lang.reflect.Method;
+
+/**
+ * Applies {@link com.caioniehues.app.infrastructure.persistence.Bulkhead @Bulkhead} to beans.
+ * <p>
+ * The advisor is picked up by the same infrastructure auto-proxy creator as caching and
+ * transactions, so no AspectJ is needed. It runs first, so a call waits for its permit before
+ * a transaction takes a connection.
+ */
+@Configuration
+@EnableConfigurationProperties(BulkheadProperties.class)
+public class BulkheadConfig {
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor bulkheadAdvisor(@Lazy BulkheadRegistry bulkheads) {
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(new BulkheadPointcut(), new BulkheadInterceptor(bulkheads));
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return advisor;
+    }
+
+    private static final class BulkheadPointcut extends StaticMethodMatcherPointcut {
+
+        @Override
+        public boolean matches(@NonNull Method method, @NonNull Class<?> targetClass) {
+            return method.getDeclaringClass() != Object.class
+                && BulkheadInterceptor.resolve(method, targetClass).isPresent();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.caioniehues.app.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizer;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.support.NullValue;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.lang.NonNull;
+
+import java.time.Duration;
+
+/**
+ * Spring cache configuration.
+ * <p>
+ * Each cache gets its own Caffeine spec; {@code spring.cache.caffeine.spec} only applies to
+ * caches without one. Entries are evicted explicitly when the data behind them changes, so
+ * the expiry is a safety net rather than the freshness guarantee and can be long.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    private static final String USER_DETAILS_CACHE = "userDetails";
+
+    /**
+     * The user details spec must not set an expiry of its own: found users expire after the TTL,
+     * unknown logins (cached as null) after the much shorter negative TTL.
+     */
+    @Bean
+    public CacheManagerCustomizer<CaffeineCacheManager> cacheSpecsCustomizer(
+            @Value("${app.cache.user-details.spec:maximumSize=200000,recordStats}") String userDetailsSpec,
+            @Value("${app.cache.user-details.ttl:PT6H}") Duration userDetailsTtl,
+            @Value("${app.cache.user-details.negative-ttl:PT30S}") Duration userDetailsNegativeTtl) {
+        return cacheManager -> cacheManager.registerCustomCache(USER_DETAILS_CACHE, Caffeine.from(userDetailsSpec)
+            .expireAfter(new NegativeAwareExpiry(userDetailsTtl, userDetailsNegativeTtl))
+            .build());
+    }
+
+    private record NegativeAwareExpiry(Duration ttl, Duration negativeTtl) implements Expiry<Object, Object> {
+
+        @Override
+        public long expireAfterCreate(@NonNull Object key, @NonNull Object value, long currentTime) {
+            return (value == NullValue.INSTANCE ? negativeTtl : ttl).toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(@NonNull Object key, @NonNull Object value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(@NonNull Object key, @NonNull Object value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
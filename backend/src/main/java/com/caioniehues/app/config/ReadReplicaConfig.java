@@ -0,0 +1,109 @@
+package com.caioniehues.app.config;
+
+import com.caioniehues.app.infrastructure.persistence.ReadFromPrimaryInterceptor;
+import com.caioniehues.app.infrastructure.persistence.ReadReplicaProperties;
+import com.caioniehues.app.infrastructure.persistence.ReadReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.lang.NonNull;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Routes read-only transactions to read replicas.
+ * <p>
+ * The application's data source hands out lazy connections that only fetch a real one once a
+ * statement runs. By then the transaction manager has marked the connection read-only or not,
+ * so read-only transactions take theirs from the {@link ReadReplicaRoutingDataSource replica
+ * router} and all others from the primary pool under {@code spring.datasource}. Only the
+ * lazy data source is a candidate for injection; the pools behind it are not.
+ * <p>
+ * Calls marked {@link com.caioniehues.app.infrastructure.persistence.ReadFromPrimary
+ * @ReadFromPrimary} read from the primary even in read-only transactions.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.datasource.read-replicas", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(ReadReplicaProperties.class)
+public class ReadReplicaConfig {
+
+    @Bean(defaultCandidate = false)
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean(defaultCandidate = false)
+    public ReadReplicaRoutingDataSource readReplicaRoutingDataSource(
+            @Qualifier("primaryDataSource") HikariDataSource primaryDataSource,
+            DataSourceProperties dataSourceProperties,
+            ReadReplicaProperties properties) {
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < properties.replicas().size(); i++) {
+            ReadReplicaProperties.Replica replica = properties.replicas().get(i);
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName("replica-" + i);
+            dataSource.setJdbcUrl(replica.url());
+            dataSource.setUsername(replica.username() != null ? replica.username() : dataSourceProperties.determineUsername());
+            dataSource.setPassword(replica.password() != null ? replica.password() : dataSourceProperties.determinePassword());
+            dataSource.setMaximumPoolSize(replica.maximumPoolSize());
+            dataSource.setConnectionTimeout(replica.connectionTimeout().toMillis());
+            dataSource.setReadOnly(true);
+            // Start even while a replica is down; the health checks bring it in once it is up
+            dataSource.setInitializationFailTimeout(-1);
+            replicas.add(dataSource);
+        }
+        return new ReadReplicaRoutingDataSource(primaryDataSource, replicas,
+            properties.maxLag(), properties.readYourWritesWindow(), properties.maxSessions());
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(
+            @Qualifier("primaryDataSource") HikariDataSource primaryDataSource,
+            @Qualifier("readReplicaRoutingDataSource") ReadReplicaRoutingDataSource readReplicaRoutingDataSource) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(readReplicaRoutingDataSource.writeTracking());
+        dataSource.setReadOnlyDataSource(readReplicaRoutingDataSource);
+        // Known up front, so no connection is fetched at startup to find them out
+        dataSource.setDefaultAutoCommit(primaryDataSource.isAutoCommit());
+        dataSource.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        return dataSource;
+    }
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor readFromPrimaryAdvisor() {
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(new ReadFromPrimaryPointcut(), new ReadFromPrimaryInterceptor());
+        // Right after the bulkheads, ahead of the transaction that takes the connection
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return advisor;
+    }
+
+    private static final class ReadFromPrimaryPointcut extends StaticMethodMatcherPointcut {
+
+        @Override
+        public boolean matches(@NonNull Method method, @NonNull Class<?> targetClass) {
+            return method.getDeclaringClass() != Object.class
+                && ReadFromPrimaryInterceptor.appliesTo(method, targetClass);
+        }
+    }
+}
@@ -1,9 +1,18 @@
 package com.caioniehues.app.config;
 
+import com.caioniehues.app.infrastructure.security.AdaptiveConcurrencyLimitFilter;
+import com.caioniehues.app.infrastructure.security.ApiQuotaFilter;
+import com.caioniehues.app.infrastructure.security.ApiQuotaProperties;
+import com.caioniehues.app.infrastructure.security.BoundedPasswordEncoder;
 import com.caioniehues.app.infrastructure.security.CustomAccessDeniedHandler;
 import com.caioniehues.app.infrastructure.security.JwtAuthenticationEntryPoint;
 import com.caioniehues.app.infrastructure.security.JwtAuthenticationFilter;
+import com.caioniehues.app.infrastructure.security.PasswordEncoderFactory;
+import com.caioniehues.app.infrastructure.security.PasswordHashingExecutor;
 import com.caioniehues.app.infrastructure.security.RateLimitFilter;
+import com.caioniehues.app.infrastructure.security.RoutePolicyProperties;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -14,12 +23,12 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
-import org.springframework.security.web.authentication.logout.LogoutFilter;
+import org.springframework.security.web.session.DisableEncodeUrlFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
@@ -28,13 +37,16 @@ import java.util.List;
 
 @Configuration
 @EnableWebSecurity
+@EnableConfigurationProperties({RoutePolicyProperties.class, ApiQuotaProperties.class})
 public class SecurityConfig {
 
     @Bean
     public SecurityFilterChain securityFilterChain(
             HttpSecurity http,
+            AdaptiveConcurrencyLimitFilter adaptiveConcurrencyLimitFilter,
             JwtAuthenticationFilter jwtAuthenticationFilter,
             RateLimitFilter rateLimitFilter,
+            ApiQuotaFilter apiQuotaFilter,
             JwtAuthenticationEntryPoint jwtAuthenticationEntryPoint,
             CustomAccessDeniedHandler customAccessDeniedHandler
     ) throws Exception {
@@ -53,8 +65,12 @@ public class SecurityConfig {
                     .maxAgeInSeconds(31536000)
                     .includeSubDomains(true))
                 .and())
-            .addFilterAfter(rateLimitFilter, LogoutFilter.class)
+            // First in the chain, so shed requests cost nothing further
+            .addFilterBefore(adaptiveConcurrencyLimitFilter, DisableEncodeUrlFilter.class)
             .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+            // After authentication, so limits can be keyed by principal and role
+            .addFilterAfter(rateLimitFilter, JwtAuthenticationFilter.class)
+            .addFilterAfter(apiQuotaFilter, RateLimitFilter.class)
             .authorizeHttpRequests(auth -> auth
                 // Allow health endpoints without authentication
                 .requestMatchers("/api/health", "/api/health/**").permitAll()
@@ -72,9 +88,12 @@ public class SecurityConfig {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        // Use BCrypt with strength 12 for enhanced security
-        return new BCryptPasswordEncoder(12);
+    public PasswordEncoder passwordEncoder(
+            PasswordEncoderFactory passwordEncoderFactory,
+            PasswordHashingExecutor passwordHashingExecutor
+    ) {
+        // Work factor is calibrated to this machine; hashing runs on the bounded hashing pool
+        return new BoundedPasswordEncoder(passwordEncoderFactory.create(), passwordHashingExecutor);
     }
 
     @Bean
@@ -85,11 +104,14 @@ public class SecurityConfig {
     @Bean
     public AuthenticationProvider authenticationProvider(
             UserDetailsService userDetailsService,
+            ObjectProvider<UserDetailsPasswordService> userDetailsPasswordService,
             PasswordEncoder passwordEncoder
     ) {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService);
         authProvider.setPasswordEncoder(passwordEncoder);
+        // Rehash with the current algorithm and work factor after a successful login
+        userDetailsPasswordService.ifAvailable(authProvider::setUserDetailsPasswordService);
         return authProvider;
     }
 
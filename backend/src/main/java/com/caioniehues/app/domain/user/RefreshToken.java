@@ -2,11 +2,11 @@ package com.caioniehues.app.domain.user;
 
 import com.caioniehues.app.domain.common.BaseEntity;
 import jakarta.persistence.*;
-import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.*;
 
 import java.time.Instant;
+import java.util.UUID;
 
 @Entity
 @Table(name = "refresh_tokens")
@@ -15,12 +15,23 @@ import java.time.Instant;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-@ToString(exclude = {"user", "token"})
+@ToString(exclude = {"user", "tokenHash"})
 public class RefreshToken extends BaseEntity {
 
-    @NotBlank
-    @Column(unique = true, nullable = false, length = 500)
-    private String token;
+    /**
+     * SHA-256 digest of the token handed to the client; the raw token is never stored.
+     */
+    @NotNull
+    @Column(name = "token_hash", unique = true, nullable = false, length = 32)
+    private byte[] tokenHash;
+
+    /**
+     * Shared by all tokens rotated from the same login; a token built without one starts a new family.
+     */
+    @NotNull
+    @Column(name = "family_id", nullable = false)
+    @Builder.Default
+    private UUID familyId = UUID.randomUUID();
 
     @NotNull
     @ManyToOne(fetch = FetchType.LAZY)
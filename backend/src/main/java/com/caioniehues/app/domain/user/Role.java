@@ -11,6 +11,7 @@ import java.util.Set;
 
 @Entity
 @Table(name = "roles")
+@EntityListeners(RoleChangeListener.class)
 @Getter
 @Setter
 @NoArgsConstructor
@@ -0,0 +1,21 @@
+package com.caioniehues.app.domain.user;
+
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * Announces role updates and deletions, which change the authorities of every user holding the role.
+ */
+@RequiredArgsConstructor
+public class RoleChangeListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PostUpdate
+    @PostRemove
+    void changed(Role role) {
+        eventPublisher.publishEvent(new RoleChangedEvent(role.getName()));
+    }
+}
@@ -0,0 +1,9 @@
+package com.caioniehues.app.domain.user;
+
+/**
+ * Published when a role is renamed or deleted, which changes the authorities of every user holding it.
+ *
+ * @param name Name of the changed role
+ */
+public record RoleChangedEvent(String name) {
+}
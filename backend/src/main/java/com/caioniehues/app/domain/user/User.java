@@ -6,6 +6,7 @@ import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import lombok.*;
+import org.hibernate.annotations.GeneratedColumn;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -13,17 +14,21 @@ import org.springframework.security.core.userdetails.UserDetails;
 import java.time.Instant;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
 import java.util.Set;
 import java.util.stream.Collectors;
 
 @Entity
 @Table(name = "users")
+@EntityListeners(UserChangeListener.class)
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-@ToString(exclude = {"passwordHash", "roles", "refreshTokens"})
+@ToString(exclude = {"passwordHash", "roles", "refreshTokens", "loadedLogins"})
 public class User extends BaseEntity implements UserDetails {
 
     @NotBlank
@@ -37,6 +42,22 @@ public class User extends BaseEntity implements UserDetails {
     @Column(unique = true, nullable = false)
     private String email;
 
+    /**
+     * Normalized username for lookups, see {@link #toLoginKey(String)}; computed by the database.
+     */
+    @Column(name = "username_key", unique = true, insertable = false, updatable = false)
+    @GeneratedColumn("lower(trim(username))")
+    @Setter(AccessLevel.NONE)
+    private String usernameKey;
+
+    /**
+     * Normalized email for lookups, see {@link #toLoginKey(String)}; computed by the database.
+     */
+    @Column(name = "email_key", unique = true, insertable = false, updatable = false)
+    @GeneratedColumn("lower(trim(email))")
+    @Setter(AccessLevel.NONE)
+    private String emailKey;
+
     @NotBlank
     @Column(name = "password_hash", nullable = false)
     private String passwordHash;
@@ -52,6 +73,21 @@ public class User extends BaseEntity implements UserDetails {
     @Column(name = "last_login_at")
     private Instant lastLoginAt;
 
+    /**
+     * Written behind by UserActivityRecorder, so it may lag by one flush interval.
+     */
+    @Column(name = "last_seen_at")
+    private Instant lastSeenAt;
+
+    @Column(name = "failed_login_attempts", nullable = false)
+    private int failedLoginAttempts;
+
+    /**
+     * Incremented to revoke every token issued to the user so far.
+     */
+    @Column(name = "token_epoch", nullable = false)
+    private int tokenEpoch;
+
     @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(
         name = "user_roles",
@@ -65,6 +101,40 @@ public class User extends BaseEntity implements UserDetails {
     @Builder.Default
     private Set<RefreshToken> refreshTokens = new HashSet<>();
 
+    /**
+     * Username and email as loaded, so caches keyed by them can still be evicted after either changes.
+     */
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private List<String> loadedLogins;
+
+    @PostLoad
+    void rememberLoadedLogins() {
+        loadedLogins = List.of(username, email);
+    }
+
+    /**
+     * Normalize a username or email the way the database does for the login key columns.
+     * Logins differing only in case or surrounding whitespace resolve to the same user.
+     */
+    public static String toLoginKey(String login) {
+        return login.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Login keys the user may be cached under: the current username and email, plus the loaded ones if they changed.
+     */
+    public Set<String> cacheKeys() {
+        Set<String> keys = new LinkedHashSet<>();
+        keys.add(toLoginKey(username));
+        keys.add(toLoginKey(email));
+        if (loadedLogins != null) {
+            loadedLogins.forEach(login -> keys.add(toLoginKey(login)));
+        }
+        return keys;
+    }
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return roles.stream()
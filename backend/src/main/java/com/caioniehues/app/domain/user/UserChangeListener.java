@@ -0,0 +1,28 @@
+package com.caioniehues.app.domain.user;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+
+/**
+ * Announces new, updated and deleted users so cached authentication state can be evicted.
+ * New users matter too: their logins may be cached as unknown.
+ * <p>
+ * Role assignments live in a collection owned by the user; changing them bumps the user's
+ * version, so they are reported as an update too. Bulk JPQL and JDBC updates bypass entity
+ * callbacks and must publish their own invalidation.
+ */
+@RequiredArgsConstructor
+public class UserChangeListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    void changed(User user) {
+        eventPublisher.publishEvent(new UserChangedEvent(user.getId(), user.cacheKeys()));
+    }
+}
@@ -0,0 +1,13 @@
+package com.caioniehues.app.domain.user;
+
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Published when a user is created, deleted or changed, including its role assignments.
+ *
+ * @param userId    Changed user
+ * @param cacheKeys Logins the user may be cached under, including ones that just changed
+ */
+public record UserChangedEvent(UUID userId, Set<String> cacheKeys) {
+}
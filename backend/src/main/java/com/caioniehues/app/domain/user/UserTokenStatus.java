@@ -0,0 +1,25 @@
+package com.caioniehues.app.domain.user;
+
+/**
+ * Minimal per-user state needed to decide whether a user's tokens are still honoured.
+ * Loaded as a projection so the authentication hot path never materialises a full {@link User}.
+ *
+ * @param enabled    Whether the account is enabled
+ * @param tokenEpoch Current token epoch; tokens issued under an older epoch are revoked
+ */
+public record UserTokenStatus(boolean enabled, int tokenEpoch) {
+
+    /**
+     * Status used for users that no longer exist.
+     */
+    public static final UserTokenStatus MISSING = new UserTokenStatus(false, Integer.MAX_VALUE);
+
+    /**
+     * Check whether a token issued to this user under the given epoch must be rejected.
+     *
+     * @param issuedEpoch Token epoch embedded in the token
+     */
+    public boolean revokes(int issuedEpoch) {
+        return !enabled || issuedEpoch < tokenEpoch;
+    }
+}
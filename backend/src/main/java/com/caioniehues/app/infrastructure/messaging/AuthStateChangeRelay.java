@@ -0,0 +1,34 @@
+package com.caioniehues.app.infrastructure.messaging;
+
+import com.caioniehues.app.domain.user.RoleChangedEvent;
+import com.caioniehues.app.domain.user.UserChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Turns user and role changes reported by entity callbacks into invalidation events.
+ * <p>
+ * Listeners run inside the changing transaction, so the PostgreSQL bus logs the event
+ * atomically with the change and every node, including this one, evicts only after commit.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AuthStateChangeRelay {
+
+    private final InvalidationBus invalidationBus;
+
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        log.debug("User {} changed, invalidating cached details", event.userId());
+        invalidationBus.publish(InvalidationEvent.userChanged(event.userId(), event.cacheKeys()));
+    }
+
+    @EventListener
+    public void onRoleChanged(RoleChangedEvent event) {
+        log.debug("Role {} changed, invalidating all cached details", event.name());
+        invalidationBus.publish(InvalidationEvent.rolesChanged());
+    }
+}
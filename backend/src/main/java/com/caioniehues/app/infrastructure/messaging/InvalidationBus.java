@@ -0,0 +1,14 @@
+package com.caioniehues.app.infrastructure.messaging;
+
+/**
+ * Propagates authentication state changes to the local caches of every node.
+ */
+public interface InvalidationBus {
+
+    /**
+     * Publish an event. Inside a transaction, nodes only see it once the transaction commits.
+     *
+     * @param event Change to propagate
+     */
+    void publish(InvalidationEvent event);
+}
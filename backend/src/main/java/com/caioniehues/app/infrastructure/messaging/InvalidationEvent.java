@@ -0,0 +1,43 @@
+package com.caioniehues.app.infrastructure.messaging;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Change to authentication state that every node must apply to its local caches.
+ * Applying an event is idempotent, so replays after a reconnect are harmless.
+ *
+ * @param type   Kind of change
+ * @param jti    JWT ID of a revoked token (TOKEN_REVOKED)
+ * @param userId User whose sessions or account changed (SESSIONS_REVOKED, USER_CHANGED)
+ * @param logins Login keys the user is cached under (SESSIONS_REVOKED, USER_CHANGED)
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record InvalidationEvent(Type type, String jti, UUID userId, List<String> logins) {
+
+    public enum Type {
+        TOKEN_REVOKED,
+        SESSIONS_REVOKED,
+        USER_CHANGED,
+        ROLES_CHANGED
+    }
+
+    public static InvalidationEvent tokenRevoked(String jti) {
+        return new InvalidationEvent(Type.TOKEN_REVOKED, jti, null, null);
+    }
+
+    public static InvalidationEvent sessionsRevoked(UUID userId, Collection<String> logins) {
+        return new InvalidationEvent(Type.SESSIONS_REVOKED, null, userId, List.copyOf(logins));
+    }
+
+    public static InvalidationEvent userChanged(UUID userId, Collection<String> logins) {
+        return new InvalidationEvent(Type.USER_CHANGED, null, userId, List.copyOf(logins));
+    }
+
+    public static InvalidationEvent rolesChanged() {
+        return new InvalidationEvent(Type.ROLES_CHANGED, null, null, null);
+    }
+}
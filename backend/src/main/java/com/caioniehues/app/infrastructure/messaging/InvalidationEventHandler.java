@@ -0,0 +1,118 @@
+package com.caioniehues.app.infrastructure.messaging;
+
+import com.caioniehues.app.domain.user.User;
+import com.caioniehues.app.infrastructure.persistence.RecentInvalidations;
+import com.caioniehues.app.infrastructure.persistence.RoleRegistry;
+import com.caioniehues.app.infrastructure.security.JwtService;
+import com.caioniehues.app.infrastructure.security.RevokedTokenIndex;
+import com.caioniehues.app.infrastructure.security.UserTokenStatusCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+/**
+ * Applies invalidation events to the caches held by this node.
+ * <p>
+ * Every evicted key is recorded as recently invalidated first, so its reload reads the change
+ * from the primary rather than from a replica that may not have replayed it yet.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class InvalidationEventHandler {
+
+    static final String USER_DETAILS_CACHE = "userDetails";
+
+    private final RevokedTokenIndex revokedTokenIndex;
+    private final JwtService jwtService;
+    private final UserTokenStatusCache userTokenStatusCache;
+    private final ObjectProvider<CacheManager> cacheManager;
+    private final RoleRegistry roleRegistry;
+    private final RecentInvalidations recentInvalidations;
+
+    /**
+     * Apply an event to the local caches.
+     *
+     * @param event Event received from the bus or published by this node
+     */
+    public void apply(InvalidationEvent event) {
+        log.debug("Applying invalidation event: {}", event);
+
+        switch (event.type()) {
+            case TOKEN_REVOKED -> {
+                recentInvalidations.record(event.jti());
+                revokedTokenIndex.add(event.jti());
+                jwtService.evictJti(event.jti());
+            }
+            // Cached user details carry the token epoch, so both kinds of change evict them
+            case SESSIONS_REVOKED, USER_CHANGED -> {
+                recentInvalidations.record(event.userId());
+                userTokenStatusCache.invalidate(event.userId());
+                // Normalize again in case an older node published raw logins
+                List<String> loginKeys = event.logins() != null
+                    ? event.logins().stream().map(User::toLoginKey).toList()
+                    : List.of();
+                loginKeys.forEach(recentInvalidations::record);
+                Cache userDetails = userDetailsCache();
+                if (userDetails != null) {
+                    loginKeys.forEach(userDetails::evict);
+                }
+            }
+            // Authorities are baked into every cached principal, so any user may be affected
+            case ROLES_CHANGED -> {
+                recentInvalidations.recordAll();
+                roleRegistry.load();
+                Cache userDetails = userDetailsCache();
+                if (userDetails != null) {
+                    userDetails.clear();
+                }
+            }
+        }
+    }
+
+    /**
+     * Apply an event once the surrounding transaction commits, or right away outside a transaction.
+     *
+     * @param event Event published by this node
+     */
+    public void applyAfterCommit(InvalidationEvent event) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply(event);
+                }
+            });
+        } else {
+            apply(event);
+        }
+    }
+
+    /**
+     * Drop every cached authentication state.
+     * Used when events may have been lost for good, e.g. after an outage longer than the log retention.
+     */
+    public void resetAll() {
+        log.warn("Resetting all local authentication caches");
+        recentInvalidations.recordAll();
+
+        revokedTokenIndex.rebuild();
+        userTokenStatusCache.invalidateAll();
+        Cache userDetails = userDetailsCache();
+        if (userDetails != null) {
+            userDetails.clear();
+        }
+    }
+
+    private Cache userDetailsCache() {
+        CacheManager manager = cacheManager.getIfAvailable();
+        return manager != null ? manager.getCache(USER_DETAILS_CACHE) : null;
+    }
+}
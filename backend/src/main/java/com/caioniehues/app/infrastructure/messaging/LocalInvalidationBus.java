@@ -0,0 +1,22 @@
+package com.caioniehues.app.infrastructure.messaging;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Single-node bus that only applies events to this node's caches.
+ * Used when the PostgreSQL bus is disabled, e.g. in tests.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.auth.invalidation-bus", name = "enabled", havingValue = "false", matchIfMissing = true)
+@RequiredArgsConstructor
+public class LocalInvalidationBus implements InvalidationBus {
+
+    private final InvalidationEventHandler invalidationEventHandler;
+
+    @Override
+    public void publish(InvalidationEvent event) {
+        invalidationEventHandler.applyAfterCommit(event);
+    }
+}
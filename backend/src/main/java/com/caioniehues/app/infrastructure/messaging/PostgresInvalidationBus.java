@@ -0,0 +1,365 @@
+package com.caioniehues.app.infrastructure.messaging;
+
+import com.caioniehues.app.infrastructure.persistence.Bulkhead;
+import com.caioniehues.app.infrastructure.persistence.WorkloadClass;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Properties;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Invalidation bus backed by PostgreSQL LISTEN/NOTIFY on the application datasource.
+ * <p>
+ * Every event is written to the auth_invalidation_log table and announced with pg_notify in the
+ * publishing transaction, so nodes only see committed changes. Each node holds one connection
+ * that LISTENs on the channel and applies notifications to its local caches. That connection is
+ * opened outside the connection pool, which it would otherwise shrink by one for as long as the
+ * node runs.
+ * After a reconnect the node replays the log past its high-water mark, so notifications
+ * missed while disconnected are repaired.
+ * <p>
+ * Events are logged through the application datasource so they join the publishing transaction.
+ * The listener connects to the primary, and the log purge uses the primary pool directly, when read
+ * replicas are enabled.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.auth.invalidation-bus", name = "enabled", havingValue = "true")
+@Slf4j
+public class PostgresInvalidationBus implements InvalidationBus, SmartLifecycle, MeterBinder {
+
+    private static final String CHANNEL = "auth_invalidation";
+
+    /**
+     * Application name of the listener connection, to tell it apart in pg_stat_activity.
+     */
+    static final String LISTENER_APPLICATION_NAME = "auth-invalidation-listener";
+
+    private static final String PUBLISH_SQL = """
+        WITH entry AS (
+            INSERT INTO auth_invalidation_log (event_type, payload) VALUES (?, ?) RETURNING id, payload
+        )
+        SELECT pg_notify('%s', entry.id || ':' || entry.payload) FROM entry
+        """.formatted(CHANNEL);
+
+    /**
+     * Sequence values are assigned at insert but become visible at commit, so a row with an id
+     * below the high-water mark can still appear. Rows created shortly before the disconnect
+     * are therefore replayed as well; applying an event twice is harmless.
+     */
+    private static final String CATCH_UP_SQL =
+        "SELECT id, payload FROM auth_invalidation_log WHERE id > ? OR created_at > ? ORDER BY id";
+
+    private static final String HIGH_WATER_MARK_SQL = "SELECT COALESCE(MAX(id), 0) FROM auth_invalidation_log";
+
+    private static final String PURGE_SQL = "DELETE FROM auth_invalidation_log WHERE created_at < ?";
+
+    private final DataSource listenerDataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate primaryJdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final InvalidationEventHandler invalidationEventHandler;
+
+    private final Duration pollTimeout;
+    private final Duration keepAliveInterval;
+    private final Duration maxReconnectBackoff;
+    private final Duration commitSkew;
+    private final Duration retention;
+
+    private final LongAdder appliedEvents = new LongAdder();
+    private final LongAdder reconnects = new LongAdder();
+
+    private volatile boolean running;
+    private volatile boolean listening;
+    private Thread listenerThread;
+
+    /**
+     * Id of the newest log entry applied by this node, -1 until the first connection.
+     * Only touched by the listener thread.
+     */
+    private long highWaterMark = -1;
+
+    /**
+     * When the listener connection was lost, null while connected.
+     */
+    private Instant disconnectedAt;
+
+    public PostgresInvalidationBus(
+            DataSource dataSource,
+            @Qualifier("primaryDataSource") ObjectProvider<DataSource> primaryDataSource,
+            JdbcTemplate jdbcTemplate,
+            ObjectMapper objectMapper,
+            InvalidationEventHandler invalidationEventHandler,
+            @Value("${app.auth.invalidation-bus.poll-timeout:PT0.5S}") Duration pollTimeout,
+            @Value("${app.auth.invalidation-bus.keep-alive-interval:PT30S}") Duration keepAliveInterval,
+            @Value("${app.auth.invalidation-bus.max-reconnect-backoff:PT30S}") Duration maxReconnectBackoff,
+            @Value("${app.auth.invalidation-bus.commit-skew:PT1M}") Duration commitSkew,
+            @Value("${app.auth.invalidation-bus.retention:PT1H}") Duration retention) {
+        DataSource primary = primaryDataSource.getIfAvailable(() -> dataSource);
+        this.listenerDataSource = unpooled(primary);
+        this.jdbcTemplate = jdbcTemplate;
+        this.primaryJdbcTemplate = new JdbcTemplate(primary);
+        this.objectMapper = objectMapper;
+        this.invalidationEventHandler = invalidationEventHandler;
+        this.pollTimeout = pollTimeout;
+        this.keepAliveInterval = keepAliveInterval;
+        this.maxReconnectBackoff = maxReconnectBackoff;
+        this.commitSkew = commitSkew;
+        this.retention = retention;
+    }
+
+    /**
+     * Connect to the database of a pool without going through the pool.
+     */
+    private static DataSource unpooled(DataSource pool) {
+        try {
+            if (pool.isWrapperFor(HikariDataSource.class)) {
+                HikariDataSource hikari = pool.unwrap(HikariDataSource.class);
+                if (hikari.getJdbcUrl() != null) {
+                    DriverManagerDataSource unpooled =
+                        new DriverManagerDataSource(hikari.getJdbcUrl(), hikari.getUsername(), hikari.getPassword());
+                    Properties properties = new Properties();
+                    properties.putAll(hikari.getDataSourceProperties());
+                    properties.setProperty("ApplicationName", LISTENER_APPLICATION_NAME);
+                    unpooled.setConnectionProperties(properties);
+                    return unpooled;
+                }
+            }
+        } catch (SQLException e) {
+            log.warn("Could not unwrap the connection pool: {}", e.getMessage());
+        }
+        log.warn("Auth invalidation listener will hold a pooled connection");
+        return pool;
+    }
+
+    @Override
+    public void publish(InvalidationEvent event) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize invalidation event", e);
+        }
+
+        jdbcTemplate.queryForList(PUBLISH_SQL, event.type().name(), payload);
+
+        // Do not wait for our own notification to come back
+        invalidationEventHandler.applyAfterCommit(event);
+    }
+
+    /**
+     * Remove log entries older than the retention; nodes that were away longer reset their caches instead.
+     */
+    @Scheduled(fixedDelayString = "${app.auth.invalidation-bus.purge-interval:PT10M}")
+    @Bulkhead(WorkloadClass.MAINTENANCE)
+    public void purge() {
+        int deleted = primaryJdbcTemplate.update(PURGE_SQL, Timestamp.from(Instant.now().minus(retention)));
+        if (deleted > 0) {
+            log.debug("Purged {} invalidation log entries", deleted);
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        listenerThread = Thread.ofPlatform()
+            .name("auth-invalidation-listener")
+            .daemon(true)
+            .start(this::listen);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void listen() {
+        Duration backoff = pollTimeout;
+
+        while (running) {
+            try (Connection connection = listenerDataSource.getConnection()) {
+                connection.setAutoCommit(true);
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                catchUp(connection);
+
+                listening = true;
+                backoff = pollTimeout;
+                log.info("Listening for auth invalidations on channel {}", CHANNEL);
+
+                receive(connection, pgConnection);
+
+                // A pooled connection would keep receiving notifications
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("UNLISTEN *");
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (!running) {
+                    break;
+                }
+                if (listening) {
+                    disconnectedAt = Instant.now();
+                    reconnects.increment();
+                }
+                listening = false;
+                log.warn("Auth invalidation listener disconnected, retrying in {}: {}", backoff, e.getMessage());
+
+                if (!sleep(backoff)) {
+                    break;
+                }
+                backoff = backoff.multipliedBy(2).compareTo(maxReconnectBackoff) > 0
+                    ? maxReconnectBackoff
+                    : backoff.multipliedBy(2);
+            }
+        }
+
+        listening = false;
+        log.info("Auth invalidation listener stopped");
+    }
+
+    private void receive(Connection connection, PGConnection pgConnection) throws SQLException {
+        Instant lastActivity = Instant.now();
+
+        while (running) {
+            PGNotification[] notifications = pgConnection.getNotifications((int) pollTimeout.toMillis());
+
+            if (notifications != null && notifications.length > 0) {
+                for (PGNotification notification : notifications) {
+                    handleNotification(notification.getParameter());
+                }
+                lastActivity = Instant.now();
+            } else if (Duration.between(lastActivity, Instant.now()).compareTo(keepAliveInterval) > 0) {
+                // getNotifications does not notice a silently dropped connection
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("SELECT 1");
+                }
+                lastActivity = Instant.now();
+            }
+        }
+    }
+
+    /**
+     * Replay log entries this node has not applied yet.
+     */
+    private void catchUp(Connection connection) throws SQLException {
+        if (highWaterMark < 0) {
+            // First connection: local caches are loaded from the database, nothing to replay
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(HIGH_WATER_MARK_SQL)) {
+                resultSet.next();
+                highWaterMark = resultSet.getLong(1);
+            }
+            return;
+        }
+
+        if (disconnectedAt != null && Duration.between(disconnectedAt, Instant.now()).compareTo(retention) > 0) {
+            // Entries may already be purged; replaying is not enough
+            invalidationEventHandler.resetAll();
+        }
+
+        Instant since = disconnectedAt != null ? disconnectedAt.minus(commitSkew) : Instant.now().minus(commitSkew);
+        int replayed = 0;
+
+        try (PreparedStatement statement = connection.prepareStatement(CATCH_UP_SQL)) {
+            statement.setLong(1, highWaterMark);
+            statement.setTimestamp(2, Timestamp.from(since));
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    apply(resultSet.getLong(1), resultSet.getString(2));
+                    replayed++;
+                }
+            }
+        }
+
+        disconnectedAt = null;
+        log.info("Replayed {} auth invalidations after reconnect", replayed);
+    }
+
+    /**
+     * Notification payloads are {@code <log id>:<event JSON>}.
+     */
+    private void handleNotification(String parameter) {
+        int separator = parameter.indexOf(':');
+        if (separator < 0) {
+            log.warn("Ignoring malformed auth invalidation notification: {}", parameter);
+            return;
+        }
+
+        try {
+            apply(Long.parseLong(parameter, 0, separator, 10), parameter.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring malformed auth invalidation notification: {}", parameter);
+        }
+    }
+
+    private void apply(long id, String payload) {
+        try {
+            invalidationEventHandler.apply(objectMapper.readValue(payload, InvalidationEvent.class));
+            appliedEvents.increment();
+        } catch (JsonProcessingException | RuntimeException e) {
+            log.error("Failed to apply auth invalidation {}: {}", id, e.getMessage(), e);
+        }
+        highWaterMark = Math.max(highWaterMark, id);
+    }
+
+    private boolean sleep(Duration duration) {
+        try {
+            Thread.sleep(duration);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        Gauge.builder("auth.invalidation.listener.connected", this, bus -> bus.listening ? 1 : 0)
+            .description("Whether this node is listening for auth invalidations")
+            .register(registry);
+        FunctionCounter.builder("auth.invalidation.applied", appliedEvents, LongAdder::sum)
+            .description("Auth invalidations received from the bus and applied")
+            .register(registry);
+        FunctionCounter.builder("auth.invalidation.reconnects", reconnects, LongAdder::sum)
+            .description("Times the listener connection was lost")
+            .register(registry);
+    }
+}
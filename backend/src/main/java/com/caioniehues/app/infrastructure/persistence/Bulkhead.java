@@ -0,0 +1,30 @@
+package com.caioniehues.app.infrastructure.persistence;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Runs a bean method, or every public method of a bean, inside the bulkhead of a workload class.
+ * <p>
+ * Each call takes a permit from the class's pool before it runs and returns it when it
+ * finishes. If no permit frees up within the pool's maximum wait, the call fails with a
+ * {@link BulkheadFullException} instead of queueing for a database connection. A call made
+ * while the thread already holds a permit runs in the outer call's bulkhead, so a controller
+ * and the service it calls only ever take one. Repository and transactional methods without
+ * the annotation run in the {@link WorkloadClass#DEFAULT} bulkhead.
+ *
+ * @see BulkheadRegistry
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Bulkhead {
+
+    /**
+     * @return Workload class whose pool the call takes a permit from
+     */
+    WorkloadClass value();
+}
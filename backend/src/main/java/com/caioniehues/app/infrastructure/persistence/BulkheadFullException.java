@@ -0,0 +1,33 @@
+package com.caioniehues.app.infrastructure.persistence;
+
+import java.time.Duration;
+
+/**
+ * Exception thrown when the bulkhead of a workload class has no permit to give in time.
+ * Clients should back off and retry after the suggested delay.
+ */
+public class BulkheadFullException extends RuntimeException {
+
+    private final WorkloadClass workloadClass;
+    private final Duration retryAfter;
+
+    public BulkheadFullException(WorkloadClass workloadClass, Duration retryAfter) {
+        super("Bulkhead full: " + workloadClass);
+        this.workloadClass = workloadClass;
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * @return Workload class whose bulkhead was full
+     */
+    public WorkloadClass getWorkloadClass() {
+        return workloadClass;
+    }
+
+    /**
+     * @return How long clients should wait before retrying
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,86 @@
+package com.caioniehues.app.infrastructure.persistence;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.repository.Repository;
+import org.springframework.lang.NonNull;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Runs calls to {@link Bulkhead @Bulkhead} methods and beans inside their bulkhead.
+ * <p>
+ * A method's own annotation wins over its class's. Repository methods and transactional methods
+ * without one fall into {@link WorkloadClass#DEFAULT}, so all database work is bounded; inside
+ * another bulkhead they reuse its permit. The workload class of each method is resolved once
+ * and cached.
+ */
+public class BulkheadInterceptor implements MethodInterceptor {
+
+    private final BulkheadRegistry bulkheads;
+    private final Map<Method, Optional<WorkloadClass>> workloadClasses = new ConcurrentHashMap<>();
+
+    public BulkheadInterceptor(BulkheadRegistry bulkheads) {
+        this.bulkheads = bulkheads;
+    }
+
+    @Override
+    public Object invoke(@NonNull MethodInvocation invocation) throws Throwable {
+        Class<?> targetClass = invocation.getThis() != null
+            ? AopUtils.getTargetClass(invocation.getThis())
+            : invocation.getMethod().getDeclaringClass();
+        Optional<WorkloadClass> workloadClass = workloadClasses.computeIfAbsent(
+            invocation.getMethod(), method -> resolve(method, targetClass));
+        if (workloadClass.isEmpty() || !bulkheads.acquire(workloadClass.get())) {
+            return invocation.proceed();
+        }
+        try {
+            return invocation.proceed();
+        } finally {
+            bulkheads.release(workloadClass.get());
+        }
+    }
+
+    /**
+     * @return Workload class of a method, or empty if it does not use the database as far as
+     * annotations tell
+     */
+    static Optional<WorkloadClass> resolve(Method method, Class<?> targetClass) {
+        Method specificMethod = AopUtils.getMostSpecificMethod(method, targetClass);
+        Bulkhead bulkhead = AnnotatedElementUtils.findMergedAnnotation(specificMethod, Bulkhead.class);
+        if (bulkhead == null) {
+            bulkhead = AnnotatedElementUtils.findMergedAnnotation(targetClass, Bulkhead.class);
+        }
+        if (bulkhead != null) {
+            return Optional.of(bulkhead.value());
+        }
+        return usesConnection(specificMethod, targetClass) ? Optional.of(WorkloadClass.DEFAULT) : Optional.empty();
+    }
+
+    /**
+     * @return Whether a method is a repository call or holds a connection for a transaction
+     */
+    private static boolean usesConnection(Method method, Class<?> targetClass) {
+        if (Repository.class.isAssignableFrom(targetClass)) {
+            return true;
+        }
+        Transactional transactional = AnnotatedElementUtils.findMergedAnnotation(method, Transactional.class);
+        if (transactional == null) {
+            transactional = AnnotatedElementUtils.findMergedAnnotation(targetClass, Transactional.class);
+        }
+        if (transactional == null) {
+            return false;
+        }
+        Propagation propagation = transactional.propagation();
+        return propagation != Propagation.NOT_SUPPORTED
+            && propagation != Propagation.NEVER
+            && propagation != Propagation.SUPPORTS;
+    }
+}
@@ -0,0 +1,47 @@
+package com.caioniehues.app.infrastructure.persistence;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Database bulkheads as configured under {@code app.bulkhead}.
+ * <p>
+ * Every workload class gets a pool of permits and a maximum wait for one. The connection pool
+ * must hold the permits of all classes together for each class to be sure of a connection when
+ * it has a permit. Classes without a configured pool get the default pool.
+ *
+ * @param enabled     Whether bulkheads are enforced
+ * @param retryAfter  Delay suggested to clients that were turned away
+ * @param defaultPool Pool of classes without a configured one
+ * @param pools       Pool per workload class
+ */
+@ConfigurationProperties(prefix = "app.bulkhead")
+public record BulkheadProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("PT1S") Duration retryAfter,
+        @DefaultValue Pool defaultPool,
+        Map<WorkloadClass, Pool> pools) {
+
+    public BulkheadProperties {
+        pools = pools != null ? Map.copyOf(pools) : Map.of();
+    }
+
+    /**
+     * @return Pool of the given workload class
+     */
+    public Pool poolFor(WorkloadClass workloadClass) {
+        return pools.getOrDefault(workloadClass, defaultPool);
+    }
+
+    /**
+     * Permits of one workload class.
+     *
+     * @param permits Calls that may run at once
+     * @param maxWait Longest a call waits for a permit before it is turned away
+     */
+    public record Pool(@DefaultValue("4") int permits, @DefaultValue("PT0.5S") Duration maxWait) {
+    }
+}
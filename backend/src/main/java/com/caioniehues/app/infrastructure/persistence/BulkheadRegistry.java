@@ -0,0 +1,142 @@
+package com.caioniehues.app.infrastructure.persistence;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Permit pools that keep workload classes from taking each other's database connections.
+ * <p>
+ * Request threads are virtual, so thousands of them can queue for the pooled connections, each
+ * blocking for up to the pool's connection timeout. A bulkhead admits only so many calls of one
+ * class at once and turns the rest away after a short wait, so a backlog of reports or maintenance
+ * jobs fails fast on its own instead of making logins wait behind it. Waiting for a permit is fair
+ * and cheap on a virtual thread.
+ * <p>
+ * Permits only reserve connections for a class if the connection pool holds at least the permits
+ * of all classes together, plus the connections of work outside any bulkhead such as the shared
+ * rate limiter. Work that exceeds that budget still queues on the pool like before.
+ *
+ * @see Bulkhead
+ */
+@Component
+@Slf4j
+public class BulkheadRegistry implements MeterBinder {
+
+    private final boolean enabled;
+    private final Duration retryAfter;
+    private final Map<WorkloadClass, Semaphore> permits = new EnumMap<>(WorkloadClass.class);
+    private final Map<WorkloadClass, Long> maxWaitNanos = new EnumMap<>(WorkloadClass.class);
+    private final Map<WorkloadClass, LongAdder> rejections = new EnumMap<>(WorkloadClass.class);
+
+    /**
+     * Workload class of the permit the current thread holds, if any.
+     */
+    private final ThreadLocal<WorkloadClass> held = new ThreadLocal<>();
+
+    public BulkheadRegistry(BulkheadProperties properties) {
+        this.enabled = properties.enabled();
+        this.retryAfter = properties.retryAfter();
+        for (WorkloadClass workloadClass : WorkloadClass.values()) {
+            BulkheadProperties.Pool pool = properties.poolFor(workloadClass);
+            if (pool.permits() < 1) {
+                throw new IllegalArgumentException("Bulkhead of " + workloadClass + " needs at least one permit");
+            }
+            permits.put(workloadClass, new Semaphore(pool.permits(), true));
+            maxWaitNanos.put(workloadClass, pool.maxWait().toNanos());
+            rejections.put(workloadClass, new LongAdder());
+        }
+        log.info("Bulkheads {}: {}", enabled ? "enabled" : "disabled", permits);
+    }
+
+    /**
+     * Run work inside the bulkhead of a workload class.
+     * <p>
+     * For callers that reach the database on some paths only, such as a cache miss, where a
+     * {@link Bulkhead @Bulkhead} around the whole method would take a permit for every hit.
+     *
+     * @param workloadClass Workload class whose pool the work takes a permit from
+     * @param work          Work that uses the database
+     * @return Result of the work
+     * @throws BulkheadFullException if no permit freed up in time
+     */
+    public <T> T call(WorkloadClass workloadClass, Supplier<T> work) {
+        if (!acquire(workloadClass)) {
+            return work.get();
+        }
+        try {
+            return work.get();
+        } finally {
+            release(workloadClass);
+        }
+    }
+
+    /**
+     * Take a permit of a workload class, waiting at most the class's maximum wait.
+     *
+     * @return Whether a permit was taken and must be {@link #release released}; false when
+     * bulkheads are disabled or the thread already holds a permit
+     * @throws BulkheadFullException if no permit freed up in time
+     */
+    boolean acquire(WorkloadClass workloadClass) {
+        if (!enabled || held.get() != null) {
+            return false;
+        }
+        boolean acquired;
+        try {
+            acquired = permits.get(workloadClass).tryAcquire(maxWaitNanos.get(workloadClass), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the " + workloadClass + " bulkhead", e);
+        }
+        if (!acquired) {
+            rejections.get(workloadClass).increment();
+            log.warn("Rejecting {} call: bulkhead full", workloadClass);
+            throw new BulkheadFullException(workloadClass, retryAfter);
+        }
+        held.set(workloadClass);
+        return true;
+    }
+
+    /**
+     * Return a permit taken by {@link #acquire}.
+     */
+    void release(WorkloadClass workloadClass) {
+        held.remove();
+        permits.get(workloadClass).release();
+    }
+
+    /**
+     * @return Permits of a workload class that are free right now
+     */
+    int availablePermits(WorkloadClass workloadClass) {
+        return permits.get(workloadClass).availablePermits();
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        for (WorkloadClass workloadClass : WorkloadClass.values()) {
+            String tag = workloadClass.name().toLowerCase();
+            Gauge.builder("db.bulkhead.available", permits.get(workloadClass), Semaphore::availablePermits)
+                .tag("workload", tag)
+                .description("Bulkhead permits free to take")
+                .register(registry);
+            FunctionCounter.builder("db.bulkhead.rejected", rejections.get(workloadClass), LongAdder::sum)
+                .tag("workload", tag)
+                .description("Calls turned away because their bulkhead was full")
+                .register(registry);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.caioniehues.app.infrastructure.persistence;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Sends the read-only transactions of a bean method, or of every public method of a bean, to
+ * the primary even when read replicas are enabled.
+ * <p>
+ * For rare reads that must see every committed change, such as loading a snapshot right after
+ * it changed. Cache reloads keyed by what changed use {@link RecentInvalidations} instead, which
+ * only goes to the primary while a replica may still lack the change. Has no effect while
+ * replicas are disabled.
+ *
+ * @see ReadReplicaRoutingDataSource
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ReadFromPrimary {
+}
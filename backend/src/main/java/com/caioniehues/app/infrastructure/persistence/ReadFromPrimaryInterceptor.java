@@ -0,0 +1,38 @@
+package com.caioniehues.app.infrastructure.persistence;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.lang.NonNull;
+
+import java.lang.reflect.Method;
+
+/**
+ * Runs calls to {@link ReadFromPrimary @ReadFromPrimary} methods and beans with their
+ * read-only connections taken from the primary.
+ */
+public class ReadFromPrimaryInterceptor implements MethodInterceptor {
+
+    @Override
+    public Object invoke(@NonNull MethodInvocation invocation) throws Throwable {
+        if (ReadReplicaRoutingDataSource.PRIMARY_READS.get() != null) {
+            return invocation.proceed();
+        }
+        ReadReplicaRoutingDataSource.PRIMARY_READS.set(Boolean.TRUE);
+        try {
+            return invocation.proceed();
+        } finally {
+            ReadReplicaRoutingDataSource.PRIMARY_READS.remove();
+        }
+    }
+
+    /**
+     * @return Whether a method or its class is annotated
+     */
+    public static boolean appliesTo(Method method, Class<?> targetClass) {
+        Method specificMethod = AopUtils.getMostSpecificMethod(method, targetClass);
+        return AnnotatedElementUtils.hasAnnotation(specificMethod, ReadFromPrimary.class)
+            || AnnotatedElementUtils.hasAnnotation(targetClass, ReadFromPrimary.class);
+    }
+}
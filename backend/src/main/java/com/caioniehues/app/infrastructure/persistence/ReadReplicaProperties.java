@@ -0,0 +1,50 @@
+package com.caioniehues.app.infrastructure.persistence;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Read replicas as configured under {@code app.datasource.read-replicas}.
+ * <p>
+ * Read-only transactions go to a healthy replica whose replication lag is within the maximum;
+ * everything else, and every read when no replica qualifies, goes to the primary.
+ *
+ * @param enabled              Whether read-only transactions are routed to replicas
+ * @param replicas             Replica connection pools
+ * @param maxLag               Largest replication lag a replica may have and still serve reads
+ * @param readYourWritesWindow How long a user reads from the primary after committing a write;
+ *                             zero turns read-your-writes off
+ * @param maxSessions          Sessions with a recent write tracked at once
+ */
+@ConfigurationProperties(prefix = "app.datasource.read-replicas")
+public record ReadReplicaProperties(
+        boolean enabled,
+        List<Replica> replicas,
+        @DefaultValue("PT5S") Duration maxLag,
+        @DefaultValue("PT5S") Duration readYourWritesWindow,
+        @DefaultValue("100000") long maxSessions) {
+
+    public ReadReplicaProperties {
+        replicas = replicas != null ? List.copyOf(replicas) : List.of();
+    }
+
+    /**
+     * One replica. Credentials default to those of the primary.
+     *
+     * @param url               JDBC URL
+     * @param username          Login user, or null for the primary's
+     * @param password          Login password, or null for the primary's
+     * @param maximumPoolSize   Largest number of pooled connections
+     * @param connectionTimeout Longest wait for a connection before the read falls back to the primary
+     */
+    public record Replica(
+            String url,
+            String username,
+            String password,
+            @DefaultValue("10") int maximumPoolSize,
+            @DefaultValue("PT1S") Duration connectionTimeout) {
+    }
+}
@@ -0,0 +1,305 @@
+package com.caioniehues.app.infrastructure.persistence;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hands out connections for read-only transactions, preferring a healthy, caught-up replica.
+ * <p>
+ * Replicas are probed on an interval for reachability and replication lag; a replica that is
+ * down or further behind than the maximum lag serves no reads until a later probe finds it
+ * healthy again. Reads are spread round-robin over the replicas that qualify. When none does,
+ * or a replica fails to hand out a connection, the read goes to the primary.
+ * <p>
+ * With read-your-writes on, a session that committed a read-write transaction through
+ * {@link #writeTracking the primary} keeps reading from the primary for a short window, so it
+ * never misses its own change on a lagging replica. A session is the authenticated user; anonymous
+ * requests share client addresses behind proxies and are not tracked, and registration followed
+ * by login is covered by the invalidation the new user announces. Autocommit statements, such as
+ * those of background jobs, are not tracked either. Writes are tracked per node.
+ * <p>
+ * Pinning only helps the session that wrote. Cache reloads that must see other sessions' changes
+ * as soon as they are announced, such as revocation checks, go through {@link RecentInvalidations};
+ * other reads that must see every committed change are marked {@link ReadFromPrimary}.
+ */
+@Slf4j
+public class ReadReplicaRoutingDataSource extends AbstractDataSource implements MeterBinder, DisposableBean {
+
+    /**
+     * Lag in seconds: zero for a server that is not replicating or has replayed everything it
+     * received, otherwise the age of the last replayed transaction.
+     */
+    private static final String LAG_SQL = """
+        SELECT CASE
+            WHEN NOT pg_is_in_recovery() THEN 0
+            WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+            ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0)
+        END
+        """;
+
+    private static final int PROBE_TIMEOUT_SECONDS = 2;
+
+    /**
+     * Set while the current thread runs a {@link ReadFromPrimary} call.
+     */
+    static final ThreadLocal<Boolean> PRIMARY_READS = new ThreadLocal<>();
+
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final double maxLagSeconds;
+    private final Cache<String, Boolean> recentWriters;
+
+    private volatile Replica[] available = new Replica[0];
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final LongAdder replicaReads = new LongAdder();
+    private final LongAdder primaryReads = new LongAdder();
+
+    public ReadReplicaRoutingDataSource(
+            DataSource primary,
+            List<? extends DataSource> replicas,
+            Duration maxLag,
+            Duration readYourWritesWindow,
+            long maxSessions) {
+        this.primary = primary;
+        for (int i = 0; i < replicas.size(); i++) {
+            this.replicas.add(new Replica("replica-" + i, replicas.get(i)));
+        }
+        this.maxLagSeconds = maxLag.toMillis() / 1000.0;
+        this.recentWriters = readYourWritesWindow.isPositive()
+            ? Caffeine.newBuilder().maximumSize(maxSessions).expireAfterWrite(readYourWritesWindow).build()
+            : null;
+        checkReplicas();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (PRIMARY_READS.get() != null) {
+            primaryReads.increment();
+            return primary.getConnection();
+        }
+        if (recentWriters != null) {
+            String session = currentSession();
+            if (session != null && recentWriters.getIfPresent(session) != null) {
+                primaryReads.increment();
+                return primary.getConnection();
+            }
+        }
+
+        Replica[] candidates = available;
+        for (int i = 0; i < candidates.length; i++) {
+            Replica replica = candidates[Math.floorMod(next.getAndIncrement(), candidates.length)];
+            try {
+                Connection connection = replica.dataSource.getConnection();
+                replicaReads.increment();
+                return connection;
+            } catch (SQLException e) {
+                log.warn("Read replica {} failed to hand out a connection: {}", replica.name, e.getMessage());
+                recordLag(replica, Double.NaN);
+            }
+        }
+
+        primaryReads.increment();
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Replica routing uses the configured credentials");
+    }
+
+    /**
+     * @return The primary, recording every transaction committed on its connections as a write of
+     * the current session
+     */
+    public DataSource writeTracking() {
+        return new DelegatingDataSource(primary) {
+            @Override
+            @NonNull
+            public Connection getConnection() throws SQLException {
+                return trackCommits(super.getConnection());
+            }
+
+            @Override
+            @NonNull
+            public Connection getConnection(@NonNull String username, @NonNull String password) throws SQLException {
+                return trackCommits(super.getConnection(username, password));
+            }
+        };
+    }
+
+    private Connection trackCommits(Connection connection) {
+        if (recentWriters == null) {
+            return connection;
+        }
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] {Connection.class},
+            (proxy, method, args) -> switch (method.getName()) {
+                case "equals" -> proxy == args[0];
+                case "hashCode" -> System.identityHashCode(proxy);
+                default -> {
+                    Object result;
+                    try {
+                        result = method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                    if (method.getName().equals("commit")) {
+                        recordWrite();
+                    }
+                    yield result;
+                }
+            });
+    }
+
+    private void recordWrite() {
+        if (recentWriters != null) {
+            String session = currentSession();
+            if (session != null) {
+                recentWriters.put(session, Boolean.TRUE);
+            }
+        }
+    }
+
+    /**
+     * @return Key of the session the current thread works for, or null outside of authenticated requests
+     */
+    static String currentSession() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken)) {
+            return "user:" + authentication.getName();
+        }
+        return null;
+    }
+
+    /**
+     * Probe every replica and route reads to those that are reachable and caught up.
+     */
+    @Scheduled(
+        initialDelayString = "${app.datasource.read-replicas.health-check-interval:PT5S}",
+        fixedDelayString = "${app.datasource.read-replicas.health-check-interval:PT5S}")
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            recordLag(replica, probe(replica));
+        }
+    }
+
+    /**
+     * @return Replication lag in seconds, or NaN if the replica could not be reached
+     */
+    private static double probe(Replica replica) {
+        try (Connection connection = replica.dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.setQueryTimeout(PROBE_TIMEOUT_SECONDS);
+            try (ResultSet resultSet = statement.executeQuery(LAG_SQL)) {
+                resultSet.next();
+                return resultSet.getDouble(1);
+            }
+        } catch (SQLException e) {
+            log.debug("Read replica {} probe failed: {}", replica.name, e.getMessage());
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * Record a probe result and update the replicas that serve reads.
+     *
+     * @param lagSeconds Replication lag, or NaN if the replica is unreachable
+     */
+    void recordLag(int replicaIndex, double lagSeconds) {
+        recordLag(replicas.get(replicaIndex), lagSeconds);
+    }
+
+    private synchronized void recordLag(Replica replica, double lagSeconds) {
+        boolean wasHealthy = replica.healthy;
+        replica.lagSeconds = lagSeconds;
+        replica.healthy = lagSeconds <= maxLagSeconds;
+        if (wasHealthy != replica.healthy) {
+            if (replica.healthy) {
+                log.info("Read replica {} serves reads again", replica.name);
+            } else {
+                log.warn("Read replica {} stops serving reads: {}", replica.name,
+                    Double.isNaN(lagSeconds) ? "unreachable" : "lag " + lagSeconds + "s");
+            }
+        }
+        available = replicas.stream().filter(r -> r.healthy).toArray(Replica[]::new);
+    }
+
+    /**
+     * @return Number of replicas serving reads right now
+     */
+    int availableReplicas() {
+        return available.length;
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        for (Replica replica : replicas) {
+            Gauge.builder("db.replica.lag", replica, r -> r.lagSeconds)
+                .tag("replica", replica.name)
+                .baseUnit("seconds")
+                .description("Replication lag at the last probe; NaN if unreachable")
+                .register(registry);
+            Gauge.builder("db.replica.available", replica, r -> r.healthy ? 1 : 0)
+                .tag("replica", replica.name)
+                .description("Whether the replica serves reads")
+                .register(registry);
+        }
+        FunctionCounter.builder("db.replica.reads", replicaReads, LongAdder::sum)
+            .tag("target", "replica")
+            .description("Read-only connections handed out")
+            .register(registry);
+        FunctionCounter.builder("db.replica.reads", primaryReads, LongAdder::sum)
+            .tag("target", "primary")
+            .description("Read-only connections handed out")
+            .register(registry);
+    }
+
+    private static final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private volatile double lagSeconds = Double.NaN;
+        private volatile boolean healthy;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.caioniehues.app.infrastructure.persistence;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Remembers which cached entries were invalidated within the last replication lag, so their
+ * reloads read from the primary while every other cache miss may go to a replica.
+ * <p>
+ * An invalidation announces a change that committed on the primary, but a replica serving reads
+ * may not have replayed it yet: it can lag by up to the maximum lag, plus the time until the next
+ * health check notices it fell further behind. Within that window a reload of the key takes its
+ * read-only connections from the primary; afterwards every replica still serving reads has the
+ * change. Keys are the cache keys themselves, such as user IDs, login keys and JTIs; a collision
+ * between kinds only costs a primary read. Does nothing while replicas are disabled.
+ */
+@Component
+public class RecentInvalidations {
+
+    /**
+     * Null while replicas are disabled.
+     */
+    private final Cache<Object, Boolean> keys;
+    private final long windowNanos;
+
+    /**
+     * Until when, in {@link System#nanoTime()}, every key counts as recently invalidated.
+     */
+    private volatile long allUntil = System.nanoTime();
+
+    public RecentInvalidations(
+            @Value("${app.datasource.read-replicas.enabled:false}") boolean enabled,
+            @Value("${app.datasource.read-replicas.max-lag:PT5S}") Duration maxLag,
+            @Value("${app.datasource.read-replicas.health-check-interval:PT5S}") Duration healthCheckInterval,
+            @Value("${app.datasource.read-replicas.max-recent-invalidations:100000}") long maximumSize) {
+        Duration window = maxLag.plus(healthCheckInterval);
+        this.windowNanos = window.toNanos();
+        this.keys = enabled
+            ? Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(window)
+                // A key dropped early would be reloaded from a replica, so treat every key as recent instead
+                .evictionListener((Object key, Boolean value, RemovalCause cause) -> {
+                    if (cause == RemovalCause.SIZE) {
+                        recordAll();
+                    }
+                })
+                .build()
+            : null;
+    }
+
+    /**
+     * Record that the cached entry for a key was invalidated.
+     */
+    public void record(Object key) {
+        if (keys != null && key != null) {
+            keys.put(key, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Record that every cached entry was invalidated, e.g. after a role change.
+     */
+    public void recordAll() {
+        if (keys != null) {
+            allUntil = System.nanoTime() + windowNanos;
+        }
+    }
+
+    /**
+     * @return Whether the entry for a key was invalidated within the window
+     */
+    public boolean isRecent(Object key) {
+        if (keys == null) {
+            return false;
+        }
+        return System.nanoTime() - allUntil < 0 || keys.getIfPresent(key) != null;
+    }
+
+    /**
+     * Reload the entry for a key, from the primary if it was invalidated within the window.
+     *
+     * @param key   Cache key of the entry
+     * @param query Database read that reloads the entry
+     * @return Result of the query
+     */
+    public <T> T read(Object key, Supplier<T> query) {
+        if (!isRecent(key) || ReadReplicaRoutingDataSource.PRIMARY_READS.get() != null) {
+            return query.get();
+        }
+        ReadReplicaRoutingDataSource.PRIMARY_READS.set(Boolean.TRUE);
+        try {
+            return query.get();
+        } finally {
+            ReadReplicaRoutingDataSource.PRIMARY_READS.remove();
+        }
+    }
+}
@@ -5,6 +5,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
 import java.util.Optional;
@@ -13,10 +14,40 @@ import java.util.UUID;
 @Repository
 public interface RefreshTokenRepository extends JpaRepository<RefreshToken, UUID> {
 
-    Optional<RefreshToken> findByToken(String token);
+    /**
+     * Find a refresh token by the SHA-256 digest of the raw token
+     */
+    Optional<RefreshToken> findByTokenHash(byte[] tokenHash);
 
-    @Query("SELECT rt FROM RefreshToken rt JOIN FETCH rt.user WHERE rt.token = :token")
-    Optional<RefreshToken> findByTokenWithUser(String token);
+    /**
+     * Revoke a refresh token for rotation in a single statement.
+     * Only succeeds for a token that is neither revoked nor expired, so of two concurrent
+     * rotations of the same token exactly one gets a result.
+     * <p>
+     * Deliberately not {@code @Modifying}: the RETURNING clause makes the statement yield rows, so
+     * it must run as a query that maps them, whereas a modifying query only returns the update
+     * count. It needs its own read-write {@code @Transactional} instead, because query methods
+     * otherwise run in the repository's read-only transaction, where PostgreSQL rejects an UPDATE.
+     */
+    @Transactional
+    @Query(value = """
+        UPDATE refresh_tokens rt
+        SET revoked = true, revoked_at = :now, updated_at = :now
+        FROM users u
+        WHERE u.id = rt.user_id
+          AND rt.token_hash = :tokenHash
+          AND rt.revoked = false
+          AND rt.expires_at > :now
+        RETURNING rt.user_id AS userId, rt.family_id AS familyId, u.username AS username
+        """, nativeQuery = true)
+    Optional<RefreshTokenRotation> rotate(byte[] tokenHash, Instant now);
+
+    /**
+     * Revoke every token descended from the same login, e.g. after a rotated token was reused.
+     */
+    @Modifying
+    @Query("UPDATE RefreshToken rt SET rt.revoked = true, rt.revokedAt = :now WHERE rt.familyId = :familyId AND rt.revoked = false")
+    int revokeFamily(UUID familyId, Instant now);
 
     @Modifying
     @Query("DELETE FROM RefreshToken rt WHERE rt.user.id = :userId")
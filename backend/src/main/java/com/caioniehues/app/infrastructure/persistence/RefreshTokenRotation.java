@@ -0,0 +1,15 @@
+package com.caioniehues.app.infrastructure.persistence;
+
+import java.util.UUID;
+
+/**
+ * Result of atomically revoking a refresh token for rotation.
+ */
+public interface RefreshTokenRotation {
+
+    UUID getUserId();
+
+    UUID getFamilyId();
+
+    String getUsername();
+}
@@ -0,0 +1,68 @@
+package com.caioniehues.app.infrastructure.persistence;
+
+import com.caioniehues.app.domain.user.Role;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable in-memory view of the reference roles.
+ * <p>
+ * Roles are seeded by migrations and rarely change at runtime, so they are loaded once at startup
+ * instead of being queried on every registration, and reloaded when a role changes. A role missing
+ * from the snapshot is looked up once and added, which covers roles created after startup.
+ */
+@Component
+@Slf4j
+public class RoleRegistry {
+
+    private final RoleRepository roleRepository;
+
+    private volatile Map<String, Role> roles = Map.of();
+
+    public RoleRegistry(RoleRepository roleRepository) {
+        this.roleRepository = roleRepository;
+    }
+
+    /**
+     * Load all roles into memory, replacing the current snapshot.
+     * Reads from the primary, as reloads follow a role change a replica may not have replayed yet.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @ReadFromPrimary
+    public void load() {
+        roles = roleRepository.findAll().stream()
+            .collect(Collectors.toUnmodifiableMap(Role::getName, Function.identity()));
+        log.info("Loaded {} roles", roles.size());
+    }
+
+    /**
+     * Find a role by name.
+     *
+     * @param name Role name, e.g. USER
+     * @return The role, or empty if it does not exist
+     */
+    public Optional<Role> findByName(String name) {
+        Role role = roles.get(name);
+        if (role != null) {
+            return Optional.of(role);
+        }
+
+        Optional<Role> loaded = roleRepository.findByName(name);
+        loaded.ifPresent(this::add);
+        return loaded;
+    }
+
+    private synchronized void add(Role role) {
+        Map<String, Role> updated = new HashMap<>(roles);
+        updated.put(role.getName(), role);
+        roles = Map.copyOf(updated);
+    }
+}
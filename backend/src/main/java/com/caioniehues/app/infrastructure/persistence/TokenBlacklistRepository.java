@@ -5,8 +5,10 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -16,6 +18,7 @@ public interface TokenBlacklistRepository extends JpaRepository<TokenBlacklist,
     /**
      * Check if a token with given JTI is blacklisted
      */
+    @Transactional(readOnly = true)
     boolean existsByJti(String jti);
 
     /**
@@ -23,6 +26,12 @@ public interface TokenBlacklistRepository extends JpaRepository<TokenBlacklist,
      */
     Optional<TokenBlacklist> findByJti(String jti);
 
+    /**
+     * JTIs of all active (non-expired) blacklist entries
+     */
+    @Query("SELECT t.jti FROM TokenBlacklist t WHERE t.expiresAt >= :now")
+    List<String> findActiveJtis(Instant now);
+
     /**
      * Delete expired blacklist entries (cleanup job)
      */
@@ -0,0 +1,218 @@
+package com.caioniehues.app.infrastructure.persistence;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.context.WebServerGracefulShutdownLifecycle;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind buffer for user activity: last login, last seen and failed login attempts.
+ * <p>
+ * Touches are coalesced per user in memory and written as one batched UPDATE on an interval,
+ * or as soon as enough users are pending. Request threads never wait for the database or take
+ * a row lock. Pending touches are drained on graceful shutdown; a crash loses at most one
+ * interval of activity, which is acceptable for this kind of data.
+ */
+@Component
+@Slf4j
+public class UserActivityRecorder implements SmartLifecycle, MeterBinder {
+
+    /**
+     * GREATEST ignores NULLs, so columns without a pending touch keep their value and
+     * out-of-order flushes never move a timestamp backwards.
+     */
+    private static final String FLUSH_SQL = """
+        UPDATE users SET
+            last_login_at = GREATEST(last_login_at, ?),
+            last_seen_at = GREATEST(last_seen_at, ?),
+            failed_login_attempts = CASE WHEN ? THEN 0 ELSE failed_login_attempts END + ?
+        WHERE id = ?
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int flushThreshold;
+
+    private final Map<UUID, UserActivity> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final LongAdder flushedRows = new LongAdder();
+
+    private volatile boolean running;
+
+    public UserActivityRecorder(
+            JdbcTemplate jdbcTemplate,
+            @Value("${app.auth.activity.flush-threshold:1000}") int flushThreshold) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.flushThreshold = flushThreshold;
+    }
+
+    /**
+     * Record a successful login; also resets the failed login counter.
+     */
+    public void recordLogin(UUID userId) {
+        Instant now = Instant.now();
+        record(userId, new UserActivity(now, now, true, 0));
+    }
+
+    /**
+     * Record a failed login attempt.
+     */
+    public void recordFailedLogin(UUID userId) {
+        record(userId, new UserActivity(null, null, false, 1));
+    }
+
+    /**
+     * Record an authenticated request.
+     */
+    public void recordSeen(UUID userId) {
+        record(userId, new UserActivity(null, Instant.now(), false, 0));
+    }
+
+    private void record(UUID userId, UserActivity activity) {
+        pending.merge(userId, activity, UserActivity::then);
+
+        if (pending.size() >= flushThreshold && flushRequested.compareAndSet(false, true)) {
+            Thread.ofVirtual().name("user-activity-flush").start(() -> {
+                try {
+                    flush();
+                } finally {
+                    flushRequested.set(false);
+                }
+            });
+        }
+    }
+
+    /**
+     * Write all pending activity in one batch.
+     */
+    @Scheduled(fixedDelayString = "${app.auth.activity.flush-interval:PT5S}")
+    public synchronized void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        List<Map.Entry<UUID, UserActivity>> batch = new ArrayList<>(pending.size());
+        for (UUID userId : pending.keySet()) {
+            UserActivity activity = pending.remove(userId);
+            if (activity != null) {
+                batch.add(Map.entry(userId, activity));
+            }
+        }
+
+        try {
+            jdbcTemplate.batchUpdate(FLUSH_SQL, batch, batch.size(), (ps, entry) -> {
+                UserActivity activity = entry.getValue();
+                setTimestamp(ps, 1, activity.lastLoginAt());
+                setTimestamp(ps, 2, activity.lastSeenAt());
+                ps.setBoolean(3, activity.resetFailedLoginAttempts());
+                ps.setInt(4, activity.failedLoginAttempts());
+                ps.setObject(5, entry.getKey());
+            });
+            flushedRows.add(batch.size());
+            log.debug("Flushed activity of {} users", batch.size());
+        } catch (RuntimeException e) {
+            // Put the batch back so the next flush retries it, merged with anything newer
+            batch.forEach(entry -> pending.merge(entry.getKey(), entry.getValue(), (newer, older) -> older.then(newer)));
+            log.warn("Failed to flush activity of {} users, will retry: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    private static void setTimestamp(PreparedStatement ps, int index, Instant instant) throws SQLException {
+        if (instant != null) {
+            ps.setTimestamp(index, Timestamp.from(instant));
+        } else {
+            ps.setNull(index, Types.TIMESTAMP_WITH_TIMEZONE);
+        }
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        // Drain before the datasource goes away
+        running = false;
+        flush();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Stop after the web server's graceful shutdown, so the drain also covers the activity of
+     * the requests it let finish.
+     */
+    @Override
+    public int getPhase() {
+        return WebServerGracefulShutdownLifecycle.SMART_LIFECYCLE_PHASE - 1;
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        Gauge.builder("auth.user.activity.pending", pending, Map::size)
+            .description("Users with activity waiting to be written")
+            .register(registry);
+        FunctionCounter.builder("auth.user.activity.flushed", flushedRows, LongAdder::sum)
+            .description("User activity rows written")
+            .register(registry);
+    }
+
+    /**
+     * Activity of one user not written yet.
+     *
+     * @param lastLoginAt               Latest successful login, null if none
+     * @param lastSeenAt                Latest authenticated activity, null if none
+     * @param resetFailedLoginAttempts  Whether a successful login reset the counter
+     * @param failedLoginAttempts       Failed attempts to add, after the reset if any
+     */
+    record UserActivity(
+            Instant lastLoginAt,
+            Instant lastSeenAt,
+            boolean resetFailedLoginAttempts,
+            int failedLoginAttempts) {
+
+        /**
+         * Combine with activity that happened after this one.
+         */
+        UserActivity then(UserActivity next) {
+            return new UserActivity(
+                latest(lastLoginAt, next.lastLoginAt),
+                latest(lastSeenAt, next.lastSeenAt),
+                resetFailedLoginAttempts || next.resetFailedLoginAttempts,
+                next.resetFailedLoginAttempts
+                    ? next.failedLoginAttempts
+                    : failedLoginAttempts + next.failedLoginAttempts);
+        }
+
+        private static Instant latest(Instant a, Instant b) {
+            if (a == null) {
+                return b;
+            }
+            return b == null || a.isAfter(b) ? a : b;
+        }
+    }
+}
@@ -1,12 +1,15 @@
 package com.caioniehues.app.infrastructure.persistence;
 
 import com.caioniehues.app.domain.user.User;
+import com.caioniehues.app.domain.user.UserTokenStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -21,12 +24,46 @@ public interface UserRepository extends JpaRepository<User, UUID> {
 
     boolean existsByEmail(String email);
 
+    boolean existsByUsernameKeyOrEmailKey(String usernameKey, String emailKey);
+
     @Query("SELECT u FROM User u LEFT JOIN FETCH u.roles WHERE u.username = :username")
     Optional<User> findByUsernameWithRoles(String username);
 
     @Query("SELECT u FROM User u LEFT JOIN FETCH u.roles WHERE u.email = :email")
     Optional<User> findByEmailWithRoles(String email);
 
+    /**
+     * Find a user by username or email in one statement, using the unique login key indexes.
+     * A username match is returned first, ahead of a different user whose email matches.
+     *
+     * @param loginKey Login normalized with {@link User#toLoginKey(String)}
+     */
+    @Query("""
+        SELECT u FROM User u LEFT JOIN FETCH u.roles
+        WHERE u.usernameKey = :loginKey OR u.emailKey = :loginKey
+        ORDER BY CASE WHEN u.usernameKey = :loginKey THEN 0 ELSE 1 END
+        """)
+    @Transactional(readOnly = true)
+    List<User> findByLoginKeyWithRoles(String loginKey);
+
+    @Transactional(readOnly = true)
+    @Query("SELECT new com.caioniehues.app.domain.user.UserTokenStatus(u.enabled, u.tokenEpoch) FROM User u WHERE u.id = :userId")
+    Optional<UserTokenStatus> findTokenStatusById(UUID userId);
+
+    /**
+     * Revoke every token issued to a user so far by moving the user to a new token epoch.
+     */
+    @Modifying
+    @Query("UPDATE User u SET u.tokenEpoch = u.tokenEpoch + 1 WHERE u.id = :userId")
+    int incrementTokenEpoch(UUID userId);
+
+    /**
+     * Replace a stored password hash, e.g. after rehashing it with a stronger work factor.
+     */
+    @Modifying
+    @Query("UPDATE User u SET u.passwordHash = :passwordHash WHERE u.id = :userId")
+    int updatePasswordHash(UUID userId, String passwordHash);
+
     @Modifying
     @Query("UPDATE User u SET u.lastLoginAt = :lastLoginAt WHERE u.id = :userId")
     void updateLastLogin(UUID userId, Instant lastLoginAt);
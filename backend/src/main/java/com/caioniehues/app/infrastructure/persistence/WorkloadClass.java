@@ -0,0 +1,26 @@
+package com.caioniehues.app.infrastructure.persistence;
+
+/**
+ * Kinds of database work that get a bulkhead of their own.
+ *
+ * @see Bulkhead
+ */
+public enum WorkloadClass {
+
+    /**
+     * Login, registration, token refresh and logout, and the token checks of every request
+     * that miss their caches.
+     */
+    AUTH,
+
+    /**
+     * Database work not marked with another class, such as plain CRUD and reports: repository
+     * calls and transactional methods that run outside any other bulkhead.
+     */
+    DEFAULT,
+
+    /**
+     * Scheduled background jobs such as cleanups and index rebuilds.
+     */
+    MAINTENANCE
+}
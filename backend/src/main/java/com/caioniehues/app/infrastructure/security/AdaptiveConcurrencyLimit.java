@@ -0,0 +1,165 @@
+package com.caioniehues.app.infrastructure.security;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrency limit that follows observed latency, in the style of a gradient limiter.
+ * <p>
+ * Request latencies are averaged over short sample windows and compared with a slowly moving
+ * long-term average. While the two agree the limit grows by a small queue allowance; when
+ * recent latency rises above the long-term average by more than the tolerance, the limit
+ * shrinks by the same ratio, by at most half per window before smoothing. The limit therefore
+ * settles near the concurrency the backend can serve without queueing, whatever that happens
+ * to be right now.
+ * <p>
+ * Admission is a CAS on the in-flight count. Samples are added to striped counters, and only
+ * the one thread that closes a window recomputes the limit.
+ */
+class AdaptiveConcurrencyLimit {
+
+    private static final double LONG_RTT_SMOOTHING = 0.05;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double smoothing;
+    private final double rttTolerance;
+    private final long windowNanos;
+    private final int minWindowSamples;
+    private final double priorityReserve;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder windowRttNanos = new LongAdder();
+    private final LongAdder windowSamples = new LongAdder();
+    private final AtomicInteger windowMaxInFlight = new AtomicInteger();
+    private final AtomicBoolean updating = new AtomicBoolean();
+
+    private volatile double limit;
+    private volatile double longRttNanos;
+    private volatile long windowEndNanos;
+
+    /**
+     * @param initialLimit     Limit before any latency has been observed
+     * @param minLimit         Lowest the limit may go
+     * @param maxLimit         Highest the limit may go
+     * @param smoothing        Weight of each new estimate, between 0 and 1
+     * @param rttTolerance     How far recent latency may exceed the long-term average before
+     *                         the limit shrinks, e.g. 1.5 for 50%
+     * @param windowNanos      Length of one sample window
+     * @param minWindowSamples Samples a window needs before it may change the limit
+     * @param priorityReserve  Share of the limit only priority requests may use
+     * @param nowNanos         Current {@link System#nanoTime()}
+     */
+    AdaptiveConcurrencyLimit(
+            int initialLimit,
+            int minLimit,
+            int maxLimit,
+            double smoothing,
+            double rttTolerance,
+            long windowNanos,
+            int minWindowSamples,
+            double priorityReserve,
+            long nowNanos) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Concurrency limits must satisfy 1 <= min <= max");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.smoothing = smoothing;
+        this.rttTolerance = rttTolerance;
+        this.windowNanos = windowNanos;
+        this.minWindowSamples = minWindowSamples;
+        this.priorityReserve = priorityReserve;
+        this.limit = Math.clamp(initialLimit, minLimit, maxLimit);
+        this.windowEndNanos = nowNanos + windowNanos;
+    }
+
+    /**
+     * Admit a request if there is room for it.
+     *
+     * @param priority Whether the request may use the reserved share of the limit
+     * @return Whether the request was admitted; if so, {@link #release} must follow
+     */
+    boolean tryAcquire(boolean priority) {
+        int currentLimit = limit();
+        int allowed = priority
+            ? currentLimit
+            : currentLimit - Math.max(1, (int) (currentLimit * priorityReserve));
+
+        while (true) {
+            int current = inFlight.get();
+            if (current >= allowed) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                windowMaxInFlight.accumulateAndGet(current + 1, Math::max);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Release an admitted request and learn from its latency.
+     *
+     * @param rttNanos Time the request took
+     * @param nowNanos Current {@link System#nanoTime()}
+     */
+    void release(long rttNanos, long nowNanos) {
+        inFlight.decrementAndGet();
+        windowRttNanos.add(rttNanos);
+        windowSamples.increment();
+
+        if (nowNanos - windowEndNanos >= 0 && updating.compareAndSet(false, true)) {
+            try {
+                closeWindow(nowNanos);
+            } finally {
+                updating.set(false);
+            }
+        }
+    }
+
+    private void closeWindow(long nowNanos) {
+        long samples = windowSamples.sumThenReset();
+        long rttSum = windowRttNanos.sumThenReset();
+        int maxInFlight = windowMaxInFlight.getAndSet(inFlight.get());
+        windowEndNanos = nowNanos + windowNanos;
+
+        if (samples < minWindowSamples) {
+            // Too little traffic to say anything; put the samples back for the next window
+            windowSamples.add(samples);
+            windowRttNanos.add(rttSum);
+            return;
+        }
+
+        double shortRtt = (double) rttSum / samples;
+        double longRtt = longRttNanos == 0 ? shortRtt : longRttNanos;
+        longRtt = longRtt * (1 - LONG_RTT_SMOOTHING) + shortRtt * LONG_RTT_SMOOTHING;
+        if (longRtt > shortRtt * 2) {
+            // Latency recovered well below the long-term average; let the average catch up quickly
+            longRtt = shortRtt * 2;
+        }
+        longRttNanos = longRtt;
+
+        double current = limit;
+        double gradient = Math.clamp(rttTolerance * longRtt / shortRtt, 0.5, 1.0);
+        // Grow only when the limit was actually the constraint
+        double queueAllowance = maxInFlight * 2 >= current ? Math.sqrt(current) : 0;
+        double estimate = current * gradient + queueAllowance;
+        limit = Math.clamp(current * (1 - smoothing) + estimate * smoothing, minLimit, maxLimit);
+    }
+
+    /**
+     * @return Current limit
+     */
+    int limit() {
+        return (int) limit;
+    }
+
+    /**
+     * @return Requests currently admitted
+     */
+    int inFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,126 @@
+package com.caioniehues.app.infrastructure.security;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sheds load once the server is serving more requests at once than the backend can keep up with.
+ * <p>
+ * Request threads are virtual, so nothing else bounds concurrency: when the database slows
+ * down, requests pile up waiting for a pool connection and every caller waits. This filter
+ * admits requests up to an {@link AdaptiveConcurrencyLimit adaptive limit} and turns the rest
+ * away at once with a 503, so admitted requests stay fast and clients can retry elsewhere.
+ * Requests to priority paths, such as health checks and token refresh, may use a reserved
+ * share of the limit that other traffic cannot take.
+ */
+@Component
+public class AdaptiveConcurrencyLimitFilter extends OncePerRequestFilter implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveConcurrencyLimitFilter.class);
+
+    private static final ProblemResponseWriter.Template OVERLOADED = ProblemResponseWriter.template(
+        HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Service Unavailable", "The server is overloaded. Please try again shortly.");
+
+    private final AdaptiveConcurrencyLimit limit;
+    private final RoutePolicyRegistry routePolicies;
+    private final ProblemResponseWriter problemResponseWriter;
+    private final boolean enabled;
+    private final long retryAfterSeconds;
+
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder rejectedPriority = new LongAdder();
+
+    public AdaptiveConcurrencyLimitFilter(
+            RoutePolicyRegistry routePolicies,
+            ProblemResponseWriter problemResponseWriter,
+            @Value("${app.concurrency-limit.enabled:true}") boolean enabled,
+            @Value("${app.concurrency-limit.initial-limit:20}") int initialLimit,
+            @Value("${app.concurrency-limit.min-limit:4}") int minLimit,
+            @Value("${app.concurrency-limit.max-limit:500}") int maxLimit,
+            @Value("${app.concurrency-limit.smoothing:0.2}") double smoothing,
+            @Value("${app.concurrency-limit.rtt-tolerance:1.5}") double rttTolerance,
+            @Value("${app.concurrency-limit.window:PT1S}") Duration window,
+            @Value("${app.concurrency-limit.min-window-samples:10}") int minWindowSamples,
+            @Value("${app.concurrency-limit.priority-reserve:0.1}") double priorityReserve,
+            @Value("${app.concurrency-limit.retry-after:PT1S}") Duration retryAfter) {
+        this(new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxLimit, smoothing, rttTolerance,
+                window.toNanos(), minWindowSamples, priorityReserve, System.nanoTime()),
+            routePolicies, problemResponseWriter, enabled, retryAfter);
+    }
+
+    AdaptiveConcurrencyLimitFilter(
+            AdaptiveConcurrencyLimit limit,
+            RoutePolicyRegistry routePolicies,
+            ProblemResponseWriter problemResponseWriter,
+            boolean enabled,
+            Duration retryAfter) {
+        this.limit = limit;
+        this.routePolicies = routePolicies;
+        this.problemResponseWriter = problemResponseWriter;
+        this.enabled = enabled;
+        this.retryAfterSeconds = Math.max(retryAfter.toSeconds(), 1);
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain) throws ServletException, IOException {
+
+        if (!enabled) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        boolean priority = routePolicies.current().isPriority(request.getServletPath());
+        if (!limit.tryAcquire(priority)) {
+            (priority ? rejectedPriority : rejected).increment();
+            logger.debug("Shedding request to {} at concurrency limit {}", request.getServletPath(), limit.limit());
+            response.setHeader("Retry-After", Long.toString(retryAfterSeconds));
+            problemResponseWriter.writeWithRetryAfter(response, OVERLOADED, request.getRequestURI(), retryAfterSeconds);
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            long now = System.nanoTime();
+            limit.release(now - start, now);
+        }
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        Gauge.builder("http.concurrency.limit", limit, AdaptiveConcurrencyLimit::limit)
+            .description("Current adaptive concurrency limit")
+            .register(registry);
+        Gauge.builder("http.concurrency.in.flight", limit, AdaptiveConcurrencyLimit::inFlight)
+            .description("Requests currently admitted by the concurrency limiter")
+            .register(registry);
+        FunctionCounter.builder("http.concurrency.rejected", rejected, LongAdder::sum)
+            .tag("priority", "false")
+            .description("Requests shed because the concurrency limit was reached")
+            .register(registry);
+        FunctionCounter.builder("http.concurrency.rejected", rejectedPriority, LongAdder::sum)
+            .tag("priority", "true")
+            .description("Requests shed because the concurrency limit was reached")
+            .register(registry);
+    }
+}
@@ -0,0 +1,180 @@
+package com.caioniehues.app.infrastructure.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.lang.NonNull;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-user read and write quotas for authenticated traffic.
+ * <p>
+ * Each user has one fixed-window counter per kind of request, packed with its window number
+ * into a single {@link AtomicLong} and advanced by compare-and-set. Admitting a request takes
+ * one CAS; rejecting one takes a single read and a pre-encoded problem response.
+ * Every authenticated response reports the remaining quota in {@code X-RateLimit-*} headers.
+ */
+@Component
+public class ApiQuotaFilter extends OncePerRequestFilter implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(ApiQuotaFilter.class);
+
+    static final String LIMIT_HEADER = "X-RateLimit-Limit";
+    static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+    static final String RESET_HEADER = "X-RateLimit-Reset";
+
+    private static final ProblemResponseWriter.Template QUOTA_EXCEEDED = ProblemResponseWriter.template(
+        429, "Too Many Requests", "API quota exceeded. Please try again later.");
+
+    private static final long COUNT_MASK = 0xFFFF_FFFFL;
+
+    private final boolean enabled;
+    private final long windowMillis;
+    private final ApiQuotaProperties.Budget defaultBudget;
+    private final Map<String, ApiQuotaProperties.Budget> budgetsByAuthority = new HashMap<>();
+    private final Cache<UUID, Counters> counters;
+    private final Clock clock;
+    private final ProblemResponseWriter problemResponseWriter;
+
+    private final LongAdder rejectedReads = new LongAdder();
+    private final LongAdder rejectedWrites = new LongAdder();
+
+    public ApiQuotaFilter(ApiQuotaProperties properties, ProblemResponseWriter problemResponseWriter) {
+        this(properties, problemResponseWriter, Clock.systemUTC());
+    }
+
+    ApiQuotaFilter(ApiQuotaProperties properties, ProblemResponseWriter problemResponseWriter, Clock clock) {
+        this.enabled = properties.enabled();
+        this.windowMillis = properties.window().toMillis();
+        this.defaultBudget = properties.defaultBudget();
+        properties.budgets().forEach((role, budget) -> budgetsByAuthority.put("ROLE_" + role.name(), budget));
+        // A user idle for a whole window would start the next one from zero anyway
+        this.counters = Caffeine.newBuilder()
+            .maximumSize(properties.maxUsers())
+            .expireAfterAccess(properties.window())
+            .build();
+        this.clock = clock;
+        this.problemResponseWriter = problemResponseWriter;
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain) throws ServletException, IOException {
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (!enabled || !RateLimitPolicy.isAuthenticated(authentication)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        boolean read = isRead(request.getMethod());
+        int limit = limitFor(authentication, read);
+        Counters userCounters = counters.get(AuthPrincipal.idOf(authentication), id -> new Counters());
+
+        long now = clock.millis();
+        long window = now / windowMillis;
+        long remaining = tryAcquire(read ? userCounters.reads : userCounters.writes, window, limit);
+        long resetSeconds = ((window + 1) * windowMillis - now + 999) / 1000;
+
+        response.setHeader(LIMIT_HEADER, Integer.toString(limit));
+        response.setHeader(REMAINING_HEADER, Long.toString(Math.max(remaining, 0)));
+        response.setHeader(RESET_HEADER, Long.toString(resetSeconds));
+
+        if (remaining >= 0) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        (read ? rejectedReads : rejectedWrites).increment();
+        logger.debug("API quota exceeded for user: {}", authentication.getName());
+        response.setHeader("Retry-After", Long.toString(resetSeconds));
+        problemResponseWriter.writeWithRetryAfter(response, QUOTA_EXCEEDED, request.getRequestURI(), resetSeconds);
+    }
+
+    /**
+     * Count one request in the current window.
+     *
+     * @return Requests left in the window after this one, or -1 if the quota is used up
+     */
+    static long tryAcquire(AtomicLong counter, long window, int limit) {
+        long windowBits = (window & COUNT_MASK) << 32;
+        while (true) {
+            long current = counter.get();
+            long count = (current & ~COUNT_MASK) == windowBits ? current & COUNT_MASK : 0;
+            if (count >= limit) {
+                return -1;
+            }
+            if (counter.compareAndSet(current, windowBits | (count + 1))) {
+                return limit - count - 1;
+            }
+        }
+    }
+
+    /**
+     * @return Largest budget of any role the caller holds, or the default budget
+     */
+    private int limitFor(Authentication authentication, boolean read) {
+        int limit = -1;
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            ApiQuotaProperties.Budget budget = budgetsByAuthority.get(authority.getAuthority());
+            if (budget != null) {
+                limit = Math.max(limit, read ? budget.reads() : budget.writes());
+            }
+        }
+        if (limit < 0) {
+            limit = read ? defaultBudget.reads() : defaultBudget.writes();
+        }
+        return limit;
+    }
+
+    private static boolean isRead(String method) {
+        return "GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method);
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        Gauge.builder("api.quota.users", counters, Cache::estimatedSize)
+            .description("Users with an active quota window")
+            .register(registry);
+        FunctionCounter.builder("api.quota.rejected", rejectedReads, LongAdder::sum)
+            .tag("operation", "read")
+            .description("Requests rejected because the user's quota was used up")
+            .register(registry);
+        FunctionCounter.builder("api.quota.rejected", rejectedWrites, LongAdder::sum)
+            .tag("operation", "write")
+            .description("Requests rejected because the user's quota was used up")
+            .register(registry);
+    }
+
+    /**
+     * Quota counters of one user, each holding its window number in the upper 32 bits and the
+     * requests counted in that window in the lower 32 bits.
+     */
+    private static final class Counters {
+        private final AtomicLong reads = new AtomicLong();
+        private final AtomicLong writes = new AtomicLong();
+    }
+}
@@ -0,0 +1,43 @@
+package com.caioniehues.app.infrastructure.security;
+
+import com.caioniehues.app.domain.user.Role;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Per-user API quotas as configured under {@code app.api-quota}.
+ * <p>
+ * Every authenticated user gets a read and a write budget per window. A user holding several
+ * roles gets the largest budget of any of them; users without a configured role get the
+ * default budget.
+ *
+ * @param enabled       Whether quotas are enforced
+ * @param window        Length of one quota window
+ * @param maxUsers      Users tracked at once; the least recently active are forgotten first
+ * @param defaultBudget Budget of users without a configured role
+ * @param budgets       Budget per role
+ */
+@ConfigurationProperties(prefix = "app.api-quota")
+public record ApiQuotaProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("PT1M") Duration window,
+        @DefaultValue("100000") long maxUsers,
+        @DefaultValue Budget defaultBudget,
+        Map<Role.RoleName, Budget> budgets) {
+
+    public ApiQuotaProperties {
+        budgets = budgets != null ? Map.copyOf(budgets) : Map.of();
+    }
+
+    /**
+     * Requests allowed per window.
+     *
+     * @param reads  Safe requests: GET, HEAD and OPTIONS
+     * @param writes All other requests
+     */
+    public record Budget(@DefaultValue("60") int reads, @DefaultValue("20") int writes) {
+    }
+}
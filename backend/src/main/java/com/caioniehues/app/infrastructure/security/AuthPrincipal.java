@@ -0,0 +1,158 @@
+package com.caioniehues.app.infrastructure.security;
+
+import com.caioniehues.app.domain.user.Role;
+import com.caioniehues.app.domain.user.User;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable snapshot of the authentication state of a user.
+ * <p>
+ * This is what the userDetails cache holds and what authenticated requests carry as their
+ * principal, instead of the detached JPA entity with its role and refresh token collections.
+ * Requests authorized from token claims alone carry one built from the claims.
+ * Authorities are computed once and interned, so all users with the same roles share one
+ * list, and the email shares the username string when both are the same.
+ *
+ * @param id         User ID
+ * @param username   Username
+ * @param email      Email address
+ * @param password   Encoded password
+ * @param enabled    Whether the account is enabled
+ * @param authorities Granted authorities, ROLE_ prefixed
+ * @param tokenEpoch Token epoch of the user; tokens from older epochs are revoked
+ */
+public record AuthPrincipal(
+        UUID id,
+        String username,
+        String email,
+        String password,
+        boolean enabled,
+        List<GrantedAuthority> authorities,
+        int tokenEpoch) implements UserDetails {
+
+    private static final String ROLE_PREFIX = "ROLE_";
+
+    private static final Map<Set<String>, List<GrantedAuthority>> INTERNED_AUTHORITIES = new ConcurrentHashMap<>();
+
+    /**
+     * Take a snapshot of a user entity. Roles must be loaded.
+     *
+     * @param user User entity
+     * @return Principal for the user
+     */
+    public static AuthPrincipal from(User user) {
+        Set<String> roleNames = user.getRoles().stream()
+            .map(Role::getName)
+            .collect(Collectors.toUnmodifiableSet());
+        String username = user.getUsername();
+        String email = Objects.equals(username, user.getEmail()) ? username : user.getEmail();
+
+        return new AuthPrincipal(
+            user.getId(),
+            username,
+            email,
+            user.getPasswordHash(),
+            user.isEnabled(),
+            authoritiesFor(roleNames),
+            user.getTokenEpoch()
+        );
+    }
+
+    /**
+     * Build a principal from the claims of a verified, self-contained access token.
+     * The password is unknown and the account counts as enabled; the user-level revocation
+     * check has already run against the token.
+     *
+     * @param token Verified token carrying a user ID and roles
+     * @return Principal for the token's user
+     */
+    public static AuthPrincipal fromClaims(VerifiedToken token) {
+        return new AuthPrincipal(
+            token.userId(),
+            token.subject(),
+            token.subject(),
+            null,
+            true,
+            authoritiesFor(Set.copyOf(token.roles())),
+            token.epoch()
+        );
+    }
+
+    /**
+     * User ID of an authenticated caller.
+     *
+     * @param authentication Authenticated caller
+     * @return ID of the caller
+     * @throws IllegalStateException if the caller was not authenticated with an AuthPrincipal
+     */
+    public static UUID idOf(Authentication authentication) {
+        if (authentication.getPrincipal() instanceof AuthPrincipal principal && principal.id() != null) {
+            return principal.id();
+        }
+        throw new IllegalStateException("No user ID for authenticated caller: " + authentication.getName());
+    }
+
+    /**
+     * Shared authority list for a set of role names.
+     */
+    static List<GrantedAuthority> authoritiesFor(Set<String> roleNames) {
+        return INTERNED_AUTHORITIES.computeIfAbsent(roleNames, names -> names.stream()
+            .sorted()
+            .map(name -> (GrantedAuthority) new SimpleGrantedAuthority(ROLE_PREFIX + name))
+            .toList());
+    }
+
+    /**
+     * Copy of this principal with a new encoded password.
+     */
+    public AuthPrincipal withPassword(String newPassword) {
+        return new AuthPrincipal(id, username, email, newPassword, enabled, authorities, tokenEpoch);
+    }
+
+    /**
+     * Login keys this principal may be cached under.
+     */
+    public Set<String> cacheKeys() {
+        String usernameKey = User.toLoginKey(username);
+        String emailKey = User.toLoginKey(email);
+        return usernameKey.equals(emailKey) ? Set.of(usernameKey) : Set.of(usernameKey, emailKey);
+    }
+
+    @Override
+    public List<GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public String getPassword() {
+        return password;
+    }
+
+    @Override
+    public String getUsername() {
+        return username;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public String toString() {
+        // Never print the password hash
+        return "AuthPrincipal[id=" + id + ", username=" + username + ", enabled=" + enabled
+            + ", authorities=" + authorities + ", tokenEpoch=" + tokenEpoch + "]";
+    }
+}
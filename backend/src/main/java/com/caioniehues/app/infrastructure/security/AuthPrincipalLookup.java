@@ -0,0 +1,53 @@
+package com.caioniehues.app.infrastructure.security;
+
+import com.caioniehues.app.domain.user.User;
+import com.caioniehues.app.infrastructure.persistence.BulkheadRegistry;
+import com.caioniehues.app.infrastructure.persistence.RecentInvalidations;
+import com.caioniehues.app.infrastructure.persistence.UserRepository;
+import com.caioniehues.app.infrastructure.persistence.WorkloadClass;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Cached lookup of authentication principals by username or email, ignoring case.
+ * <p>
+ * Misses are cached too, as null entries with a short expiry, so repeated attempts with unknown
+ * logins do not reach the database. Loading is synchronized per key: concurrent requests for the
+ * same uncached login wait for a single database fetch and share its result. Fetches may read
+ * from a replica, except right after the entry was evicted for a change: that reload reads from
+ * the primary, so it does not bring back the old state from a lagging replica. Only fetches take
+ * a permit of the {@link WorkloadClass#AUTH} bulkhead; cache hits never wait for one.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AuthPrincipalLookup {
+
+    private final UserRepository userRepository;
+    private final BulkheadRegistry bulkheads;
+    private final RecentInvalidations recentInvalidations;
+
+    /**
+     * Find the principal for a login.
+     *
+     * @param loginKey Username or email normalized with {@link User#toLoginKey(String)}
+     * @return The principal, or empty if no user has this username or email
+     */
+    @Cacheable(value = "userDetails", key = "#loginKey", sync = true)
+    public Optional<AuthPrincipal> findByLogin(String loginKey) {
+        log.debug("Loading user by username/email: {}", loginKey);
+
+        return recentInvalidations.read(loginKey,
+                () -> bulkheads.call(WorkloadClass.AUTH, () -> userRepository.findByLoginKeyWithRoles(loginKey)))
+            .stream()
+            .findFirst()
+            .map(user -> {
+                log.debug("User found: {} with {} roles", user.getUsername(), user.getRoles().size());
+                return AuthPrincipal.from(user);
+            });
+    }
+}
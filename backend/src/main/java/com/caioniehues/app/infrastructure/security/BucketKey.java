@@ -0,0 +1,125 @@
+package com.caioniehues.app.infrastructure.security;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * Compact rate-limit bucket key: a client address plus the ID of the rate-limit policy.
+ * <p>
+ * Addresses are held as 128 bits, IPv4 in its IPv4-mapped IPv6 form, so every key has the
+ * same small fixed size and no per-client strings are retained. Policies keyed per principal
+ * put the principal's UUID in place of the address.
+ *
+ * @param addressHigh Upper 64 bits of the IPv6 (or IPv4-mapped) address
+ * @param addressLow  Lower 64 bits of the address
+ * @param policy      ID of the rate-limit policy
+ */
+record BucketKey(long addressHigh, long addressLow, int policy) {
+
+    private static final long IPV4_MAPPED_PREFIX = 0xFFFF_0000_0000L;
+
+    /**
+     * Key shared by all clients whose address is unknown.
+     */
+    static BucketKey unknown(int policy) {
+        return new BucketKey(0, 0, policy);
+    }
+
+    /**
+     * Build a key for an authenticated principal.
+     *
+     * @param principalId ID of the principal
+     * @param policy      ID of the rate-limit policy
+     */
+    static BucketKey ofPrincipal(UUID principalId, int policy) {
+        return new BucketKey(principalId.getMostSignificantBits(), principalId.getLeastSignificantBits(), policy);
+    }
+
+    /**
+     * Build a key from an IP address literal.
+     * Host names are never resolved: anything that is not a literal yields null.
+     *
+     * @param address IPv4 or IPv6 literal, e.g. from a forwarding header
+     * @param policy  ID of the rate-limit policy
+     * @return The key, or null if the address is not a valid literal
+     */
+    static BucketKey of(String address, int policy) {
+        if (address == null || address.isEmpty()) {
+            return null;
+        }
+
+        long ipv4 = parseIpv4(address);
+        if (ipv4 >= 0) {
+            return new BucketKey(0, IPV4_MAPPED_PREFIX | ipv4, policy);
+        }
+        if (address.indexOf(':') >= 0) {
+            return ofIpv6(address, policy);
+        }
+        return null;
+    }
+
+    /**
+     * @return The key as 20 bytes: address high, address low, policy
+     */
+    byte[] toBytes() {
+        return ByteBuffer.allocate(20)
+            .putLong(addressHigh)
+            .putLong(addressLow)
+            .putInt(policy)
+            .array();
+    }
+
+    /**
+     * @return The address as an unsigned 32-bit value, or -1 if it is not a dotted-quad literal
+     */
+    private static long parseIpv4(String address) {
+        long value = 0;
+        int octets = 0;
+        int octet = -1;
+
+        for (int i = 0; i < address.length(); i++) {
+            char c = address.charAt(i);
+            if (c >= '0' && c <= '9') {
+                octet = (octet < 0 ? 0 : octet * 10) + (c - '0');
+                if (octet > 255) {
+                    return -1;
+                }
+            } else if (c == '.' && octet >= 0 && octets < 3) {
+                value = (value << 8) | octet;
+                octets++;
+                octet = -1;
+            } else {
+                return -1;
+            }
+        }
+        if (octet < 0 || octets != 3) {
+            return -1;
+        }
+        return (value << 8) | octet;
+    }
+
+    private static BucketKey ofIpv6(String address, int policy) {
+        for (int i = 0; i < address.length(); i++) {
+            char c = address.charAt(i);
+            if (Character.digit(c, 16) < 0 && c != ':' && c != '.') {
+                return null;
+            }
+        }
+
+        byte[] bytes;
+        try {
+            // Brackets make the JDK parse the literal strictly instead of attempting a lookup
+            bytes = InetAddress.getByName("[" + address + "]").getAddress();
+        } catch (UnknownHostException e) {
+            return null;
+        }
+
+        if (bytes.length == 4) {
+            return new BucketKey(0, IPV4_MAPPED_PREFIX | (ByteBuffer.wrap(bytes).getInt() & 0xFFFF_FFFFL), policy);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new BucketKey(buffer.getLong(), buffer.getLong(), policy);
+    }
+}
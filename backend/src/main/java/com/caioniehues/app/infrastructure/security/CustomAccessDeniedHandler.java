@@ -1,12 +1,10 @@
 package com.caioniehues.app.infrastructure.security;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.http.MediaType;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -14,19 +12,19 @@ import org.springframework.security.web.access.AccessDeniedHandler;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
-import java.time.Instant;
-import java.util.HashMap;
-import java.util.Map;
 
 @Component
 public class CustomAccessDeniedHandler implements AccessDeniedHandler {
 
     private static final Logger logger = LoggerFactory.getLogger(CustomAccessDeniedHandler.class);
 
-    private final ObjectMapper objectMapper;
+    private static final ProblemResponseWriter.Template FORBIDDEN = ProblemResponseWriter.template(
+        HttpServletResponse.SC_FORBIDDEN, "Forbidden", "You do not have permission to access this resource");
 
-    public CustomAccessDeniedHandler(ObjectMapper objectMapper) {
-        this.objectMapper = objectMapper;
+    private final ProblemResponseWriter problemResponseWriter;
+
+    public CustomAccessDeniedHandler(ProblemResponseWriter problemResponseWriter) {
+        this.problemResponseWriter = problemResponseWriter;
     }
 
     @Override
@@ -44,25 +42,11 @@ public class CustomAccessDeniedHandler implements AccessDeniedHandler {
             getClientIpAddress(request),
             accessDeniedException.getMessage());
 
-        response.setStatus(HttpServletResponse.SC_FORBIDDEN);
-        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
-        response.setCharacterEncoding("UTF-8");
-
-        Map<String, Object> errorResponse = new HashMap<>();
-        errorResponse.put("type", "about:blank");
-        errorResponse.put("title", "Forbidden");
-        errorResponse.put("status", HttpServletResponse.SC_FORBIDDEN);
-        errorResponse.put("detail", "You do not have permission to access this resource");
-        errorResponse.put("instance", request.getRequestURI());
-        errorResponse.put("timestamp", Instant.now().toString());
-
         if (authentication != null && authentication.isAuthenticated()) {
-            errorResponse.put("user", username);
+            problemResponseWriter.writeWithUser(response, FORBIDDEN, request.getRequestURI(), username);
+        } else {
+            problemResponseWriter.write(response, FORBIDDEN, request.getRequestURI());
         }
-
-        String jsonResponse = objectMapper.writeValueAsString(errorResponse);
-        response.getWriter().write(jsonResponse);
-        response.getWriter().flush();
     }
 
     private String getClientIpAddress(HttpServletRequest request) {
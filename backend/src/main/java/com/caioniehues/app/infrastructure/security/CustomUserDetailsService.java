@@ -1,10 +1,15 @@
 package com.caioniehues.app.infrastructure.security;
 
+import com.caioniehues.app.domain.user.User;
+import com.caioniehues.app.domain.user.UserChangedEvent;
+import com.caioniehues.app.infrastructure.persistence.Bulkhead;
 import com.caioniehues.app.infrastructure.persistence.UserRepository;
+import com.caioniehues.app.infrastructure.persistence.WorkloadClass;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
@@ -13,51 +18,66 @@ import org.springframework.transaction.annotation.Transactional;
 @Service
 @RequiredArgsConstructor
 @Slf4j
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
+    private final AuthPrincipalLookup authPrincipalLookup;
     private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Load user by username or email for authentication.
-     * Method is cached for performance optimization.
+     * Lookups are cached as compact {@link AuthPrincipal} snapshots rather than entities;
+     * unknown logins are cached briefly as well.
      *
      * @param usernameOrEmail Username or email to search for
      * @return UserDetails for Spring Security authentication
      * @throws UsernameNotFoundException if user not found
      */
     @Override
-    @Transactional(readOnly = true)
-    @Cacheable(value = "userDetails", key = "#usernameOrEmail", unless = "#result == null")
     public UserDetails loadUserByUsername(String usernameOrEmail) throws UsernameNotFoundException {
-        log.debug("Loading user by username/email: {}", usernameOrEmail);
-
         if (usernameOrEmail == null) {
             log.error("Username/email is null");
             throw new UsernameNotFoundException("User not found: null");
         }
 
-        // Trim whitespace from input
-        String trimmedInput = usernameOrEmail.trim();
+        // Trim whitespace and ignore case, so equivalent logins share one cache entry
+        String loginKey = User.toLoginKey(usernameOrEmail);
 
-        if (trimmedInput.isEmpty()) {
+        if (loginKey.isEmpty()) {
             log.error("Username/email is empty");
             throw new UsernameNotFoundException("User not found: " + usernameOrEmail);
         }
 
-        // Try to find user by username first
-        return userRepository.findByUsernameWithRoles(trimmedInput)
-                .or(() -> {
-                    // If not found by username, try email
-                    log.debug("User not found by username, trying email: {}", trimmedInput);
-                    return userRepository.findByEmailWithRoles(trimmedInput);
-                })
-                .map(user -> {
-                    log.debug("User found: {} with {} roles", user.getUsername(), user.getRoles().size());
-                    return (UserDetails) user;
-                })
+        return authPrincipalLookup.findByLogin(loginKey)
                 .orElseThrow(() -> {
-                    log.error("User not found: {}", trimmedInput);
+                    log.error("User not found: {}", loginKey);
                     return new UsernameNotFoundException("User not found: " + usernameOrEmail);
                 });
     }
-}
\ No newline at end of file
+
+    /**
+     * Store a password hash recomputed after a successful login.
+     * Called by Spring Security when the stored hash uses an outdated algorithm or work factor.
+     * The bulk update bypasses entity callbacks, so the change is announced here.
+     *
+     * @param user Authenticated user
+     * @param newPassword New encoded password
+     * @return User carrying the new hash
+     */
+    @Override
+    @Transactional
+    @Bulkhead(WorkloadClass.AUTH)
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        AuthPrincipal principal = user instanceof AuthPrincipal loaded
+            ? loaded
+            : userRepository.findByUsernameWithRoles(user.getUsername())
+                .map(AuthPrincipal::from)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found: " + user.getUsername()));
+
+        userRepository.updatePasswordHash(principal.id(), newPassword);
+        eventPublisher.publishEvent(new UserChangedEvent(principal.id(), principal.cacheKeys()));
+        log.info("Upgraded password hash for user: {}", principal.username());
+
+        return principal.withPassword(newPassword);
+    }
+}
@@ -0,0 +1,64 @@
+package com.caioniehues.app.infrastructure.security;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * PBKDF2-HMAC-SHA256 encoder that records the iteration count in each hash as
+ * {@code <iterations>$<salt and hash>}.
+ * <p>
+ * {@link Pbkdf2PasswordEncoder} does not store its iteration count, so hashes could only be
+ * verified with the count they were created with. Keeping it in the hash lets the count be
+ * recalibrated freely and lets weaker hashes be detected for upgrade.
+ */
+class IteratedPbkdf2PasswordEncoder implements PasswordEncoder {
+
+    private static final int SALT_LENGTH = 16;
+
+    private final int iterations;
+    private final Map<Integer, Pbkdf2PasswordEncoder> encoders = new ConcurrentHashMap<>();
+
+    IteratedPbkdf2PasswordEncoder(int iterations) {
+        this.iterations = iterations;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return iterations + "$" + encoder(iterations).encode(rawPassword);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        int separator = encodedPassword != null ? encodedPassword.indexOf('$') : -1;
+        if (separator <= 0) {
+            return false;
+        }
+        try {
+            int hashIterations = Integer.parseInt(encodedPassword, 0, separator, 10);
+            return encoder(hashIterations).matches(rawPassword, encodedPassword.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        int separator = encodedPassword != null ? encodedPassword.indexOf('$') : -1;
+        if (separator <= 0) {
+            return false;
+        }
+        try {
+            return Integer.parseInt(encodedPassword, 0, separator, 10) < iterations;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private Pbkdf2PasswordEncoder encoder(int hashIterations) {
+        return encoders.computeIfAbsent(hashIterations, count -> new Pbkdf2PasswordEncoder(
+            "", SALT_LENGTH, count, Pbkdf2PasswordEncoder.SecretKeyFactoryAlgorithm.PBKDF2WithHmacSHA256));
+    }
+}
@@ -1,30 +1,28 @@
 package com.caioniehues.app.infrastructure.security;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.http.MediaType;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.web.AuthenticationEntryPoint;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
-import java.time.Instant;
-import java.util.HashMap;
-import java.util.Map;
 
 @Component
 public class JwtAuthenticationEntryPoint implements AuthenticationEntryPoint {
 
     private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationEntryPoint.class);
 
-    private final ObjectMapper objectMapper;
+    private static final ProblemResponseWriter.Template UNAUTHORIZED = ProblemResponseWriter.template(
+        HttpServletResponse.SC_UNAUTHORIZED, "Unauthorized", "Access to this resource requires authentication");
 
-    public JwtAuthenticationEntryPoint(ObjectMapper objectMapper) {
-        this.objectMapper = objectMapper;
+    private final ProblemResponseWriter problemResponseWriter;
+
+    public JwtAuthenticationEntryPoint(ProblemResponseWriter problemResponseWriter) {
+        this.problemResponseWriter = problemResponseWriter;
     }
 
     @Override
@@ -38,21 +36,7 @@ public class JwtAuthenticationEntryPoint implements AuthenticationEntryPoint {
             getClientIpAddress(request),
             authException.getMessage());
 
-        response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
-        response.setCharacterEncoding("UTF-8");
-
-        Map<String, Object> errorResponse = new HashMap<>();
-        errorResponse.put("type", "about:blank");
-        errorResponse.put("title", "Unauthorized");
-        errorResponse.put("status", HttpServletResponse.SC_UNAUTHORIZED);
-        errorResponse.put("detail", "Access to this resource requires authentication");
-        errorResponse.put("instance", request.getRequestURI());
-        errorResponse.put("timestamp", Instant.now().toString());
-
-        String jsonResponse = objectMapper.writeValueAsString(errorResponse);
-        response.getWriter().write(jsonResponse);
-        response.getWriter().flush();
+        problemResponseWriter.write(response, UNAUTHORIZED, request.getRequestURI());
     }
 
     private String getClientIpAddress(HttpServletRequest request) {
@@ -1,12 +1,14 @@
 package com.caioniehues.app.infrastructure.security;
 
-import com.caioniehues.app.infrastructure.persistence.TokenBlacklistRepository;
+import com.caioniehues.app.infrastructure.persistence.BulkheadFullException;
+import com.caioniehues.app.infrastructure.persistence.UserActivityRecorder;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
@@ -17,7 +19,6 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.Set;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
@@ -27,31 +28,39 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private static final String AUTHORIZATION_HEADER = "Authorization";
     private static final String BEARER_PREFIX = "Bearer ";
 
-    private static final Set<String> PUBLIC_ENDPOINTS = Set.of(
-        "/api/v1/auth/login",
-        "/api/v1/auth/register",
-        "/api/v1/auth/forgot-password",
-        "/api/v1/auth/reset-password",
-        "/api/v1/auth/verify-email",
-        "/api/health",
-        "/actuator",
-        "/v3/api-docs",
-        "/swagger-ui",
-        "/swagger-resources",
-        "/webjars"
-    );
+    private static final ProblemResponseWriter.Template DATABASE_BUSY = ProblemResponseWriter.template(
+        HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Service Unavailable", "The server is busy. Please try again shortly.");
 
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
-    private final TokenBlacklistRepository tokenBlacklistRepository;
+    private final RevokedTokenIndex revokedTokenIndex;
+    private final UserTokenStatusCache userTokenStatusCache;
+    private final UserActivityRecorder userActivityRecorder;
+    private final RoutePolicyRegistry routePolicies;
+    private final ProblemResponseWriter problemResponseWriter;
+
+    /**
+     * When enabled, access tokens carrying roles and a user ID are authorized from their claims
+     * alone. The user-level revocation check (disabled user, newer token epoch) runs in both modes.
+     */
+    @Value("${jwt.stateless-authorization:false}")
+    private boolean statelessAuthorization;
 
     public JwtAuthenticationFilter(
             JwtService jwtService,
             UserDetailsService userDetailsService,
-            TokenBlacklistRepository tokenBlacklistRepository) {
+            RevokedTokenIndex revokedTokenIndex,
+            UserTokenStatusCache userTokenStatusCache,
+            UserActivityRecorder userActivityRecorder,
+            RoutePolicyRegistry routePolicies,
+            ProblemResponseWriter problemResponseWriter) {
         this.jwtService = jwtService;
         this.userDetailsService = userDetailsService;
-        this.tokenBlacklistRepository = tokenBlacklistRepository;
+        this.revokedTokenIndex = revokedTokenIndex;
+        this.userTokenStatusCache = userTokenStatusCache;
+        this.userActivityRecorder = userActivityRecorder;
+        this.routePolicies = routePolicies;
+        this.problemResponseWriter = problemResponseWriter;
     }
 
     @Override
@@ -63,7 +72,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         try {
             String servletPath = request.getServletPath();
 
-            if (isPublicEndpoint(servletPath)) {
+            if (routePolicies.current().isPublic(servletPath)) {
                 logger.debug("Skipping authentication for public endpoint: {}", servletPath);
                 filterChain.doFilter(request, response);
                 return;
@@ -84,29 +93,41 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             }
 
             String jwt = authHeader.substring(BEARER_PREFIX.length());
-            String username = jwtService.extractUsername(jwt);
+            VerifiedToken token = jwtService.verify(jwt);
+            String username = token.subject();
 
             if (username != null) {
-                String jti = jwtService.extractClaim(jwt, claims -> claims.getId());
+                String jti = token.jti();
 
-                if (tokenBlacklistRepository.existsByJti(jti)) {
+                if (revokedTokenIndex.isRevoked(jti)) {
                     logger.warn("Attempt to use blacklisted token with JTI: {}", jti);
                     filterChain.doFilter(request, response);
                     return;
                 }
 
-                var userDetails = userDetailsService.loadUserByUsername(username);
+                if (token.userId() != null && userTokenStatusCache.isRevoked(token)) {
+                    logger.warn("Attempt to use revoked token of user: {}", token.userId());
+                    filterChain.doFilter(request, response);
+                    return;
+                }
 
-                if (jwtService.validateTokenForUser(jwt, userDetails)) {
-                    UsernamePasswordAuthenticationToken authToken =
-                        new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-                    authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                    SecurityContextHolder.getContext().setAuthentication(authToken);
-                    logger.debug("Successfully authenticated user: {}", username);
+                if (statelessAuthorization && token.isSelfContained()) {
+                    authenticateFromClaims(token, request);
                 } else {
-                    logger.debug("Token validation failed for user: {}", username);
+                    authenticateFromUserDetails(token, request);
+                }
+
+                if (token.userId() != null && SecurityContextHolder.getContext().getAuthentication() != null) {
+                    userActivityRecorder.recordSeen(token.userId());
                 }
             }
+        } catch (BulkheadFullException e) {
+            // The token could not be checked; answering as unauthenticated would log the client out
+            long retryAfterSeconds = Math.max(e.getRetryAfter().toSeconds(), 1);
+            logger.warn("Could not check token: {}", e.getMessage());
+            response.setHeader("Retry-After", Long.toString(retryAfterSeconds));
+            problemResponseWriter.writeWithRetryAfter(response, DATABASE_BUSY, request.getRequestURI(), retryAfterSeconds);
+            return;
         } catch (Exception e) {
             logger.error("Authentication error: {}", e.getMessage(), e);
         }
@@ -114,8 +135,35 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
-    private boolean isPublicEndpoint(String servletPath) {
-        return PUBLIC_ENDPOINTS.stream()
-            .anyMatch(endpoint -> servletPath.startsWith(endpoint));
+    /**
+     * Build the authentication from the user loaded through the UserDetailsService.
+     */
+    private void authenticateFromUserDetails(VerifiedToken token, HttpServletRequest request) {
+        String username = token.subject();
+        var userDetails = userDetailsService.loadUserByUsername(username);
+
+        if (token.isValidFor(userDetails)) {
+            UsernamePasswordAuthenticationToken authToken =
+                new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+            authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+            SecurityContextHolder.getContext().setAuthentication(authToken);
+            logger.debug("Successfully authenticated user: {}", username);
+        } else {
+            logger.debug("Token validation failed for user: {}", username);
+        }
+    }
+
+    /**
+     * Build the authentication straight from verified claims, without loading the user.
+     * The principal carries the user ID and roles of the token, like a loaded one would.
+     */
+    private void authenticateFromClaims(VerifiedToken token, HttpServletRequest request) {
+        AuthPrincipal principal = AuthPrincipal.fromClaims(token);
+
+        UsernamePasswordAuthenticationToken authToken =
+            new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+        authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+        SecurityContextHolder.getContext().setAuthentication(authToken);
+        logger.debug("Successfully authenticated user from token claims: {}", token.subject());
     }
-}
\ No newline at end of file
+}
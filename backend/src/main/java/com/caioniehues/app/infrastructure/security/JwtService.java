@@ -4,23 +4,23 @@ import com.caioniehues.app.domain.user.User;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
-import io.jsonwebtoken.security.SignatureException;
-import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import java.util.function.Function;
 
 @Service
-@Slf4j
 public class JwtService {
 
+    private static final String ROLE_PREFIX = "ROLE_";
+
     @Value("${jwt.secret}")
     private String secretKey;
 
@@ -33,20 +33,38 @@ public class JwtService {
     @Value("${jwt.issuer:everything-app}")
     private String issuer;
 
+    // Derived from the secret on first use and shared by every request afterwards
+    private volatile SecretKey signingKey;
+    private volatile JwtParser parser;
+
+    private final VerifiedTokenCache verifiedTokenCache;
+
+    public JwtService(VerifiedTokenCache verifiedTokenCache) {
+        this.verifiedTokenCache = verifiedTokenCache;
+    }
+
     /**
      * Generate access token for a user with 15-minute expiry
      */
     public String generateAccessToken(UserDetails userDetails) {
         Map<String, Object> claims = new HashMap<>();
 
-        if (userDetails instanceof User user) {
+        if (userDetails instanceof AuthPrincipal principal) {
+            if (principal.id() != null) {
+                claims.put("userId", principal.id().toString());
+            }
+            claims.put("email", principal.email());
+            claims.put(VerifiedToken.EPOCH_CLAIM, principal.tokenEpoch());
+        } else if (userDetails instanceof User user) {
             if (user.getId() != null) {
                 claims.put("userId", user.getId().toString());
             }
             claims.put("email", user.getEmail());
             claims.put("fullName", user.getFullName());
+            claims.put(VerifiedToken.EPOCH_CLAIM, user.getTokenEpoch());
         }
 
+        claims.put("roles", roleNames(userDetails));
         claims.put("tokenType", "ACCESS");
 
         return buildToken(claims, userDetails.getUsername(), accessTokenExpiration);
@@ -58,7 +76,9 @@ public class JwtService {
     public String generateRefreshToken(UserDetails userDetails) {
         Map<String, Object> claims = new HashMap<>();
 
-        if (userDetails instanceof User user && user.getId() != null) {
+        if (userDetails instanceof AuthPrincipal principal && principal.id() != null) {
+            claims.put("userId", principal.id().toString());
+        } else if (userDetails instanceof User user && user.getId() != null) {
             claims.put("userId", user.getId().toString());
         }
 
@@ -67,6 +87,16 @@ public class JwtService {
         return buildToken(claims, userDetails.getUsername(), refreshTokenExpiration);
     }
 
+    /**
+     * Role names of a user without the ROLE_ authority prefix
+     */
+    private List<String> roleNames(UserDetails userDetails) {
+        return userDetails.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .map(authority -> authority.startsWith(ROLE_PREFIX) ? authority.substring(ROLE_PREFIX.length()) : authority)
+                .toList();
+    }
+
     /**
      * Build a JWT token with given claims and expiration
      */
@@ -86,111 +116,60 @@ public class JwtService {
     }
 
     /**
-     * Validate JWT token
+     * Verify the token signature and expiry once and return its claims.
+     * Tokens seen before are served from the verified-token cache without any crypto or JSON work.
+     *
+     * @param token Compact JWT string
+     * @return VerifiedToken carrying subject, JTI, user ID, type, expiry and roles
+     * @throws JwtException if the token is malformed, tampered with or expired
      */
-    public boolean validateToken(String token) {
-        try {
-            Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token);
-            return true;
-        } catch (SignatureException e) {
-            log.error("Invalid JWT signature: {}", e.getMessage());
-            throw e;
-        } catch (MalformedJwtException e) {
-            log.error("Invalid JWT token: {}", e.getMessage());
-            throw e;
-        } catch (ExpiredJwtException e) {
-            log.error("JWT token is expired: {}", e.getMessage());
-            throw e;
-        } catch (UnsupportedJwtException e) {
-            log.error("JWT token is unsupported: {}", e.getMessage());
-            throw e;
-        } catch (IllegalArgumentException e) {
-            log.error("JWT claims string is empty: {}", e.getMessage());
-            throw e;
-        }
+    public VerifiedToken verify(String token) {
+        return verifiedTokenCache.get(token, this::parseAndVerify);
     }
 
     /**
-     * Validate that token belongs to the specified user
+     * Drop a token from the verified-token cache, e.g. once it has been blacklisted
      */
-    public boolean validateTokenForUser(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return username.equals(userDetails.getUsername()) && !isTokenExpired(token);
+    public void evict(String token) {
+        verifiedTokenCache.invalidate(token);
     }
 
     /**
-     * Extract username from JWT token
+     * Drop every cached token with the given JTI
      */
-    public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+    public void evictJti(String jti) {
+        verifiedTokenCache.invalidateJti(jti);
     }
 
-    /**
-     * Extract user ID from JWT token
-     */
-    public UUID extractUserId(String token) {
-        String userIdString = extractClaim(token, claims -> claims.get("userId", String.class));
-        return userIdString != null ? UUID.fromString(userIdString) : null;
+    private VerifiedToken parseAndVerify(String token) {
+        Claims claims = getParser().parseSignedClaims(token).getPayload();
+        return VerifiedToken.from(claims);
     }
 
     /**
-     * Extract token type from JWT token
+     * Get the signing key, decoding the secret only on first use
      */
-    public String extractTokenType(String token) {
-        return extractClaim(token, claims -> claims.get("tokenType", String.class));
-    }
-
-    /**
-     * Check if token is expired
-     */
-    public boolean isTokenExpired(String token) {
-        try {
-            Date expiration = extractExpiration(token);
-            return expiration.before(new Date());
-        } catch (ExpiredJwtException e) {
-            return true;
+    private SecretKey getSigningKey() {
+        SecretKey key = signingKey;
+        if (key == null) {
+            byte[] keyBytes = Decoders.BASE64.decode(secretKey);
+            key = Keys.hmacShaKeyFor(keyBytes);
+            signingKey = key;
         }
+        return key;
     }
 
     /**
-     * Extract expiration date from JWT token
-     */
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
-    }
-
-    /**
-     * Extract a specific claim from JWT token
+     * Get the parser bound to the signing key. Parsers are immutable and thread-safe.
      */
-    public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
-    }
-
-    /**
-     * Extract all claims from JWT token
-     */
-    public Claims extractAllClaims(String token) {
-        try {
-            return Jwts.parser()
+    private JwtParser getParser() {
+        JwtParser current = parser;
+        if (current == null) {
+            current = Jwts.parser()
                     .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
-        } catch (ExpiredJwtException e) {
-            // Return claims even if token is expired (for inspection purposes)
-            return e.getClaims();
+                    .build();
+            parser = current;
         }
-    }
-
-    /**
-     * Get the signing key from the secret
-     */
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
+        return current;
     }
 }
\ No newline at end of file
@@ -0,0 +1,128 @@
+package com.caioniehues.app.infrastructure.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Builds the application password encoder with work factors tuned to the hardware.
+ * <p>
+ * Stored hashes carry an {@code {id}} prefix naming their algorithm, so BCrypt and PBKDF2
+ * hashes, and hashes of different strengths, can be verified side by side. Hashes without a
+ * prefix predate this encoder and are treated as BCrypt. Unless a fixed work factor is
+ * configured, the new-hash algorithm is measured at startup and the strongest work factor
+ * that fits the target latency is used. Hashes weaker than the current target are upgraded
+ * on the next successful login.
+ */
+@Component
+@Slf4j
+public class PasswordEncoderFactory {
+
+    static final String BCRYPT = "bcrypt";
+    static final String PBKDF2 = "pbkdf2";
+
+    private static final int CALIBRATION_SAMPLES = 3;
+    private static final int PBKDF2_CALIBRATION_ITERATIONS = 10_000;
+
+    private final String algorithm;
+    private final Duration targetLatency;
+    private final int bcryptStrength;
+    private final int minBcryptStrength;
+    private final int maxBcryptStrength;
+    private final int pbkdf2Iterations;
+    private final int minPbkdf2Iterations;
+
+    public PasswordEncoderFactory(
+            @Value("${app.auth.password-hashing.algorithm:bcrypt}") String algorithm,
+            @Value("${app.auth.password-hashing.target-latency:PT0.25S}") Duration targetLatency,
+            @Value("${app.auth.password-hashing.bcrypt.strength:0}") int bcryptStrength,
+            @Value("${app.auth.password-hashing.bcrypt.min-strength:10}") int minBcryptStrength,
+            @Value("${app.auth.password-hashing.bcrypt.max-strength:16}") int maxBcryptStrength,
+            @Value("${app.auth.password-hashing.pbkdf2.iterations:0}") int pbkdf2Iterations,
+            @Value("${app.auth.password-hashing.pbkdf2.min-iterations:310000}") int minPbkdf2Iterations) {
+        if (!BCRYPT.equals(algorithm) && !PBKDF2.equals(algorithm)) {
+            throw new IllegalArgumentException("Unsupported password hashing algorithm: " + algorithm);
+        }
+        this.algorithm = algorithm;
+        this.targetLatency = targetLatency;
+        this.bcryptStrength = bcryptStrength;
+        this.minBcryptStrength = minBcryptStrength;
+        this.maxBcryptStrength = maxBcryptStrength;
+        this.pbkdf2Iterations = pbkdf2Iterations;
+        this.minPbkdf2Iterations = minPbkdf2Iterations;
+    }
+
+    /**
+     * Create the password encoder, calibrating the configured algorithm if needed.
+     *
+     * @return Encoder that hashes with the configured algorithm and verifies all supported ones
+     */
+    public PasswordEncoder create() {
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        BCryptPasswordEncoder bcrypt;
+
+        if (BCRYPT.equals(algorithm)) {
+            int strength = bcryptStrength > 0 ? bcryptStrength : calibrateBcryptStrength();
+            log.info("Hashing new passwords with BCrypt strength {}", strength);
+            bcrypt = new BCryptPasswordEncoder(strength);
+            encoders.put(PBKDF2, new IteratedPbkdf2PasswordEncoder(minPbkdf2Iterations));
+        } else {
+            int iterations = pbkdf2Iterations > 0 ? pbkdf2Iterations : calibratePbkdf2Iterations();
+            log.info("Hashing new passwords with PBKDF2-HMAC-SHA256, {} iterations", iterations);
+            bcrypt = new BCryptPasswordEncoder(minBcryptStrength);
+            encoders.put(PBKDF2, new IteratedPbkdf2PasswordEncoder(iterations));
+        }
+        encoders.put(BCRYPT, bcrypt);
+
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(algorithm, encoders);
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return encoder;
+    }
+
+    /**
+     * Each BCrypt strength step doubles the cost, so one measurement at the minimum strength
+     * predicts all the others.
+     */
+    int calibrateBcryptStrength() {
+        long baseline = fastestHashNanos(new BCryptPasswordEncoder(minBcryptStrength));
+        int strength = minBcryptStrength;
+        while (strength < maxBcryptStrength && baseline << (strength + 1 - minBcryptStrength) <= targetLatency.toNanos()) {
+            strength++;
+        }
+        log.debug("BCrypt strength {} took {} µs, calibrated to strength {}",
+            minBcryptStrength, baseline / 1_000, strength);
+        return strength;
+    }
+
+    /**
+     * PBKDF2 cost grows linearly with the iteration count.
+     */
+    int calibratePbkdf2Iterations() {
+        long baseline = fastestHashNanos(new IteratedPbkdf2PasswordEncoder(PBKDF2_CALIBRATION_ITERATIONS));
+        long iterations = PBKDF2_CALIBRATION_ITERATIONS * targetLatency.toNanos() / Math.max(baseline, 1);
+        int calibrated = (int) Math.clamp(iterations, minPbkdf2Iterations, Integer.MAX_VALUE);
+        log.debug("PBKDF2 with {} iterations took {} µs, calibrated to {} iterations",
+            PBKDF2_CALIBRATION_ITERATIONS, baseline / 1_000, calibrated);
+        return calibrated;
+    }
+
+    private static long fastestHashNanos(PasswordEncoder encoder) {
+        // The first hash also pays for class loading and JIT warm-up
+        encoder.encode("calibration");
+
+        long fastest = Long.MAX_VALUE;
+        for (int i = 0; i < CALIBRATION_SAMPLES; i++) {
+            long start = System.nanoTime();
+            encoder.encode("calibration");
+            fastest = Math.min(fastest, System.nanoTime() - start);
+        }
+        return fastest;
+    }
+}
@@ -0,0 +1,173 @@
+package com.caioniehues.app.infrastructure.security;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Dedicated stage for CPU-bound password hashing.
+ * <p>
+ * Request threads are virtual, so nothing else bounds how many hashes run at once. Hashes run
+ * on a fixed pool sized to the cores behind a bounded queue instead; callers block cheaply
+ * while they wait. When the queue is full, or a hash cannot start within the maximum wait,
+ * the caller gets a {@link PasswordHashingSaturatedException} right away, so a login storm
+ * is shed instead of starving every other request of CPU. The maximum wait only covers the
+ * wait for a thread: a hash that has started is always allowed to finish.
+ */
+@Component
+@Slf4j
+public class PasswordHashingExecutor implements MeterBinder, DisposableBean {
+
+    private final ThreadPoolExecutor executor;
+    private final Duration maxWait;
+    private final Duration retryAfter;
+
+    private final LongAdder rejections = new LongAdder();
+    private volatile Timer hashTimer;
+    private volatile Timer waitTimer;
+
+    public PasswordHashingExecutor(
+            @Value("${app.auth.password-hashing.threads:0}") int threads,
+            @Value("${app.auth.password-hashing.queue-capacity:0}") int queueCapacity,
+            @Value("${app.auth.password-hashing.max-wait:PT2S}") Duration maxWait,
+            @Value("${app.auth.password-hashing.retry-after:PT1S}") Duration retryAfter) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        int capacity = queueCapacity > 0 ? queueCapacity : poolSize * 8;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+            poolSize, poolSize,
+            0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(capacity),
+            runnable -> Thread.ofPlatform()
+                .name("password-hashing-" + threadCount.incrementAndGet())
+                .daemon(true)
+                .unstarted(runnable),
+            new ThreadPoolExecutor.AbortPolicy());
+        this.executor.prestartAllCoreThreads();
+        this.maxWait = maxWait;
+        this.retryAfter = retryAfter;
+
+        log.info("Password hashing executor started with {} threads and queue capacity {}", poolSize, capacity);
+    }
+
+    /**
+     * Run a hashing operation on the hashing pool and wait for its result.
+     *
+     * @param operation Hashing operation
+     * @return Result of the operation
+     * @throws PasswordHashingSaturatedException if the pool cannot take the operation in time
+     */
+    public <T> T execute(Callable<T> operation) {
+        long submittedAt = System.nanoTime();
+        // Claimed by whichever comes first: a hashing thread starting the task or the caller giving up on it
+        AtomicBoolean claimed = new AtomicBoolean();
+
+        FutureTask<T> task = new FutureTask<>(() -> {
+            if (!claimed.compareAndSet(false, true)) {
+                return null;
+            }
+            long startedAt = System.nanoTime();
+            record(waitTimer, startedAt - submittedAt);
+            try {
+                return operation.call();
+            } finally {
+                record(hashTimer, System.nanoTime() - startedAt);
+            }
+        });
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            throw saturated("queue full");
+        }
+
+        try {
+            try {
+                return task.get(maxWait.toNanos(), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                if (claimed.compareAndSet(false, true)) {
+                    executor.remove(task);
+                    throw saturated("no thread within " + maxWait);
+                }
+                // Started in time and still hashing; let it finish
+                return task.get();
+            }
+        } catch (InterruptedException e) {
+            if (claimed.compareAndSet(false, true)) {
+                executor.remove(task);
+            }
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for password hashing", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    private PasswordHashingSaturatedException saturated(String reason) {
+        rejections.increment();
+        log.warn("Rejecting password hashing request: {} (queued: {})", reason, queuedOperations());
+        return new PasswordHashingSaturatedException(retryAfter);
+    }
+
+    /**
+     * @return Number of operations waiting for a hashing thread
+     */
+    int queuedOperations() {
+        return executor.getQueue().size();
+    }
+
+    private static void record(Timer timer, long nanos) {
+        if (timer != null) {
+            timer.record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        Gauge.builder("auth.password.hashing.queue.depth", this, PasswordHashingExecutor::queuedOperations)
+            .description("Password hashing operations waiting for a thread")
+            .register(registry);
+        Gauge.builder("auth.password.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+            .description("Password hashing operations currently running")
+            .register(registry);
+        FunctionCounter.builder("auth.password.hashing.rejected", rejections, LongAdder::sum)
+            .description("Password hashing operations shed because the pool was saturated")
+            .register(registry);
+        hashTimer = Timer.builder("auth.password.hashing.duration")
+            .description("Time spent computing password hashes")
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .register(registry);
+        waitTimer = Timer.builder("auth.password.hashing.wait")
+            .description("Time password hashing operations spent queued")
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .register(registry);
+    }
+}
@@ -0,0 +1,24 @@
+package com.caioniehues.app.infrastructure.security;
+
+import java.time.Duration;
+
+/**
+ * Exception thrown when the password hashing pool cannot take more work.
+ * Clients should back off and retry after the suggested delay.
+ */
+public class PasswordHashingSaturatedException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public PasswordHashingSaturatedException(Duration retryAfter) {
+        super("Password hashing capacity exhausted");
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * @return How long clients should wait before retrying
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
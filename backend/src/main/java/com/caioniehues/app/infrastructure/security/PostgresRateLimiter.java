@@ -0,0 +1,322 @@
+package com.caioniehues.app.infrastructure.security;
+
+import com.caioniehues.app.infrastructure.persistence.Bulkhead;
+import com.caioniehues.app.infrastructure.persistence.WorkloadClass;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cluster-wide rate limiting on token buckets stored in PostgreSQL.
+ * <p>
+ * Each bucket is one row holding its token count and the time of its last update. A single
+ * upsert refills the bucket for the elapsed time and takes tokens only if enough are available,
+ * so nodes never over-admit and never hold a lock across round trips. Tokens refill
+ * continuously at the configured average rate.
+ * <p>
+ * Decisions are mostly made in memory. A node leases a share of the bucket's capacity per
+ * round trip and spends it locally until it runs out or the lease expires, falling back to a
+ * single token when the bucket has less than a full lease left. Tokens a node leases but never
+ * spends are lost to the other nodes, which only ever makes the limit stricter. Rejections are
+ * remembered until the bucket refills, so a client hammering a drained bucket is answered from
+ * memory too.
+ * <p>
+ * If the database is slow or failing, callers get no decision and fall back to local buckets;
+ * after repeated failures the database is skipped entirely for a cool-down period. Only a few
+ * calls run at once, and a call that would exceed them falls back right away, so a slow
+ * database never ties up more than those few connections.
+ * <p>
+ * With read replicas enabled, buckets are updated on the primary pool directly rather than through
+ * the application's routing data source, which has no use for these statements.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.rate-limit", name = "backend", havingValue = "postgres")
+@Slf4j
+public class PostgresRateLimiter implements MeterBinder {
+
+    /**
+     * Parameters: key, initial tokens, then capacity, tokens per second and requested tokens
+     * twice, once for the update and once for its condition. Takes all requested tokens or none. now() is the statement time in
+     * autocommit mode and comes from the database clock, so node clocks do not matter.
+     */
+    private static final String CONSUME_SQL = """
+        INSERT INTO rate_limit_buckets AS b (bucket_key, tokens, updated_at)
+        VALUES (?, ?, now())
+        ON CONFLICT (bucket_key) DO UPDATE SET
+            tokens = LEAST(?, b.tokens + EXTRACT(EPOCH FROM now() - b.updated_at) * ?) - ?,
+            updated_at = now()
+        WHERE LEAST(?, b.tokens + EXTRACT(EPOCH FROM now() - b.updated_at) * ?) >= ?
+        RETURNING tokens
+        """;
+
+    private static final String AVAILABLE_SQL = """
+        SELECT LEAST(?, tokens + EXTRACT(EPOCH FROM now() - updated_at) * ?)
+        FROM rate_limit_buckets WHERE bucket_key = ?
+        """;
+
+    private static final String PURGE_SQL = "DELETE FROM rate_limit_buckets WHERE updated_at < now() - make_interval(secs => ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration timeout;
+    private final int failureThreshold;
+    private final Duration coolDown;
+    private final double leaseFraction;
+    private final long leaseTtlNanos;
+    private final Duration idleTimeout;
+
+    private final ThreadFactory threads = Thread.ofVirtual().name("rate-limit-db-", 0).factory();
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+    private final Cache<BucketKey, LocalBucket> localBuckets;
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private volatile long skipUntilNanos;
+
+    private final LongAdder databaseDecisions = new LongAdder();
+    private final LongAdder leasedDecisions = new LongAdder();
+    private final LongAdder localRejections = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+
+    public PostgresRateLimiter(
+            DataSource dataSource,
+            @Qualifier("primaryDataSource") ObjectProvider<DataSource> primaryDataSource,
+            @Value("${app.rate-limit.postgres.timeout:PT0.05S}") Duration timeout,
+            @Value("${app.rate-limit.postgres.failure-threshold:3}") int failureThreshold,
+            @Value("${app.rate-limit.postgres.cool-down:PT30S}") Duration coolDown,
+            @Value("${app.rate-limit.postgres.max-in-flight:4}") int maxInFlight,
+            @Value("${app.rate-limit.postgres.lease-fraction:0.1}") double leaseFraction,
+            @Value("${app.rate-limit.postgres.lease-ttl:PT1S}") Duration leaseTtl,
+            @Value("${app.rate-limit.max-buckets:100000}") long maxBuckets,
+            @Value("${app.rate-limit.bucket-idle-timeout:PT1H}") Duration idleTimeout) {
+        this.jdbcTemplate = new JdbcTemplate(primaryDataSource.getIfAvailable(() -> dataSource));
+        // Backstop for calls that outlive the timeout; JDBC timeouts are in whole seconds
+        this.jdbcTemplate.setQueryTimeout(1);
+        this.timeout = timeout;
+        this.failureThreshold = failureThreshold;
+        this.coolDown = coolDown;
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.leaseFraction = leaseFraction;
+        this.leaseTtlNanos = leaseTtl.toNanos();
+        this.idleTimeout = idleTimeout;
+        this.localBuckets = Caffeine.newBuilder()
+            .maximumSize(maxBuckets)
+            .expireAfterAccess(idleTimeout)
+            .build();
+    }
+
+    /**
+     * Try to take one token from the shared bucket.
+     *
+     * @param key      Client and policy
+     * @param capacity Bucket capacity, also the number of tokens refilled per period
+     * @param period   Refill period
+     * @return The decision, or empty if the database could not decide in time
+     */
+    public Optional<Decision> tryConsume(BucketKey key, int capacity, Duration period) {
+        long now = System.nanoTime();
+
+        LocalBucket local = localBuckets.get(key, k -> new LocalBucket());
+        Decision localDecision = local.tryConsume(now);
+        if (localDecision != null) {
+            (localDecision.consumed() ? leasedDecisions : localRejections).increment();
+            return Optional.of(localDecision);
+        }
+
+        if (skipUntilNanos - now > 0 || !inFlight.tryAcquire()) {
+            fallbacks.increment();
+            return Optional.empty();
+        }
+
+        double tokensPerSecond = capacity / (period.toNanos() / 1e9);
+        int leaseSize = Math.clamp((long) Math.ceil(capacity * leaseFraction), 1, capacity);
+        // A thread of its own rather than a pooled task, so the permit is released even if the
+        // caller gives up before the call starts
+        CompletableFuture<Lease> result = new CompletableFuture<>();
+        Thread call = threads.newThread(() -> {
+            try {
+                result.complete(lease(key.toBytes(), capacity, tokensPerSecond, leaseSize));
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            } finally {
+                inFlight.release();
+            }
+        });
+        call.start();
+        try {
+            Lease lease = result.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+            consecutiveFailures.set(0);
+            databaseDecisions.increment();
+            return Optional.of(local.record(lease, now, leaseTtlNanos));
+        } catch (TimeoutException | ExecutionException e) {
+            // Ends a wait for a connection; a running query is ended by the query timeout
+            call.interrupt();
+            recordFailure(e);
+            return Optional.empty();
+        } catch (InterruptedException e) {
+            call.interrupt();
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Take a lease from the shared bucket: a full lease if the bucket has it, otherwise a single token.
+     */
+    private Lease lease(byte[] key, int capacity, double tokensPerSecond, int leaseSize) {
+        if (leaseSize > 1 && take(key, capacity, tokensPerSecond, leaseSize)) {
+            return new Lease(leaseSize, 0);
+        }
+        if (take(key, capacity, tokensPerSecond, 1)) {
+            return new Lease(1, 0);
+        }
+
+        // Rejections are rare once cached locally, so another round trip for the wait is fine
+        List<Double> available = jdbcTemplate.queryForList(AVAILABLE_SQL, Double.class, capacity, tokensPerSecond, key);
+        double missing = 1.0 - (available.isEmpty() ? 0 : available.getFirst());
+        return new Lease(0, (long) Math.ceil(Math.max(missing, 0) / tokensPerSecond * 1e9));
+    }
+
+    private boolean take(byte[] key, int capacity, double tokensPerSecond, int tokens) {
+        List<Double> remaining = jdbcTemplate.queryForList(CONSUME_SQL, Double.class,
+            key, (double) capacity - tokens,
+            capacity, tokensPerSecond, (double) tokens,
+            capacity, tokensPerSecond, (double) tokens);
+        return !remaining.isEmpty();
+    }
+
+    private void recordFailure(Exception e) {
+        fallbacks.increment();
+        int failures = consecutiveFailures.incrementAndGet();
+        Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+
+        if (failures >= failureThreshold) {
+            skipUntilNanos = System.nanoTime() + coolDown.toNanos();
+            log.warn("Rate limit database failed {} times in a row, using local buckets for {}: {}",
+                failures, coolDown, cause.toString());
+        } else {
+            log.debug("Rate limit database did not decide in time, using local bucket: {}", cause.toString());
+        }
+    }
+
+    /**
+     * Remove buckets idle for longer than the idle timeout; they would be full again anyway.
+     */
+    @Scheduled(fixedDelayString = "${app.rate-limit.postgres.purge-interval:PT10M}")
+    @Bulkhead(WorkloadClass.MAINTENANCE)
+    public void purgeIdleBuckets() {
+        try {
+            int purged = jdbcTemplate.update(PURGE_SQL, (double) idleTimeout.toSeconds());
+            log.debug("Purged {} idle rate limit buckets", purged);
+        } catch (RuntimeException e) {
+            log.warn("Failed to purge idle rate limit buckets: {}", e.getMessage());
+        }
+    }
+
+    private boolean isSkippingDatabase() {
+        return skipUntilNanos - System.nanoTime() > 0;
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        FunctionCounter.builder("auth.rate.limit.postgres.decisions", databaseDecisions, LongAdder::sum)
+            .description("Rate limit decisions made by the database")
+            .register(registry);
+        FunctionCounter.builder("auth.rate.limit.postgres.leased", leasedDecisions, LongAdder::sum)
+            .description("Admissions spent from a locally held lease")
+            .register(registry);
+        FunctionCounter.builder("auth.rate.limit.postgres.local.rejections", localRejections, LongAdder::sum)
+            .description("Rejections answered from the local cache of drained buckets")
+            .register(registry);
+        FunctionCounter.builder("auth.rate.limit.postgres.fallbacks", fallbacks, LongAdder::sum)
+            .description("Rate limit decisions that fell back to local buckets")
+            .register(registry);
+        Gauge.builder("auth.rate.limit.postgres.in.flight", inFlight, permits -> maxInFlight - permits.availablePermits())
+            .description("Database calls running right now")
+            .register(registry);
+        Gauge.builder("auth.rate.limit.postgres.skipping", this, limiter -> limiter.isSkippingDatabase() ? 1 : 0)
+            .description("Whether the database is being skipped after repeated failures")
+            .register(registry);
+    }
+
+    /**
+     * Outcome of a shared bucket check.
+     *
+     * @param consumed             Whether a token was taken
+     * @param nanosToWaitForRefill Time until a token is available, 0 if consumed
+     */
+    public record Decision(boolean consumed, long nanosToWaitForRefill) {
+    }
+
+    /**
+     * Tokens taken from the shared bucket in one round trip.
+     *
+     * @param tokens               Tokens taken, 0 if the bucket had none
+     * @param nanosToWaitForRefill Time until a token is available, 0 if any were taken
+     */
+    private record Lease(int tokens, long nanosToWaitForRefill) {
+    }
+
+    /**
+     * What a node knows about one shared bucket: the unspent rest of its lease, or how long
+     * the bucket stays drained.
+     */
+    private static final class LocalBucket {
+        private int leasedTokens;
+        private long leaseExpiresAtNanos;
+        private long rejectedUntilNanos;
+
+        /**
+         * @return The decision if it can be made locally, otherwise null
+         */
+        synchronized Decision tryConsume(long now) {
+            if (leasedTokens > 0 && leaseExpiresAtNanos - now > 0) {
+                leasedTokens--;
+                return new Decision(true, 0);
+            }
+            if (rejectedUntilNanos - now > 0) {
+                return new Decision(false, rejectedUntilNanos - now);
+            }
+            return null;
+        }
+
+        /**
+         * Keep a fresh lease, spending its first token on the current request.
+         */
+        synchronized Decision record(Lease lease, long now, long leaseTtlNanos) {
+            if (lease.tokens() == 0) {
+                rejectedUntilNanos = now + lease.nanosToWaitForRefill();
+                return new Decision(false, lease.nanosToWaitForRefill());
+            }
+            int unexpired = leaseExpiresAtNanos - now > 0 ? leasedTokens : 0;
+            leasedTokens = unexpired + lease.tokens() - 1;
+            leaseExpiresAtNanos = now + leaseTtlNanos;
+            rejectedUntilNanos = 0;
+            return new Decision(true, 0);
+        }
+    }
+}
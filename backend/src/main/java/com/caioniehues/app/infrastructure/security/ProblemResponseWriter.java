@@ -0,0 +1,224 @@
+package com.caioniehues.app.infrastructure.security;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+/**
+ * Writes problem detail (RFC 9457) error responses from filters and security handlers.
+ * <p>
+ * Everything fixed about a response is encoded once into a {@link Template}. Per response, only
+ * the request URI, the timestamp and an optional extension member are patched in, written
+ * straight to the output stream with a known content length. The output is pure ASCII, with
+ * anything else escaped, so no encoder, map, JSON serializer or intermediate string is involved.
+ * The timestamp has second precision and is encoded once per second. This keeps rejections
+ * cheap when they are most frequent, e.g. under a 429 flood.
+ */
+@Component
+public class ProblemResponseWriter {
+
+    private static final byte[] INSTANCE = ascii(",\"instance\":\"");
+    private static final byte[] TIMESTAMP = ascii("\",\"timestamp\":\"");
+    private static final byte[] RETRY_AFTER = ascii("\",\"retryAfter\":");
+    private static final byte[] USER = ascii("\",\"user\":\"");
+    private static final byte[] STRING_END = ascii("\"}");
+    private static final byte[] NUMBER_END = ascii("}");
+    private static final byte[] HEX = ascii("0123456789abcdef");
+
+    private volatile EncodedTimestamp timestamp = new EncodedTimestamp(Long.MIN_VALUE, new byte[0]);
+
+    /**
+     * Encode the fixed part of a problem response.
+     *
+     * @param status HTTP status
+     * @param title  Short summary of the problem type
+     * @param detail Explanation of this occurrence
+     * @return Template to write responses with
+     */
+    public static Template template(int status, String title, String detail) {
+        StringBuilder head = new StringBuilder()
+            .append("{\"type\":\"about:blank\",\"title\":\"");
+        escape(title, head);
+        head.append("\",\"status\":").append(status).append(",\"detail\":\"");
+        escape(detail, head);
+        head.append('"');
+        return new Template(status, ascii(head.toString()));
+    }
+
+    /**
+     * Write a problem response.
+     *
+     * @param response Response to write to; must not be committed
+     * @param template Fixed part of the response
+     * @param instance Request URI
+     */
+    public void write(HttpServletResponse response, Template template, String instance) throws IOException {
+        write(response, template, instance, -1, null);
+    }
+
+    /**
+     * Write a problem response with a {@code retryAfter} member.
+     *
+     * @param retryAfterSeconds Seconds until the client may retry
+     */
+    public void writeWithRetryAfter(
+            HttpServletResponse response, Template template, String instance, long retryAfterSeconds) throws IOException {
+        write(response, template, instance, Math.max(retryAfterSeconds, 0), null);
+    }
+
+    /**
+     * Write a problem response with a {@code user} member.
+     *
+     * @param user Name of the authenticated user
+     */
+    public void writeWithUser(
+            HttpServletResponse response, Template template, String instance, String user) throws IOException {
+        write(response, template, instance, -1, user);
+    }
+
+    private void write(
+            HttpServletResponse response,
+            Template template,
+            String instance,
+            long retryAfterSeconds,
+            String user) throws IOException {
+
+        String uri = instance != null ? instance : "";
+        byte[] now = currentTimestamp();
+
+        int length = template.head.length + INSTANCE.length + escapedLength(uri) + TIMESTAMP.length + now.length;
+        if (retryAfterSeconds >= 0) {
+            length += RETRY_AFTER.length + digits(retryAfterSeconds) + NUMBER_END.length;
+        } else if (user != null) {
+            length += USER.length + escapedLength(user) + STRING_END.length;
+        } else {
+            length += STRING_END.length;
+        }
+
+        response.setStatus(template.status);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(length);
+
+        ServletOutputStream out = response.getOutputStream();
+        out.write(template.head);
+        out.write(INSTANCE);
+        writeEscaped(uri, out);
+        out.write(TIMESTAMP);
+        out.write(now);
+        if (retryAfterSeconds >= 0) {
+            out.write(RETRY_AFTER);
+            writeNumber(retryAfterSeconds, out);
+            out.write(NUMBER_END);
+        } else if (user != null) {
+            out.write(USER);
+            writeEscaped(user, out);
+            out.write(STRING_END);
+        } else {
+            out.write(STRING_END);
+        }
+        out.flush();
+    }
+
+    private byte[] currentTimestamp() {
+        long second = Math.floorDiv(System.currentTimeMillis(), 1000);
+        EncodedTimestamp current = timestamp;
+        if (current.epochSecond != second) {
+            current = new EncodedTimestamp(second, ascii(Instant.ofEpochSecond(second).toString()));
+            timestamp = current;
+        }
+        return current.encoded;
+    }
+
+    private static boolean needsEscape(char c) {
+        return c < 0x20 || c >= 0x7F || c == '"' || c == '\\';
+    }
+
+    private static int escapedLength(String value) {
+        int length = value.length();
+        for (int i = 0; i < value.length(); i++) {
+            if (needsEscape(value.charAt(i))) {
+                length += 5;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Write a string as the body of a JSON string literal, with unicode escapes where needed.
+     */
+    private static void writeEscaped(String value, ServletOutputStream out) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (needsEscape(c)) {
+                out.write('\\');
+                out.write('u');
+                out.write(HEX[(c >> 12) & 0xF]);
+                out.write(HEX[(c >> 8) & 0xF]);
+                out.write(HEX[(c >> 4) & 0xF]);
+                out.write(HEX[c & 0xF]);
+            } else {
+                out.write(c);
+            }
+        }
+    }
+
+    private static void escape(String value, StringBuilder target) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (needsEscape(c)) {
+                target.append(String.format("\\u%04x", (int) c));
+            } else {
+                target.append(c);
+            }
+        }
+    }
+
+    private static int digits(long value) {
+        int digits = 1;
+        while (value >= 10) {
+            value /= 10;
+            digits++;
+        }
+        return digits;
+    }
+
+    private static void writeNumber(long value, ServletOutputStream out) throws IOException {
+        long divisor = 1;
+        while (value / divisor >= 10) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            out.write('0' + (int) (value / divisor % 10));
+        }
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Pre-encoded fixed part of a problem response: type, title, status and detail.
+     */
+    public static final class Template {
+
+        private final int status;
+        private final byte[] head;
+
+        private Template(int status, byte[] head) {
+            this.status = status;
+            this.head = head;
+        }
+
+        public int status() {
+            return status;
+        }
+    }
+
+    private record EncodedTimestamp(long epochSecond, byte[] encoded) {
+    }
+}
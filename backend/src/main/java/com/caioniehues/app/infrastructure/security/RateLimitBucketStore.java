@@ -0,0 +1,67 @@
+package com.caioniehues.app.infrastructure.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.github.bucket4j.Bucket;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Bounded store of rate-limit buckets.
+ * <p>
+ * Buckets idle for longer than the idle timeout are dropped; with a timeout at least as long as
+ * the slowest refill period, a dropped bucket would have been full again anyway, so expiry never
+ * loosens a limit. When more clients are active than the store can hold, the least valuable
+ * buckets are evicted first, which bounds memory even under spoofed forwarding headers.
+ */
+@Component
+public class RateLimitBucketStore implements MeterBinder {
+
+    private final Cache<BucketKey, Bucket> buckets;
+
+    public RateLimitBucketStore(
+            @Value("${app.rate-limit.max-buckets:100000}") long maxBuckets,
+            @Value("${app.rate-limit.bucket-idle-timeout:PT1H}") Duration idleTimeout) {
+        this.buckets = Caffeine.newBuilder()
+            .maximumSize(maxBuckets)
+            .expireAfterAccess(idleTimeout)
+            .recordStats()
+            .build();
+    }
+
+    /**
+     * Return the bucket for a key, creating it on first use.
+     *
+     * @param key     Client and endpoint
+     * @param factory Creates a full bucket for the key's endpoint
+     * @return The live bucket for the key
+     */
+    public Bucket resolve(BucketKey key, Function<BucketKey, Bucket> factory) {
+        return buckets.get(key, factory);
+    }
+
+    /**
+     * @return Approximate number of live buckets
+     */
+    long size() {
+        return buckets.estimatedSize();
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        Gauge.builder("auth.rate.limit.buckets", buckets, Cache::estimatedSize)
+            .description("Live rate-limit buckets")
+            .register(registry);
+        FunctionCounter.builder("auth.rate.limit.buckets.evicted", buckets, cache -> cache.stats().evictionCount())
+            .description("Rate-limit buckets evicted because they were idle or the store was full")
+            .register(registry);
+    }
+}
@@ -1,6 +1,5 @@
 package com.caioniehues.app.infrastructure.security;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import io.github.bucket4j.Bandwidth;
 import io.github.bucket4j.Bucket;
 import io.github.bucket4j.ConsumptionProbe;
@@ -11,36 +10,41 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.http.MediaType;
 import org.springframework.lang.NonNull;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.time.Duration;
-import java.time.Instant;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Optional;
 
 @Component
 public class RateLimitFilter extends OncePerRequestFilter {
 
     private static final Logger logger = LoggerFactory.getLogger(RateLimitFilter.class);
 
-    private static final Set<String> RATE_LIMITED_ENDPOINTS = Set.of(
-        "/api/v1/auth/login",
-        "/api/v1/auth/register",
-        "/api/v1/auth/forgot-password"
-    );
-
-    private final Map<String, Bucket> bucketCache;
-    private final ObjectMapper objectMapper;
-
-    public RateLimitFilter(ObjectMapper objectMapper) {
-        this.objectMapper = objectMapper;
-        this.bucketCache = new ConcurrentHashMap<>();
+    private static final ProblemResponseWriter.Template TOO_MANY_REQUESTS = ProblemResponseWriter.template(
+        429, "Too Many Requests", "Rate limit exceeded. Please try again later.");
+
+    private final ProblemResponseWriter problemResponseWriter;
+    private final RateLimitBucketStore bucketStore;
+    private final PostgresRateLimiter sharedRateLimiter;
+    private final RoutePolicyRegistry routePolicies;
+
+    /**
+     * @param sharedRateLimiter Cluster-wide limiter, present when {@code app.rate-limit.backend=postgres}
+     */
+    public RateLimitFilter(
+            ProblemResponseWriter problemResponseWriter,
+            RateLimitBucketStore bucketStore,
+            Optional<PostgresRateLimiter> sharedRateLimiter,
+            RoutePolicyRegistry routePolicies) {
+        this.problemResponseWriter = problemResponseWriter;
+        this.bucketStore = bucketStore;
+        this.sharedRateLimiter = sharedRateLimiter.orElse(null);
+        this.routePolicies = routePolicies;
     }
 
     @Override
@@ -50,82 +54,88 @@ public class RateLimitFilter extends OncePerRequestFilter {
             @NonNull FilterChain filterChain) throws ServletException, IOException {
 
         String servletPath = request.getServletPath();
+        // Runs after authentication, so per-principal and per-role policies can see the caller
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        RateLimitPolicy policy = routePolicies.current()
+            .findRateLimit(servletPath, request.getMethod(), authentication);
 
-        if (!isRateLimitedEndpoint(servletPath)) {
+        if (policy == null) {
             filterChain.doFilter(request, response);
             return;
         }
 
         String clientIp = getClientIpAddress(request);
-        String bucketKey = createBucketKey(clientIp, servletPath);
+        BucketKey bucketKey = policy.perPrincipal() && RateLimitPolicy.isAuthenticated(authentication)
+            ? BucketKey.ofPrincipal(AuthPrincipal.idOf(authentication), policy.id())
+            : createBucketKey(request, policy.id());
 
-        Bucket bucket = bucketCache.computeIfAbsent(bucketKey, key -> createBucket(servletPath));
+        long nanosToWaitForRefill = tryConsume(bucketKey, policy);
 
-        ConsumptionProbe probe = bucket.tryConsumeAndReturnRemaining(1);
-
-        if (probe.isConsumed()) {
+        if (nanosToWaitForRefill == 0) {
             logger.debug("Rate limit check passed for IP: {} on endpoint: {}", clientIp, servletPath);
             filterChain.doFilter(request, response);
         } else {
             logger.warn("Rate limit exceeded for IP: {} on endpoint: {}", clientIp, servletPath);
-            handleRateLimitExceeded(request, response, probe);
+            handleRateLimitExceeded(request, response, nanosToWaitForRefill);
         }
     }
 
-    protected Bucket createBucket(String endpoint) {
-        return Bucket.builder()
-            .addLimit(getBandwidth(endpoint))
-            .build();
-    }
+    /**
+     * Take a token from the shared bucket if configured, or from the local one when the shared
+     * backend is absent or cannot decide in time.
+     *
+     * @return 0 if a token was taken, otherwise the time until one is available
+     */
+    private long tryConsume(BucketKey bucketKey, RateLimitPolicy policy) {
+        if (sharedRateLimiter != null) {
+            Optional<PostgresRateLimiter.Decision> decision =
+                sharedRateLimiter.tryConsume(bucketKey, policy.capacity(), policy.period());
+            if (decision.isPresent()) {
+                return decision.get().consumed() ? 0 : Math.max(decision.get().nanosToWaitForRefill(), 1);
+            }
+        }
 
-    private boolean isRateLimitedEndpoint(String servletPath) {
-        return RATE_LIMITED_ENDPOINTS.stream()
-            .anyMatch(endpoint -> servletPath.startsWith(endpoint));
+        Bucket bucket = bucketStore.resolve(bucketKey, key -> createBucket(policy));
+        ConsumptionProbe probe = bucket.tryConsumeAndReturnRemaining(1);
+        return probe.isConsumed() ? 0 : Math.max(probe.getNanosToWaitForRefill(), 1);
     }
 
-    private String createBucketKey(String clientIp, String endpoint) {
-        return clientIp + ":" + endpoint;
+    protected Bucket createBucket(RateLimitPolicy policy) {
+        return Bucket.builder()
+            .addLimit(Bandwidth.classic(policy.capacity(), Refill.intervally(policy.capacity(), policy.period())))
+            .build();
     }
 
-    private Bandwidth getBandwidth(String endpoint) {
-        return switch (endpoint) {
-            case "/api/v1/auth/login" ->
-                Bandwidth.classic(5, Refill.intervally(5, Duration.ofMinutes(1)));
-            case "/api/v1/auth/register" ->
-                Bandwidth.classic(3, Refill.intervally(3, Duration.ofHours(1)));
-            case "/api/v1/auth/forgot-password" ->
-                Bandwidth.classic(2, Refill.intervally(2, Duration.ofHours(1)));
-            default ->
-                Bandwidth.classic(10, Refill.intervally(10, Duration.ofMinutes(1)));
-        };
+    /**
+     * Key the bucket by the first client address that is a valid IP literal, in the same order
+     * as {@link #getClientIpAddress}. Garbage in forwarding headers falls through to the next
+     * source instead of creating a bucket of its own.
+     */
+    private BucketKey createBucketKey(HttpServletRequest request, int policy) {
+        String xForwardedFor = request.getHeader("X-Forwarded-For");
+        if (xForwardedFor != null && !xForwardedFor.isEmpty()) {
+            BucketKey key = BucketKey.of(xForwardedFor.split(",")[0].trim(), policy);
+            if (key != null) {
+                return key;
+            }
+        }
+
+        BucketKey key = BucketKey.of(request.getHeader("X-Real-IP"), policy);
+        if (key == null) {
+            key = BucketKey.of(request.getRemoteAddr(), policy);
+        }
+        return key != null ? key : BucketKey.unknown(policy);
     }
 
     private void handleRateLimitExceeded(
             HttpServletRequest request,
             HttpServletResponse response,
-            ConsumptionProbe probe) throws IOException {
+            long waitForRefillNanos) throws IOException {
 
-        response.setStatus(429);
-        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
-        response.setCharacterEncoding("UTF-8");
-
-        long waitForRefillNanos = probe.getNanosToWaitForRefill();
         long retryAfterSeconds = Duration.ofNanos(waitForRefillNanos).getSeconds();
 
         response.setHeader("Retry-After", String.valueOf(retryAfterSeconds));
-
-        Map<String, Object> errorResponse = new HashMap<>();
-        errorResponse.put("type", "about:blank");
-        errorResponse.put("title", "Too Many Requests");
-        errorResponse.put("status", 429);
-        errorResponse.put("detail", "Rate limit exceeded. Please try again later.");
-        errorResponse.put("instance", request.getRequestURI());
-        errorResponse.put("timestamp", Instant.now().toString());
-        errorResponse.put("retryAfter", retryAfterSeconds);
-
-        String jsonResponse = objectMapper.writeValueAsString(errorResponse);
-        response.getWriter().write(jsonResponse);
-        response.getWriter().flush();
+        problemResponseWriter.writeWithRetryAfter(response, TOO_MANY_REQUESTS, request.getRequestURI(), retryAfterSeconds);
     }
 
     private String getClientIpAddress(HttpServletRequest request) {
@@ -142,4 +152,4 @@ public class RateLimitFilter extends OncePerRequestFilter {
         String remoteAddr = request.getRemoteAddr();
         return remoteAddr != null ? remoteAddr : "unknown";
     }
-}
\ No newline at end of file
+}
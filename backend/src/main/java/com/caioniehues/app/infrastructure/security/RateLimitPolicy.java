@@ -0,0 +1,107 @@
+package com.caioniehues.app.infrastructure.security;
+
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Compiled rate limit of one path prefix.
+ *
+ * @param id           Stable ID of the policy, the same on every node and across reloads
+ *                     unless the policy itself changes
+ * @param path         Path prefix
+ * @param methods      Upper-case HTTP methods the policy applies to, all if empty
+ * @param authorities  Role authorities the policy applies to, any caller if empty
+ * @param principals   Principal names the policy applies to, any caller if empty
+ * @param perPrincipal Whether buckets are kept per principal instead of per address
+ * @param capacity     Requests allowed per period
+ * @param period       Refill period
+ */
+record RateLimitPolicy(
+        int id,
+        String path,
+        Set<String> methods,
+        Set<String> authorities,
+        Set<String> principals,
+        boolean perPrincipal,
+        int capacity,
+        Duration period) {
+
+    private static final String ROLE_PREFIX = "ROLE_";
+
+    /**
+     * Validate and compile a configured rate limit.
+     *
+     * @throws IllegalArgumentException if the rate limit is incomplete
+     */
+    static RateLimitPolicy compile(RoutePolicyProperties.RateLimit limit) {
+        if (limit.path() == null || !limit.path().startsWith("/")) {
+            throw new IllegalArgumentException("Rate limit path must start with '/': " + limit.path());
+        }
+        if (limit.capacity() <= 0) {
+            throw new IllegalArgumentException("Rate limit capacity must be positive: " + limit.path());
+        }
+        if (limit.period() == null || limit.period().isNegative() || limit.period().isZero()) {
+            throw new IllegalArgumentException("Rate limit period must be positive: " + limit.path());
+        }
+
+        Set<String> methods = limit.methods().stream()
+            .map(method -> method.toUpperCase(Locale.ROOT))
+            .collect(Collectors.toUnmodifiableSet());
+        Set<String> authorities = limit.roles().stream()
+            .map(role -> role.startsWith(ROLE_PREFIX) ? role : ROLE_PREFIX + role)
+            .collect(Collectors.toUnmodifiableSet());
+        boolean perPrincipal = limit.key() == RoutePolicyProperties.Key.PRINCIPAL;
+
+        // Derived from the definition rather than the list position, so buckets survive reordering
+        // and shared buckets line up on all nodes
+        String definition = String.join("|",
+            limit.path(), String.valueOf(new TreeSet<>(methods)), String.valueOf(new TreeSet<>(authorities)),
+            String.valueOf(new TreeSet<>(limit.principals())), String.valueOf(perPrincipal),
+            String.valueOf(limit.capacity()), limit.period().toString());
+
+        return new RateLimitPolicy(definition.hashCode(), limit.path(), methods, authorities,
+            limit.principals(), perPrincipal, limit.capacity(), limit.period());
+    }
+
+    /**
+     * @param method         HTTP method of the request
+     * @param authentication Caller, null or anonymous if not authenticated
+     * @return Whether the policy limits this request
+     */
+    boolean appliesTo(String method, Authentication authentication) {
+        if (!methods.isEmpty() && (method == null || !methods.contains(method))) {
+            return false;
+        }
+        if (authorities.isEmpty() && principals.isEmpty()) {
+            return true;
+        }
+        if (!isAuthenticated(authentication)) {
+            return false;
+        }
+        if (!principals.isEmpty() && !principals.contains(authentication.getName())) {
+            return false;
+        }
+        if (authorities.isEmpty()) {
+            return true;
+        }
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            if (authorities.contains(authority.getAuthority())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static boolean isAuthenticated(Authentication authentication) {
+        return authentication != null
+            && authentication.isAuthenticated()
+            && !(authentication instanceof AnonymousAuthenticationToken);
+    }
+}
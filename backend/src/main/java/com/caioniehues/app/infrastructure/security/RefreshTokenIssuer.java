@@ -0,0 +1,67 @@
+package com.caioniehues.app.infrastructure.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * Issues refresh tokens in the configured format.
+ * <p>
+ * Refresh tokens are always looked up by digest in refresh_tokens, so a signature adds nothing.
+ * In {@code opaque} mode they are 256 random bits, URL-safe encoded into 43 characters, and
+ * skip JWT signing on issue and parsing on refresh. {@code jwt} mode keeps signed JWTs.
+ * Both formats are accepted on refresh regardless of the configured one, so switching modes
+ * does not invalidate outstanding sessions.
+ */
+@Component
+public class RefreshTokenIssuer {
+
+    public enum Format {
+        JWT,
+        OPAQUE
+    }
+
+    private static final int OPAQUE_TOKEN_BYTES = 32;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private final JwtService jwtService;
+    private final Format format;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    public RefreshTokenIssuer(
+            JwtService jwtService,
+            @Value("${jwt.refresh-token-format:jwt}") Format format) {
+        this.jwtService = jwtService;
+        this.format = format;
+    }
+
+    /**
+     * Issue a new refresh token for a user.
+     *
+     * @param userDetails User the token is issued to
+     * @return Refresh token string handed to the client
+     */
+    public String issue(UserDetails userDetails) {
+        if (format == Format.OPAQUE) {
+            byte[] bytes = new byte[OPAQUE_TOKEN_BYTES];
+            secureRandom.nextBytes(bytes);
+            return ENCODER.encodeToString(bytes);
+        }
+        return jwtService.generateRefreshToken(userDetails);
+    }
+
+    /**
+     * Check whether a presented refresh token is opaque rather than a JWT.
+     * Opaque tokens never contain the dots separating JWT segments.
+     *
+     * @param token Refresh token string
+     * @return true if the token carries no claims to verify
+     */
+    public static boolean isOpaque(String token) {
+        return token.indexOf('.') < 0;
+    }
+}
@@ -0,0 +1,177 @@
+package com.caioniehues.app.infrastructure.security;
+
+import com.caioniehues.app.infrastructure.persistence.Bulkhead;
+import com.caioniehues.app.infrastructure.persistence.BulkheadRegistry;
+import com.caioniehues.app.infrastructure.persistence.ReadFromPrimary;
+import com.caioniehues.app.infrastructure.persistence.RecentInvalidations;
+import com.caioniehues.app.infrastructure.persistence.TokenBlacklistRepository;
+import com.caioniehues.app.infrastructure.persistence.WorkloadClass;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory index of blacklisted token JTIs in front of the token_blacklist table.
+ * A Bloom filter answers "definitely not revoked" for almost every request, so the
+ * database is only consulted on a possible hit. The filter is rebuilt periodically
+ * from the non-expired rows, which drops expired JTIs and keeps the false-positive rate bounded.
+ */
+@Component
+@Slf4j
+public class RevokedTokenIndex implements MeterBinder {
+
+    private static final String METRIC_PREFIX = "jwt.revocation.index";
+
+    private final TokenBlacklistRepository tokenBlacklistRepository;
+    private final BulkheadRegistry bulkheads;
+    private final RecentInvalidations recentInvalidations;
+    private final int minimumCapacity;
+    private final double falsePositiveRate;
+
+    private final LongAdder negativeLookups = new LongAdder();
+    private final LongAdder databaseLookups = new LongAdder();
+
+    /**
+     * Null until the first load; every JTI is treated as a possible hit meanwhile.
+     */
+    private volatile BloomFilter filter;
+
+    /**
+     * JTIs revoked since the current rebuild started, merged into the freshly built filter and,
+     * as revocations a replica may not have replayed yet, into the one after.
+     */
+    private volatile Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    private volatile int loadedEntries;
+
+    public RevokedTokenIndex(
+            TokenBlacklistRepository tokenBlacklistRepository,
+            BulkheadRegistry bulkheads,
+            RecentInvalidations recentInvalidations,
+            @Value("${jwt.revocation-index.minimum-capacity:10000}") int minimumCapacity,
+            @Value("${jwt.revocation-index.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.tokenBlacklistRepository = tokenBlacklistRepository;
+        this.bulkheads = bulkheads;
+        this.recentInvalidations = recentInvalidations;
+        this.minimumCapacity = minimumCapacity;
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    /**
+     * Check whether a token has been blacklisted.
+     * Only queries the database when the Bloom filter reports a possible hit. The query reads from
+     * the primary if the JTI was revoked so recently that a replica may not have replayed it yet,
+     * and is the only part that takes a permit of the {@link WorkloadClass#AUTH} bulkhead.
+     *
+     * @param jti JWT ID of the token
+     * @return true if the token is blacklisted
+     */
+    public boolean isRevoked(String jti) {
+        if (!mightBeRevoked(jti)) {
+            negativeLookups.increment();
+            return false;
+        }
+
+        databaseLookups.increment();
+        return recentInvalidations.read(jti,
+            () -> bulkheads.call(WorkloadClass.AUTH, () -> tokenBlacklistRepository.existsByJti(jti)));
+    }
+
+    /**
+     * Check the in-memory filter only.
+     *
+     * @param jti JWT ID of the token
+     * @return false if the token is definitely not blacklisted
+     */
+    public boolean mightBeRevoked(String jti) {
+        BloomFilter current = filter;
+        return jti == null || current == null || current.mightContain(jti);
+    }
+
+    /**
+     * Add a newly blacklisted JTI to the index.
+     * Pending set first, then the filter: a JTI that misses a filter being replaced
+     * by a rebuild is still merged into its successor from the pending set.
+     *
+     * @param jti JWT ID of the blacklisted token
+     */
+    public void add(String jti) {
+        if (jti == null) {
+            return;
+        }
+
+        pending.add(jti);
+        BloomFilter current = filter;
+        if (current != null) {
+            current.put(jti);
+        }
+    }
+
+    /**
+     * Build the first filter from the primary: nothing has been revoked through this node yet
+     * that a lagging replica could be missing.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @ReadFromPrimary
+    public void load() {
+        rebuild();
+    }
+
+    /**
+     * Rebuild the filter from the non-expired blacklist rows.
+     * Revocations recorded while the rebuild runs are captured in a pending set and merged in.
+     * Rows may come from a lagging replica, so the revocations recorded since the previous rebuild
+     * started are merged in as well.
+     */
+    @Scheduled(
+        initialDelayString = "${jwt.revocation-index.rebuild-interval:PT5M}",
+        fixedDelayString = "${jwt.revocation-index.rebuild-interval:PT5M}")
+    @Bulkhead(WorkloadClass.MAINTENANCE)
+    public synchronized void rebuild() {
+        Set<String> revokedBefore = pending;
+        Set<String> revokedDuringRebuild = ConcurrentHashMap.newKeySet();
+        pending = revokedDuringRebuild;
+
+        List<String> jtis = tokenBlacklistRepository.findActiveJtis(Instant.now());
+        int entries = jtis.size() + revokedBefore.size();
+        BloomFilter next = BloomFilter.create(Math.max(minimumCapacity, entries * 2), falsePositiveRate);
+        jtis.forEach(next::put);
+        revokedBefore.forEach(next::put);
+
+        filter = next;
+        revokedDuringRebuild.forEach(next::put);
+        loadedEntries = jtis.size();
+
+        log.debug("Rebuilt revoked token index with {} entries ({} bits, {} hashes)",
+            jtis.size(), next.bitCount(), next.hashCount());
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        Gauge.builder(METRIC_PREFIX + ".entries", this, index -> index.loadedEntries)
+            .description("Blacklisted JTIs loaded at the last rebuild")
+            .register(registry);
+        FunctionCounter.builder(METRIC_PREFIX + ".lookups", negativeLookups, LongAdder::sum)
+            .tag("result", "negative")
+            .description("Revocation checks answered from memory")
+            .register(registry);
+        FunctionCounter.builder(METRIC_PREFIX + ".lookups", databaseLookups, LongAdder::sum)
+            .tag("result", "database")
+            .description("Revocation checks that fell through to the database")
+            .register(registry);
+    }
+}
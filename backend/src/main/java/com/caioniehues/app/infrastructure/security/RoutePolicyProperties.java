@@ -0,0 +1,67 @@
+package com.caioniehues.app.infrastructure.security;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Route policies as configured under {@code app.route-policies}: which paths skip authentication,
+ * how requests are rate limited and which paths keep being served under overload.
+ * <p>
+ * Paths are prefixes of the servlet path. A request is limited by the first rate limit that
+ * applies to it, looking at the longest matching prefix first and, within one prefix, in the
+ * order the limits are listed.
+ *
+ * @param publicPaths   Path prefixes served without authentication
+ * @param rateLimits    Rate limits
+ * @param priorityPaths Path prefixes admitted ahead of other traffic when the server sheds load
+ */
+@ConfigurationProperties(prefix = "app.route-policies")
+public record RoutePolicyProperties(List<String> publicPaths, List<RateLimit> rateLimits, List<String> priorityPaths) {
+
+    public RoutePolicyProperties {
+        publicPaths = publicPaths != null ? List.copyOf(publicPaths) : List.of();
+        rateLimits = rateLimits != null ? List.copyOf(rateLimits) : List.of();
+        priorityPaths = priorityPaths != null ? List.copyOf(priorityPaths) : List.of();
+    }
+
+    /**
+     * Limit of {@code capacity} requests per {@code period} on one path prefix.
+     *
+     * @param path       Path prefix
+     * @param methods    HTTP methods the limit applies to, all if empty
+     * @param roles      Roles the limit applies to, any caller (anonymous too) if empty
+     * @param principals Principal names the limit applies to, any caller if empty
+     * @param key        What each bucket is kept for
+     * @param capacity   Requests allowed per period
+     * @param period     Refill period
+     */
+    public record RateLimit(
+            String path,
+            Set<String> methods,
+            Set<String> roles,
+            Set<String> principals,
+            @DefaultValue("ADDRESS") Key key,
+            int capacity,
+            Duration period) {
+
+        public RateLimit {
+            methods = methods != null ? Set.copyOf(methods) : Set.of();
+            roles = roles != null ? Set.copyOf(roles) : Set.of();
+            principals = principals != null ? Set.copyOf(principals) : Set.of();
+        }
+    }
+
+    /**
+     * What a rate-limit bucket is kept for.
+     */
+    public enum Key {
+        /** One bucket per client address */
+        ADDRESS,
+        /** One bucket per authenticated principal; anonymous callers fall back to their address */
+        PRINCIPAL
+    }
+}
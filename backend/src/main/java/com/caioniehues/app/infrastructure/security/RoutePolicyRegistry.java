@@ -0,0 +1,95 @@
+package com.caioniehues.app.infrastructure.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+/**
+ * Holds the route policies in effect.
+ * <p>
+ * Policies start from {@code app.route-policies} in the application configuration. When
+ * {@code app.route-policies.file} names a YAML file with the same layout, it is checked for
+ * changes on an interval and replaces the policies as a whole, so limits can be tightened during
+ * an incident without a restart. A file that does not compile is logged and ignored; the
+ * previous policies stay in effect.
+ */
+@Component
+@Slf4j
+public class RoutePolicyRegistry {
+
+    private static final String PREFIX = "app.route-policies";
+
+    private final Path file;
+    private volatile RoutePolicyTable current;
+    private volatile FileTime loadedVersion;
+
+    public RoutePolicyRegistry(
+            RoutePolicyProperties properties,
+            @Value("${app.route-policies.file:}") String file) {
+        this.current = RoutePolicyTable.compile(properties);
+        this.file = file.isBlank() ? null : Path.of(file);
+        reload();
+    }
+
+    /**
+     * @return Policies in effect
+     */
+    RoutePolicyTable current() {
+        return current;
+    }
+
+    /**
+     * Load the policy file if it changed since the last load.
+     *
+     * @return Whether new policies took effect
+     */
+    @Scheduled(fixedDelayString = "${app.route-policies.reload-interval:PT10S}")
+    public synchronized boolean reload() {
+        if (file == null) {
+            return false;
+        }
+
+        FileTime version;
+        try {
+            version = Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            log.debug("Route policy file {} not readable: {}", file, e.getMessage());
+            return false;
+        }
+        if (version.equals(loadedVersion)) {
+            return false;
+        }
+
+        try {
+            List<PropertySource<?>> sources = new YamlPropertySourceLoader()
+                .load(file.toString(), new FileSystemResource(file));
+            RoutePolicyProperties properties = new Binder(ConfigurationPropertySources.from(sources))
+                .bind(PREFIX, RoutePolicyProperties.class)
+                .orElseGet(() -> new RoutePolicyProperties(List.of(), List.of(), List.of()));
+
+            RoutePolicyTable table = RoutePolicyTable.compile(properties);
+            current = table;
+            log.info("Loaded route policies from {}: {} public paths, {} rate limits",
+                file, properties.publicPaths().size(), table.rateLimitCount());
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring invalid route policy file {}, keeping the previous policies: {}", file, e.getMessage());
+            return false;
+        } finally {
+            // Retry only once the file changes again
+            loadedVersion = version;
+        }
+    }
+}
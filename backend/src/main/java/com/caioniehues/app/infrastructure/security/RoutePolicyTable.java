@@ -0,0 +1,163 @@
+package com.caioniehues.app.infrastructure.security;
+
+import org.springframework.security.core.Authentication;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Route policies compiled into an immutable character trie over path prefixes.
+ * <p>
+ * Every node already carries what it inherits from shorter prefixes: whether the path is public
+ * or has priority, and the rate limits that may apply, longest prefix first. A lookup walks the
+ * path once, as far as the trie goes, and reads the last node reached; its cost depends on the
+ * path length only, not on how many policies are configured.
+ */
+final class RoutePolicyTable {
+
+    private static final RateLimitPolicy[] NO_POLICIES = {};
+
+    private final Node root;
+    private final int rateLimitCount;
+
+    private RoutePolicyTable(Node root, int rateLimitCount) {
+        this.root = root;
+        this.rateLimitCount = rateLimitCount;
+    }
+
+    /**
+     * Validate and compile configured policies.
+     *
+     * @throws IllegalArgumentException if a policy is invalid
+     */
+    static RoutePolicyTable compile(RoutePolicyProperties properties) {
+        MutableNode root = new MutableNode();
+
+        for (String path : properties.publicPaths()) {
+            if (path == null || !path.startsWith("/")) {
+                throw new IllegalArgumentException("Public path must start with '/': " + path);
+            }
+            root.descend(path).publicPath = true;
+        }
+        for (String path : properties.priorityPaths()) {
+            if (path == null || !path.startsWith("/")) {
+                throw new IllegalArgumentException("Priority path must start with '/': " + path);
+            }
+            root.descend(path).priorityPath = true;
+        }
+        for (RoutePolicyProperties.RateLimit limit : properties.rateLimits()) {
+            RateLimitPolicy policy = RateLimitPolicy.compile(limit);
+            root.descend(policy.path()).policies.add(policy);
+        }
+
+        return new RoutePolicyTable(root.freeze(false, false, NO_POLICIES), properties.rateLimits().size());
+    }
+
+    /**
+     * @return Whether the path falls under a public path prefix
+     */
+    boolean isPublic(String path) {
+        return find(path).publicPath;
+    }
+
+    /**
+     * @return Whether the path falls under a priority path prefix
+     */
+    boolean isPriority(String path) {
+        return find(path).priorityPath;
+    }
+
+    /**
+     * Find the rate limit for a request.
+     *
+     * @param path           Servlet path
+     * @param method         HTTP method
+     * @param authentication Caller, null if not authenticated
+     * @return The policy limiting the request, or null if it is not limited
+     */
+    RateLimitPolicy findRateLimit(String path, String method, Authentication authentication) {
+        for (RateLimitPolicy policy : find(path).policies) {
+            if (policy.appliesTo(method, authentication)) {
+                return policy;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return Number of configured rate limits
+     */
+    int rateLimitCount() {
+        return rateLimitCount;
+    }
+
+    private Node find(String path) {
+        Node node = root;
+        if (path == null) {
+            return node;
+        }
+        for (int i = 0; i < path.length(); i++) {
+            Node child = node.child(path.charAt(i));
+            if (child == null) {
+                break;
+            }
+            node = child;
+        }
+        return node;
+    }
+
+    /**
+     * Frozen trie node; children are kept in parallel arrays sorted by character.
+     */
+    private record Node(char[] labels, Node[] children, boolean publicPath, boolean priorityPath, RateLimitPolicy[] policies) {
+
+        Node child(char label) {
+            int index = Arrays.binarySearch(labels, label);
+            return index >= 0 ? children[index] : null;
+        }
+    }
+
+    private static final class MutableNode {
+
+        private final Map<Character, MutableNode> children = new TreeMap<>();
+        private final List<RateLimitPolicy> policies = new ArrayList<>();
+        private boolean publicPath;
+        private boolean priorityPath;
+
+        MutableNode descend(String path) {
+            MutableNode node = this;
+            for (int i = 0; i < path.length(); i++) {
+                node = node.children.computeIfAbsent(path.charAt(i), label -> new MutableNode());
+            }
+            return node;
+        }
+
+        Node freeze(boolean inheritedPublic, boolean inheritedPriority, RateLimitPolicy[] inheritedPolicies) {
+            boolean effectivePublic = publicPath || inheritedPublic;
+            boolean effectivePriority = priorityPath || inheritedPriority;
+
+            RateLimitPolicy[] effectivePolicies = inheritedPolicies;
+            if (!policies.isEmpty()) {
+                // Own policies first: a longer prefix is more specific
+                effectivePolicies = new RateLimitPolicy[policies.size() + inheritedPolicies.length];
+                for (int i = 0; i < policies.size(); i++) {
+                    effectivePolicies[i] = policies.get(i);
+                }
+                System.arraycopy(inheritedPolicies, 0, effectivePolicies, policies.size(), inheritedPolicies.length);
+            }
+
+            char[] labels = new char[children.size()];
+            Node[] frozen = new Node[children.size()];
+            int i = 0;
+            for (Map.Entry<Character, MutableNode> entry : children.entrySet()) {
+                labels[i] = entry.getKey();
+                frozen[i] = entry.getValue().freeze(effectivePublic, effectivePriority, effectivePolicies);
+                i++;
+            }
+            return new Node(labels, frozen, effectivePublic, effectivePriority, effectivePolicies);
+        }
+    }
+}
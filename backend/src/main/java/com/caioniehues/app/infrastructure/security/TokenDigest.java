@@ -0,0 +1,46 @@
+package com.caioniehues.app.infrastructure.security;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Fixed-size SHA-256 digest of a compact token string.
+ * Used as a lookup key so that full token strings never need to be stored or compared.
+ *
+ * @param h0 Bytes 0-7 of the digest
+ * @param h1 Bytes 8-15 of the digest
+ * @param h2 Bytes 16-23 of the digest
+ * @param h3 Bytes 24-31 of the digest
+ */
+public record TokenDigest(long h0, long h1, long h2, long h3) {
+
+    private static final String ALGORITHM = "SHA-256";
+
+    /**
+     * Compute the digest of a token.
+     *
+     * @param token Compact token string
+     * @return TokenDigest holding the 32-byte SHA-256 hash
+     */
+    public static TokenDigest of(String token) {
+        ByteBuffer buffer = ByteBuffer.wrap(sha256(token));
+        return new TokenDigest(buffer.getLong(), buffer.getLong(), buffer.getLong(), buffer.getLong());
+    }
+
+    /**
+     * Compute the raw 32-byte SHA-256 hash of a token.
+     *
+     * @param token Compact token string
+     * @return SHA-256 hash bytes
+     */
+    public static byte[] sha256(String token) {
+        try {
+            return MessageDigest.getInstance(ALGORITHM).digest(token.getBytes(StandardCharsets.US_ASCII));
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.caioniehues.app.infrastructure.security;
+
+import com.caioniehues.app.domain.user.UserTokenStatus;
+import com.caioniehues.app.infrastructure.persistence.BulkheadRegistry;
+import com.caioniehues.app.infrastructure.persistence.RecentInvalidations;
+import com.caioniehues.app.infrastructure.persistence.UserRepository;
+import com.caioniehues.app.infrastructure.persistence.WorkloadClass;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * In-memory view of per-user token status used for the user-level revocation check.
+ * The database is only queried on a miss, so stateless authentication stays off the DB
+ * for users that were seen recently. Misses run in the {@link WorkloadClass#AUTH} bulkhead and may
+ * read from a replica, except a status reloaded right after a change: that one reads from the
+ * primary, so it never comes from a replica that has not replayed the change yet. Hits take no permit.
+ */
+@Component
+@Slf4j
+public class UserTokenStatusCache implements MeterBinder {
+
+    private static final String CACHE_NAME = "user.token-status";
+
+    private final UserRepository userRepository;
+    private final BulkheadRegistry bulkheads;
+    private final RecentInvalidations recentInvalidations;
+    private final Cache<UUID, UserTokenStatus> cache;
+
+    public UserTokenStatusCache(
+            UserRepository userRepository,
+            BulkheadRegistry bulkheads,
+            RecentInvalidations recentInvalidations,
+            @Value("${jwt.user-status-cache.maximum-size:100000}") long maximumSize,
+            @Value("${jwt.user-status-cache.ttl:PT1M}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.bulkheads = bulkheads;
+        this.recentInvalidations = recentInvalidations;
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfterWrite(ttl)
+            .recordStats()
+            .build();
+    }
+
+    /**
+     * Check whether a token has been revoked at the user level: the user was disabled or deleted,
+     * or moved to a newer token epoch after the token was issued.
+     *
+     * @param token Verified token carrying a user ID
+     * @return true if the token must be rejected
+     */
+    public boolean isRevoked(VerifiedToken token) {
+        UserTokenStatus status = cache.get(token.userId(), this::loadStatus);
+        return status.revokes(token.epoch());
+    }
+
+    /**
+     * Forget the cached status of a user after it changed.
+     */
+    public void invalidate(UUID userId) {
+        cache.invalidate(userId);
+    }
+
+    /**
+     * Forget every cached status.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private UserTokenStatus loadStatus(UUID userId) {
+        log.debug("Loading token status for user: {}", userId);
+        return recentInvalidations.read(userId,
+                () -> bulkheads.call(WorkloadClass.AUTH, () -> userRepository.findTokenStatusById(userId)))
+            .orElse(UserTokenStatus.MISSING);
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME);
+    }
+}
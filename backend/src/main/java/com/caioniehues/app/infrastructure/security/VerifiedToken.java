@@ -0,0 +1,100 @@
+package com.caioniehues.app.infrastructure.security;
+
+import io.jsonwebtoken.Claims;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Claims of a JWT whose signature and expiry have already been checked.
+ * Produced once per token by {@link JwtService#verify(String)} so callers never re-parse the compact string.
+ *
+ * @param subject   Username the token was issued to
+ * @param jti       Unique token identifier, used for blacklisting
+ * @param userId    Identifier of the user, or {@code null} for tokens issued without one
+ * @param tokenType {@code ACCESS} or {@code REFRESH}
+ * @param issuedAt  Time the token was issued
+ * @param expiresAt Time the token stops being valid
+ * @param roles     Role names embedded in the token, or {@code null} for tokens issued without a roles claim
+ * @param epoch     Token epoch of the user when the token was issued; tokens issued without one count as epoch 0
+ */
+public record VerifiedToken(
+    String subject,
+    String jti,
+    UUID userId,
+    String tokenType,
+    Instant issuedAt,
+    Instant expiresAt,
+    Set<String> roles,
+    int epoch
+) {
+
+    public static final String ACCESS = "ACCESS";
+    public static final String REFRESH = "REFRESH";
+
+    static final String EPOCH_CLAIM = "epoch";
+
+    /**
+     * Build a verified token from claims returned by a successful signature check.
+     */
+    static VerifiedToken from(Claims claims) {
+        String userId = claims.get("userId", String.class);
+        return new VerifiedToken(
+            claims.getSubject(),
+            claims.getId(),
+            userId != null ? UUID.fromString(userId) : null,
+            claims.get("tokenType", String.class),
+            toInstant(claims.getIssuedAt()),
+            toInstant(claims.getExpiration()),
+            rolesOf(claims.get("roles")),
+            claims.get(EPOCH_CLAIM) instanceof Number epoch ? epoch.intValue() : 0
+        );
+    }
+
+    /**
+     * Check that the token was issued to the given user.
+     */
+    public boolean isIssuedTo(UserDetails userDetails) {
+        return subject != null && subject.equals(userDetails.getUsername());
+    }
+
+    /**
+     * Check that the token was issued to the given user and has not expired since it was verified.
+     */
+    public boolean isValidFor(UserDetails userDetails) {
+        return isIssuedTo(userDetails) && !isExpired();
+    }
+
+    public boolean isExpired() {
+        return expiresAt != null && expiresAt.isBefore(Instant.now());
+    }
+
+    public boolean isAccessToken() {
+        return ACCESS.equals(tokenType);
+    }
+
+    /**
+     * Check whether the token carries everything needed to authorize a request without loading the user.
+     */
+    public boolean isSelfContained() {
+        return isAccessToken() && userId != null && roles != null;
+    }
+
+    private static Instant toInstant(Date date) {
+        return date != null ? date.toInstant() : null;
+    }
+
+    private static Set<String> rolesOf(Object claim) {
+        if (!(claim instanceof Collection<?> values)) {
+            return null;
+        }
+        return values.stream()
+            .map(String::valueOf)
+            .collect(Collectors.toUnmodifiableSet());
+    }
+}
@@ -0,0 +1,130 @@
+package com.caioniehues.app.infrastructure.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of already verified JWTs, keyed by the SHA-256 digest of the compact token.
+ * Clients resend the same access token for its whole lifetime, so a hit skips signature
+ * verification and JSON decoding entirely. Entries expire exactly when the token does.
+ * <p>
+ * A secondary index maps each cached token's JTI to its digest, so a token revoked by JTI
+ * alone is found without scanning the cache. The index is only changed inside the cache's
+ * own atomic operations on the entry: when it is loaded, evicted or removed.
+ */
+@Component
+public class VerifiedTokenCache implements MeterBinder {
+
+    private static final String CACHE_NAME = "jwt.verified";
+
+    private final Map<String, TokenDigest> digestsByJti = new ConcurrentHashMap<>();
+    private final Cache<TokenDigest, VerifiedToken> cache;
+
+    public VerifiedTokenCache(@Value("${jwt.verified-cache.maximum-size:100000}") long maximumSize) {
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(maximumSize)
+            .expireAfter(new TokenExpiry())
+            .evictionListener((TokenDigest digest, VerifiedToken token, RemovalCause cause) -> unindex(digest, token))
+            .recordStats()
+            .build();
+    }
+
+    /**
+     * Return the verified token from the cache, verifying and caching it on a miss.
+     * Verification failures propagate to the caller and are never cached.
+     *
+     * @param token    Compact JWT string
+     * @param verifier Full verification used on a cache miss
+     * @return VerifiedToken for the given compact token
+     */
+    public VerifiedToken get(String token, Function<String, VerifiedToken> verifier) {
+        return cache.get(TokenDigest.of(token), digest -> {
+            VerifiedToken verified = verifier.apply(token);
+            if (verified.jti() != null) {
+                digestsByJti.put(verified.jti(), digest);
+            }
+            return verified;
+        });
+    }
+
+    /**
+     * Remove a single token, e.g. after it has been blacklisted on logout.
+     */
+    public void invalidate(String token) {
+        invalidate(TokenDigest.of(token));
+    }
+
+    /**
+     * Remove every cached token carrying the given JTI.
+     * Used when only the JTI of a revoked token is known.
+     */
+    public void invalidateJti(String jti) {
+        if (jti == null) {
+            return;
+        }
+        TokenDigest digest = digestsByJti.get(jti);
+        if (digest != null) {
+            invalidate(digest);
+        }
+    }
+
+    private void invalidate(TokenDigest digest) {
+        cache.asMap().computeIfPresent(digest, (key, token) -> {
+            unindex(key, token);
+            return null;
+        });
+    }
+
+    private void unindex(TokenDigest digest, VerifiedToken token) {
+        if (token != null && token.jti() != null) {
+            digestsByJti.remove(token.jti(), digest);
+        }
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Expire each entry at the token's own {@code exp} claim.
+     */
+    private static final class TokenExpiry implements Expiry<TokenDigest, VerifiedToken> {
+
+        @Override
+        public long expireAfterCreate(TokenDigest key, VerifiedToken token, long currentTime) {
+            if (token.expiresAt() == null) {
+                return 0;
+            }
+            return Math.max(0, Duration.between(Instant.now(), token.expiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(TokenDigest key, VerifiedToken token, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(TokenDigest key, VerifiedToken token, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -163,6 +163,33 @@ public class AuthController {
         return ResponseEntity.noContent().build();
     }
 
+    /**
+     * Logout user on every device by revoking all of their tokens.
+     *
+     * @param authHeader Authorization header with bearer token
+     * @return No content on successful logout
+     */
+    @PostMapping("/logout-all")
+    @Operation(summary = "Logout everywhere", description = "Invalidate all access and refresh tokens of the user")
+    @ApiResponses(value = {
+        @ApiResponse(
+            responseCode = "204",
+            description = "Logout successful"
+        ),
+        @ApiResponse(
+            responseCode = "401",
+            description = "Invalid token",
+            content = @Content(schema = @Schema(implementation = ErrorResponse.class))
+        )
+    })
+    public ResponseEntity<Void> logoutAll(@RequestHeader(value = "Authorization", required = false) String authHeader) {
+        log.info("Logout from all sessions request received");
+
+        authService.logoutAll(authHeader);
+
+        return ResponseEntity.noContent().build();
+    }
+
     /**
      * Get current authenticated user information.
      *
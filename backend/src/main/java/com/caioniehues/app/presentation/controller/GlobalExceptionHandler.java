@@ -1,10 +1,13 @@
 package com.caioniehues.app.presentation.controller;
 
+import com.caioniehues.app.infrastructure.persistence.BulkheadFullException;
+import com.caioniehues.app.infrastructure.security.PasswordHashingSaturatedException;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.ConstraintViolationException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ProblemDetail;
 import org.springframework.http.ResponseEntity;
@@ -18,6 +21,7 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.context.request.WebRequest;
 
 import java.net.URI;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.HashMap;
 import java.util.Map;
@@ -159,6 +163,35 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.FORBIDDEN).body(problemDetail);
     }
 
+    @ExceptionHandler(PasswordHashingSaturatedException.class)
+    public ResponseEntity<ProblemDetail> handlePasswordHashingSaturated(PasswordHashingSaturatedException ex, WebRequest request) {
+        return serviceUnavailable("Too many authentication requests, please retry later", ex.getRetryAfter(), request);
+    }
+
+    @ExceptionHandler(BulkheadFullException.class)
+    public ResponseEntity<ProblemDetail> handleBulkheadFull(BulkheadFullException ex, WebRequest request) {
+        return serviceUnavailable("The server is busy, please retry later", ex.getRetryAfter(), request);
+    }
+
+    /**
+     * 503 response for load that was shed, telling the client when to retry.
+     */
+    private ResponseEntity<ProblemDetail> serviceUnavailable(String detail, Duration retryAfter, WebRequest request) {
+        ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(HttpStatus.SERVICE_UNAVAILABLE, detail);
+        problemDetail.setTitle("Service Unavailable");
+        problemDetail.setInstance(URI.create(request.getDescription(false).substring(4)));
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("timestamp", Instant.now());
+        problemDetail.setProperties(properties);
+
+        // Retry-After is whole seconds; never advertise zero
+        long retryAfterSeconds = Math.max(1, (retryAfter.toMillis() + 999) / 1000);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+            .body(problemDetail);
+    }
+
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<ProblemDetail> handleIllegalArgument(IllegalArgumentException ex, WebRequest request) {
         ProblemDetail problemDetail = ProblemDetail.forStatusAndDetail(
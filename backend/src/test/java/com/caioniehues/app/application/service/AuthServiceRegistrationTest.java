@@ -6,8 +6,7 @@ import com.caioniehues.app.application.exception.DuplicateEmailException;
 import com.caioniehues.app.application.mapper.UserMapper;
 import com.caioniehues.app.domain.user.Role;
 import com.caioniehues.app.domain.user.User;
-import com.caioniehues.app.infrastructure.persistence.RoleRepository;
-import com.caioniehues.app.infrastructure.persistence.UserRepository;
+import com.caioniehues.app.infrastructure.persistence.RoleRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -16,8 +15,10 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.sql.SQLException;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -32,10 +33,10 @@ import static org.mockito.Mockito.*;
 class AuthServiceRegistrationTest {
 
     @Mock
-    private UserRepository userRepository;
+    private AuthStore authStore;
 
     @Mock
-    private RoleRepository roleRepository;
+    private RoleRegistry roleRegistry;
 
     @Mock
     private PasswordEncoder passwordEncoder;
@@ -89,11 +90,10 @@ class AuthServiceRegistrationTest {
     @DisplayName("Should successfully register new user with encrypted password")
     void register_WithValidData_ShouldCreateUserSuccessfully() {
         // Given
-        when(userRepository.existsByEmail(registerRequest.email())).thenReturn(false);
-        when(userRepository.existsByUsername(registerRequest.email())).thenReturn(false);
+        when(authStore.existsByLoginKey(registerRequest.email())).thenReturn(false);
         when(passwordEncoder.encode(registerRequest.password())).thenReturn("$2a$12$hashedPassword");
-        when(roleRepository.findByName("USER")).thenReturn(Optional.of(defaultRole));
-        when(userRepository.save(any(User.class))).thenReturn(savedUser);
+        when(roleRegistry.findByName("USER")).thenReturn(Optional.of(defaultRole));
+        when(authStore.saveUser(any(User.class))).thenReturn(savedUser);
         when(userMapper.toResponse(savedUser)).thenReturn(expectedResponse);
 
         // When
@@ -106,7 +106,7 @@ class AuthServiceRegistrationTest {
 
         // Verify user was saved with correct data
         ArgumentCaptor<User> userCaptor = ArgumentCaptor.forClass(User.class);
-        verify(userRepository).save(userCaptor.capture());
+        verify(authStore).saveUser(userCaptor.capture());
         User savedUserArg = userCaptor.getValue();
 
         assertThat(savedUserArg.getEmail()).isEqualTo(registerRequest.email());
@@ -122,7 +122,7 @@ class AuthServiceRegistrationTest {
     @DisplayName("Should reject registration with duplicate email")
     void register_WithDuplicateEmail_ShouldThrowException() {
         // Given
-        when(userRepository.existsByEmail(registerRequest.email())).thenReturn(true);
+        when(authStore.existsByLoginKey(registerRequest.email())).thenReturn(true);
 
         // When/Then
         DuplicateEmailException exception = assertThrows(
@@ -131,7 +131,7 @@ class AuthServiceRegistrationTest {
         );
 
         assertThat(exception.getMessage()).contains("already exists");
-        verify(userRepository, never()).save(any(User.class));
+        verify(authStore, never()).saveUser(any(User.class));
         verify(passwordEncoder, never()).encode(anyString());
     }
 
@@ -139,8 +139,7 @@ class AuthServiceRegistrationTest {
     @DisplayName("Should reject registration with duplicate username")
     void register_WithDuplicateUsername_ShouldThrowException() {
         // Given
-        when(userRepository.existsByEmail(registerRequest.email())).thenReturn(false);
-        when(userRepository.existsByUsername(registerRequest.email())).thenReturn(true);
+        when(authStore.existsByLoginKey(registerRequest.email())).thenReturn(true);
 
         // When/Then
         DuplicateEmailException exception = assertThrows(
@@ -149,7 +148,24 @@ class AuthServiceRegistrationTest {
         );
 
         assertThat(exception.getMessage()).contains("already exists");
-        verify(userRepository, never()).save(any(User.class));
+        verify(authStore, never()).saveUser(any(User.class));
+    }
+
+    @Test
+    @DisplayName("Should translate a unique constraint violation into a duplicate email error")
+    void register_WhenConcurrentRegistrationWins_ShouldThrowDuplicateEmail() {
+        // Given
+        when(authStore.existsByLoginKey(anyString())).thenReturn(false);
+        when(passwordEncoder.encode(anyString())).thenReturn("$2a$12$hash");
+        when(roleRegistry.findByName("USER")).thenReturn(Optional.of(defaultRole));
+        when(authStore.saveUser(any(User.class))).thenThrow(new DataIntegrityViolationException(
+            "could not execute statement",
+            new SQLException("duplicate key value violates unique constraint \"users_email_key\"", "23505")));
+
+        // When/Then
+        assertThatThrownBy(() -> authService.register(registerRequest))
+            .isInstanceOf(DuplicateEmailException.class)
+            .hasMessageContaining("already exists");
     }
 
     @Test
@@ -159,11 +175,10 @@ class AuthServiceRegistrationTest {
         String rawPassword = "SecureP@ssw0rd!42";
         String hashedPassword = "$2a$12$encodedPasswordHash";
 
-        when(userRepository.existsByEmail(anyString())).thenReturn(false);
-        when(userRepository.existsByUsername(anyString())).thenReturn(false);
+        when(authStore.existsByLoginKey(anyString())).thenReturn(false);
         when(passwordEncoder.encode(rawPassword)).thenReturn(hashedPassword);
-        when(roleRepository.findByName("USER")).thenReturn(Optional.of(defaultRole));
-        when(userRepository.save(any(User.class))).thenReturn(savedUser);
+        when(roleRegistry.findByName("USER")).thenReturn(Optional.of(defaultRole));
+        when(authStore.saveUser(any(User.class))).thenReturn(savedUser);
         when(userMapper.toResponse(any(User.class))).thenReturn(expectedResponse);
 
         // When
@@ -173,7 +188,7 @@ class AuthServiceRegistrationTest {
         verify(passwordEncoder).encode(rawPassword);
 
         ArgumentCaptor<User> userCaptor = ArgumentCaptor.forClass(User.class);
-        verify(userRepository).save(userCaptor.capture());
+        verify(authStore).saveUser(userCaptor.capture());
         assertThat(userCaptor.getValue().getPasswordHash()).isEqualTo(hashedPassword);
     }
 
@@ -181,11 +196,10 @@ class AuthServiceRegistrationTest {
     @DisplayName("Should assign default USER role to new registration")
     void register_ShouldAssignDefaultUserRole() {
         // Given
-        when(userRepository.existsByEmail(anyString())).thenReturn(false);
-        when(userRepository.existsByUsername(anyString())).thenReturn(false);
+        when(authStore.existsByLoginKey(anyString())).thenReturn(false);
         when(passwordEncoder.encode(anyString())).thenReturn("$2a$12$hash");
-        when(roleRepository.findByName("USER")).thenReturn(Optional.of(defaultRole));
-        when(userRepository.save(any(User.class))).thenReturn(savedUser);
+        when(roleRegistry.findByName("USER")).thenReturn(Optional.of(defaultRole));
+        when(authStore.saveUser(any(User.class))).thenReturn(savedUser);
         when(userMapper.toResponse(any(User.class))).thenReturn(expectedResponse);
 
         // When
@@ -193,7 +207,7 @@ class AuthServiceRegistrationTest {
 
         // Then
         ArgumentCaptor<User> userCaptor = ArgumentCaptor.forClass(User.class);
-        verify(userRepository).save(userCaptor.capture());
+        verify(authStore).saveUser(userCaptor.capture());
         User savedUserArg = userCaptor.getValue();
 
         assertThat(savedUserArg.getRoles()).contains(defaultRole);
@@ -204,11 +218,10 @@ class AuthServiceRegistrationTest {
     @DisplayName("Should handle missing default role gracefully")
     void register_WithMissingDefaultRole_ShouldCreateUserWithoutRole() {
         // Given
-        when(userRepository.existsByEmail(anyString())).thenReturn(false);
-        when(userRepository.existsByUsername(anyString())).thenReturn(false);
+        when(authStore.existsByLoginKey(anyString())).thenReturn(false);
         when(passwordEncoder.encode(anyString())).thenReturn("$2a$12$hash");
-        when(roleRepository.findByName("USER")).thenReturn(Optional.empty());
-        when(userRepository.save(any(User.class))).thenReturn(savedUser);
+        when(roleRegistry.findByName("USER")).thenReturn(Optional.empty());
+        when(authStore.saveUser(any(User.class))).thenReturn(savedUser);
         when(userMapper.toResponse(any(User.class))).thenReturn(expectedResponse);
 
         // When
@@ -218,7 +231,7 @@ class AuthServiceRegistrationTest {
         assertThat(response).isNotNull();
 
         ArgumentCaptor<User> userCaptor = ArgumentCaptor.forClass(User.class);
-        verify(userRepository).save(userCaptor.capture());
+        verify(authStore).saveUser(userCaptor.capture());
         User savedUserArg = userCaptor.getValue();
 
         assertThat(savedUserArg.getRoles()).isEmpty();
@@ -228,11 +241,10 @@ class AuthServiceRegistrationTest {
     @DisplayName("Should set username as email for registration")
     void register_ShouldSetUsernameAsEmail() {
         // Given
-        when(userRepository.existsByEmail(anyString())).thenReturn(false);
-        when(userRepository.existsByUsername(anyString())).thenReturn(false);
+        when(authStore.existsByLoginKey(anyString())).thenReturn(false);
         when(passwordEncoder.encode(anyString())).thenReturn("$2a$12$hash");
-        when(roleRepository.findByName("USER")).thenReturn(Optional.of(defaultRole));
-        when(userRepository.save(any(User.class))).thenReturn(savedUser);
+        when(roleRegistry.findByName("USER")).thenReturn(Optional.of(defaultRole));
+        when(authStore.saveUser(any(User.class))).thenReturn(savedUser);
         when(userMapper.toResponse(any(User.class))).thenReturn(expectedResponse);
 
         // When
@@ -240,7 +252,7 @@ class AuthServiceRegistrationTest {
 
         // Then
         ArgumentCaptor<User> userCaptor = ArgumentCaptor.forClass(User.class);
-        verify(userRepository).save(userCaptor.capture());
+        verify(authStore).saveUser(userCaptor.capture());
         User savedUserArg = userCaptor.getValue();
 
         assertThat(savedUserArg.getUsername()).isEqualTo(registerRequest.email());
@@ -251,11 +263,10 @@ class AuthServiceRegistrationTest {
     @DisplayName("Should enable user account by default")
     void register_ShouldEnableAccountByDefault() {
         // Given
-        when(userRepository.existsByEmail(anyString())).thenReturn(false);
-        when(userRepository.existsByUsername(anyString())).thenReturn(false);
+        when(authStore.existsByLoginKey(anyString())).thenReturn(false);
         when(passwordEncoder.encode(anyString())).thenReturn("$2a$12$hash");
-        when(roleRepository.findByName("USER")).thenReturn(Optional.of(defaultRole));
-        when(userRepository.save(any(User.class))).thenReturn(savedUser);
+        when(roleRegistry.findByName("USER")).thenReturn(Optional.of(defaultRole));
+        when(authStore.saveUser(any(User.class))).thenReturn(savedUser);
         when(userMapper.toResponse(any(User.class))).thenReturn(expectedResponse);
 
         // When
@@ -263,7 +274,7 @@ class AuthServiceRegistrationTest {
 
         // Then
         ArgumentCaptor<User> userCaptor = ArgumentCaptor.forClass(User.class);
-        verify(userRepository).save(userCaptor.capture());
+        verify(authStore).saveUser(userCaptor.capture());
         assertThat(userCaptor.getValue().isEnabled()).isTrue();
     }
 
@@ -279,11 +290,10 @@ class AuthServiceRegistrationTest {
             null
         );
 
-        when(userRepository.existsByEmail(anyString())).thenReturn(false);
-        when(userRepository.existsByUsername(anyString())).thenReturn(false);
+        when(authStore.existsByLoginKey(anyString())).thenReturn(false);
         when(passwordEncoder.encode(anyString())).thenReturn("$2a$12$hash");
-        when(roleRepository.findByName("USER")).thenReturn(Optional.of(defaultRole));
-        when(userRepository.save(any(User.class))).thenReturn(savedUser);
+        when(roleRegistry.findByName("USER")).thenReturn(Optional.of(defaultRole));
+        when(authStore.saveUser(any(User.class))).thenReturn(savedUser);
         when(userMapper.toResponse(any(User.class))).thenReturn(expectedResponse);
 
         // When
@@ -291,7 +301,7 @@ class AuthServiceRegistrationTest {
 
         // Then
         ArgumentCaptor<User> userCaptor = ArgumentCaptor.forClass(User.class);
-        verify(userRepository).save(userCaptor.capture());
+        verify(authStore).saveUser(userCaptor.capture());
         assertThat(userCaptor.getValue().getFullName()).isEqualTo("Jane Smith");
     }
 
@@ -299,11 +309,10 @@ class AuthServiceRegistrationTest {
     @DisplayName("Should handle registration with optional phone number")
     void register_WithPhoneNumber_ShouldSavePhoneNumber() {
         // Given
-        when(userRepository.existsByEmail(anyString())).thenReturn(false);
-        when(userRepository.existsByUsername(anyString())).thenReturn(false);
+        when(authStore.existsByLoginKey(anyString())).thenReturn(false);
         when(passwordEncoder.encode(anyString())).thenReturn("$2a$12$hash");
-        when(roleRepository.findByName("USER")).thenReturn(Optional.of(defaultRole));
-        when(userRepository.save(any(User.class))).thenReturn(savedUser);
+        when(roleRegistry.findByName("USER")).thenReturn(Optional.of(defaultRole));
+        when(authStore.saveUser(any(User.class))).thenReturn(savedUser);
         when(userMapper.toResponse(any(User.class))).thenReturn(expectedResponse);
 
         // When
@@ -311,7 +320,7 @@ class AuthServiceRegistrationTest {
 
         // Then
         ArgumentCaptor<User> userCaptor = ArgumentCaptor.forClass(User.class);
-        verify(userRepository).save(userCaptor.capture());
+        verify(authStore).saveUser(userCaptor.capture());
         // Note: Phone field would be added to User entity in a real implementation
     }
 
@@ -327,11 +336,10 @@ class AuthServiceRegistrationTest {
             null
         );
 
-        when(userRepository.existsByEmail("john@example.com")).thenReturn(false);
-        when(userRepository.existsByUsername("john@example.com")).thenReturn(false);
+        when(authStore.existsByLoginKey("john@example.com")).thenReturn(false);
         when(passwordEncoder.encode(anyString())).thenReturn("$2a$12$hash");
-        when(roleRepository.findByName("USER")).thenReturn(Optional.of(defaultRole));
-        when(userRepository.save(any(User.class))).thenReturn(savedUser);
+        when(roleRegistry.findByName("USER")).thenReturn(Optional.of(defaultRole));
+        when(authStore.saveUser(any(User.class))).thenReturn(savedUser);
         when(userMapper.toResponse(any(User.class))).thenReturn(expectedResponse);
 
         // When
@@ -339,7 +347,7 @@ class AuthServiceRegistrationTest {
 
         // Then
         ArgumentCaptor<User> userCaptor = ArgumentCaptor.forClass(User.class);
-        verify(userRepository).save(userCaptor.capture());
+        verify(authStore).saveUser(userCaptor.capture());
         User savedUserArg = userCaptor.getValue();
 
         assertThat(savedUserArg.getEmail()).isEqualTo("john@example.com");
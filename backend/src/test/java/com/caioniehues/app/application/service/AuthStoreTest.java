@@ -0,0 +1,80 @@
+package com.caioniehues.app.application.service;
+
+import com.caioniehues.app.domain.user.RefreshToken;
+import com.caioniehues.app.domain.user.User;
+import com.caioniehues.app.infrastructure.persistence.RefreshTokenRepository;
+import com.caioniehues.app.infrastructure.persistence.UserRepository;
+import com.caioniehues.app.infrastructure.security.TokenDigest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Auth Store Tests")
+class AuthStoreTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @InjectMocks
+    private AuthStore authStore;
+
+    @Test
+    @DisplayName("Should revoke existing refresh tokens before saving the new one in a new family")
+    void startSession_ShouldReplaceRefreshTokens() {
+        // Given
+        UUID userId = UUID.randomUUID();
+        User user = User.builder().username("john.doe@example.com").email("john.doe@example.com").build();
+        when(userRepository.getReferenceById(userId)).thenReturn(user);
+
+        // When
+        authStore.startSession(userId, "new-refresh");
+
+        // Then
+        InOrder order = inOrder(refreshTokenRepository);
+        order.verify(refreshTokenRepository).revokeAllValidTokensForUser(eq(userId), any(Instant.class));
+        ArgumentCaptor<RefreshToken> tokenCaptor = ArgumentCaptor.forClass(RefreshToken.class);
+        order.verify(refreshTokenRepository).save(tokenCaptor.capture());
+
+        RefreshToken saved = tokenCaptor.getValue();
+        assertThat(saved.getTokenHash()).isEqualTo(TokenDigest.sha256("new-refresh"));
+        assertThat(saved.getUser()).isSameAs(user);
+        assertThat(saved.getFamilyId()).isNotNull();
+        assertThat(saved.isRevoked()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should save a successor token in the given family")
+    void saveRefreshToken_ShouldKeepFamily() {
+        // Given
+        UUID userId = UUID.randomUUID();
+        UUID familyId = UUID.randomUUID();
+
+        // When
+        authStore.saveRefreshToken("successor", userId, familyId);
+
+        // Then
+        ArgumentCaptor<RefreshToken> tokenCaptor = ArgumentCaptor.forClass(RefreshToken.class);
+        verify(refreshTokenRepository).save(tokenCaptor.capture());
+        assertThat(tokenCaptor.getValue().getFamilyId()).isEqualTo(familyId);
+        assertThat(tokenCaptor.getValue().getExpiresAt()).isAfter(Instant.now());
+    }
+}
@@ -1,5 +1,6 @@
 package com.caioniehues.app.domain.user;
 
+import com.caioniehues.app.infrastructure.security.TokenDigest;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -24,7 +25,7 @@ class RefreshTokenTest {
             .build();
 
         refreshToken = RefreshToken.builder()
-            .token("test-token-value")
+            .tokenHash(TokenDigest.sha256("test-token-value"))
             .user(user)
             .expiresAt(Instant.now().plus(7, ChronoUnit.DAYS))
             .build();
@@ -33,7 +34,7 @@ class RefreshTokenTest {
     @Test
     @DisplayName("Should create refresh token with default values")
     void shouldCreateRefreshTokenWithDefaultValues() {
-        assertThat(refreshToken.getToken()).isEqualTo("test-token-value");
+        assertThat(refreshToken.getTokenHash()).isEqualTo(TokenDigest.sha256("test-token-value"));
         assertThat(refreshToken.getUser()).isEqualTo(user);
         assertThat(refreshToken.isRevoked()).isFalse();
         assertThat(refreshToken.getRevokedAt()).isNull();
@@ -44,7 +45,7 @@ class RefreshTokenTest {
     @DisplayName("Should detect expired token")
     void shouldDetectExpiredToken() {
         RefreshToken expiredToken = RefreshToken.builder()
-            .token("expired-token")
+            .tokenHash(TokenDigest.sha256("expired-token"))
             .user(user)
             .expiresAt(Instant.now().minus(1, ChronoUnit.HOURS))
             .build();
@@ -65,7 +66,7 @@ class RefreshTokenTest {
 
         // Expired token
         RefreshToken expiredToken = RefreshToken.builder()
-            .token("expired-token")
+            .tokenHash(TokenDigest.sha256("expired-token"))
             .user(user)
             .expiresAt(Instant.now().minus(1, ChronoUnit.HOURS))
             .build();
@@ -1,5 +1,6 @@
 package com.caioniehues.app.domain.user;
 
+import com.caioniehues.app.infrastructure.security.TokenDigest;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -129,7 +130,7 @@ class UserTest {
     void shouldExcludeSensitiveDataFromToString() {
         user.addRole(adminRole);
         RefreshToken token = RefreshToken.builder()
-            .token("secret-token")
+            .tokenHash(TokenDigest.sha256("secret-token"))
             .user(user)
             .expiresAt(Instant.now().plusSeconds(3600))
             .build();
@@ -142,4 +143,17 @@ class UserTest {
         assertThat(toString).contains("testuser");
         assertThat(toString).contains("test@example.com");
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should report loaded and current logins as cache keys")
+    void shouldReportLoadedAndCurrentLoginsAsCacheKeys() {
+        // Given
+        user.rememberLoadedLogins();
+
+        // When
+        user.setEmail("new@example.com");
+
+        // Then
+        assertThat(user.cacheKeys()).containsExactly("testuser", "new@example.com", "test@example.com");
+    }
+}
@@ -0,0 +1,181 @@
+package com.caioniehues.app.infrastructure.messaging;
+
+import com.caioniehues.app.infrastructure.persistence.RecentInvalidations;
+import com.caioniehues.app.infrastructure.persistence.RoleRegistry;
+import com.caioniehues.app.infrastructure.security.JwtService;
+import com.caioniehues.app.infrastructure.security.RevokedTokenIndex;
+import com.caioniehues.app.infrastructure.security.UserTokenStatusCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Invalidation Event Handler Tests")
+class InvalidationEventHandlerTest {
+
+    @Mock
+    private RevokedTokenIndex revokedTokenIndex;
+
+    @Mock
+    private JwtService jwtService;
+
+    @Mock
+    private UserTokenStatusCache userTokenStatusCache;
+
+    @Mock
+    private ObjectProvider<CacheManager> cacheManagerProvider;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private Cache userDetailsCache;
+
+    @Mock
+    private RoleRegistry roleRegistry;
+
+    @Mock
+    private RecentInvalidations recentInvalidations;
+
+    private InvalidationEventHandler invalidationEventHandler;
+
+    @BeforeEach
+    void setUp() {
+        invalidationEventHandler = new InvalidationEventHandler(
+            revokedTokenIndex, jwtService, userTokenStatusCache, cacheManagerProvider, roleRegistry, recentInvalidations);
+    }
+
+    @Test
+    @DisplayName("Should add revoked JTI to the index and evict it from the verified token cache")
+    void tokenRevoked_ShouldUpdateIndexAndEvictToken() {
+        // When
+        invalidationEventHandler.apply(InvalidationEvent.tokenRevoked("revoked-jti"));
+
+        // Then
+        verify(recentInvalidations).record("revoked-jti");
+        verify(revokedTokenIndex).add("revoked-jti");
+        verify(jwtService).evictJti("revoked-jti");
+    }
+
+    @Test
+    @DisplayName("Should forget cached token status when sessions are revoked")
+    void sessionsRevoked_ShouldInvalidateTokenStatus() {
+        // Given
+        UUID userId = UUID.randomUUID();
+
+        // When
+        invalidationEventHandler.apply(InvalidationEvent.sessionsRevoked(userId, List.of("john", "john@example.com")));
+
+        // Then
+        verify(userTokenStatusCache).invalidate(userId);
+        verifyNoInteractions(revokedTokenIndex);
+    }
+
+    @Test
+    @DisplayName("Should evict user details under both username and email when the user changes")
+    void userChanged_ShouldEvictUserDetails() {
+        // Given
+        UUID userId = UUID.randomUUID();
+        when(cacheManagerProvider.getIfAvailable()).thenReturn(cacheManager);
+        when(cacheManager.getCache("userDetails")).thenReturn(userDetailsCache);
+
+        // When
+        invalidationEventHandler.apply(InvalidationEvent.userChanged(userId, List.of("john", "john@example.com")));
+
+        // Then
+        verify(userTokenStatusCache).invalidate(userId);
+        verify(userDetailsCache).evict("john");
+        verify(userDetailsCache).evict("john@example.com");
+    }
+
+    @Test
+    @DisplayName("Should evict the old login when a user's email changes")
+    void userChanged_WithChangedEmail_ShouldEvictOldAndNewLogins() {
+        // Given
+        UUID userId = UUID.randomUUID();
+        when(cacheManagerProvider.getIfAvailable()).thenReturn(cacheManager);
+        when(cacheManager.getCache("userDetails")).thenReturn(userDetailsCache);
+
+        // When
+        invalidationEventHandler.apply(InvalidationEvent.userChanged(
+            userId, List.of("john", "john@new.example.com", "john@example.com")));
+
+        // Then
+        verify(userDetailsCache).evict("john@new.example.com");
+        verify(userDetailsCache).evict("john@example.com");
+    }
+
+    @Test
+    @DisplayName("Should evict user details under the login keys when sessions are revoked for a mixed-case login")
+    void sessionsRevoked_WithMixedCaseLogins_ShouldEvictLoginKeys() {
+        // Given
+        UUID userId = UUID.randomUUID();
+        when(cacheManagerProvider.getIfAvailable()).thenReturn(cacheManager);
+        when(cacheManager.getCache("userDetails")).thenReturn(userDetailsCache);
+
+        // When
+        invalidationEventHandler.apply(InvalidationEvent.sessionsRevoked(userId, List.of("JohnDoe", " John@Example.com")));
+
+        // Then
+        verify(recentInvalidations).record(userId);
+        verify(recentInvalidations).record("johndoe");
+        verify(recentInvalidations).record("john@example.com");
+        verify(userDetailsCache).evict("johndoe");
+        verify(userDetailsCache).evict("john@example.com");
+    }
+
+    @Test
+    @DisplayName("Should reload roles and drop all user details when a role changes")
+    void rolesChanged_ShouldReloadRolesAndClearUserDetails() {
+        // Given
+        when(cacheManagerProvider.getIfAvailable()).thenReturn(cacheManager);
+        when(cacheManager.getCache("userDetails")).thenReturn(userDetailsCache);
+
+        // When
+        invalidationEventHandler.apply(InvalidationEvent.rolesChanged());
+
+        // Then
+        verify(recentInvalidations).recordAll();
+        verify(roleRegistry).load();
+        verify(userDetailsCache).clear();
+        verifyNoInteractions(userTokenStatusCache);
+    }
+
+    @Test
+    @DisplayName("Should apply immediately when no transaction is active")
+    void applyAfterCommit_WithoutTransaction_ShouldApplyImmediately() {
+        // When
+        invalidationEventHandler.applyAfterCommit(InvalidationEvent.tokenRevoked("revoked-jti"));
+
+        // Then
+        verify(revokedTokenIndex).add("revoked-jti");
+    }
+
+    @Test
+    @DisplayName("Should round-trip events through their JSON payload")
+    void event_ShouldRoundTripThroughJson() throws Exception {
+        // Given
+        ObjectMapper objectMapper = new ObjectMapper();
+        InvalidationEvent event = InvalidationEvent.userChanged(UUID.randomUUID(), List.of("john", "john@example.com"));
+
+        // When
+        String payload = objectMapper.writeValueAsString(event);
+
+        // Then
+        assertThat(objectMapper.readValue(payload, InvalidationEvent.class)).isEqualTo(event);
+        assertThat(payload).doesNotContain("jti");
+    }
+}
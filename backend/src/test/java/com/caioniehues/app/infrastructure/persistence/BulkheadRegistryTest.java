@@ -0,0 +1,296 @@
+package com.caioniehues.app.infrastructure.persistence;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.data.repository.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("Bulkhead Registry Tests")
+class BulkheadRegistryTest {
+
+    private static BulkheadRegistry registry(boolean enabled) {
+        return new BulkheadRegistry(new BulkheadProperties(enabled, Duration.ofSeconds(2),
+            new BulkheadProperties.Pool(4, Duration.ofMillis(50)),
+            Map.of(
+                WorkloadClass.AUTH, new BulkheadProperties.Pool(2, Duration.ofMillis(50)),
+                WorkloadClass.MAINTENANCE, new BulkheadProperties.Pool(1, Duration.ZERO))));
+    }
+
+    private static <T> T proxy(T target, BulkheadRegistry bulkheads) {
+        ProxyFactory proxyFactory = new ProxyFactory(target);
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvice(new BulkheadInterceptor(bulkheads));
+        @SuppressWarnings("unchecked")
+        T proxy = (T) proxyFactory.getProxy();
+        return proxy;
+    }
+
+    @Test
+    @DisplayName("Should turn calls away once the pool is used up")
+    void acquire_WhenFull_ShouldFailFast() {
+        // Given
+        BulkheadRegistry bulkheads = registry(true);
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        executor.submit(() -> {
+            bulkheads.acquire(WorkloadClass.MAINTENANCE);
+            held.countDown();
+            done.await();
+            bulkheads.release(WorkloadClass.MAINTENANCE);
+            return null;
+        });
+
+        try {
+            // When / Then
+            assertThat(awaitQuietly(held)).isTrue();
+            assertThatThrownBy(() -> bulkheads.acquire(WorkloadClass.MAINTENANCE))
+                .isInstanceOf(BulkheadFullException.class)
+                .satisfies(e -> {
+                    BulkheadFullException full = (BulkheadFullException) e;
+                    assertThat(full.getWorkloadClass()).isEqualTo(WorkloadClass.MAINTENANCE);
+                    assertThat(full.getRetryAfter()).isEqualTo(Duration.ofSeconds(2));
+                });
+        } finally {
+            done.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep the auth pool free while maintenance is saturated")
+    void saturatedMaintenance_ShouldNotAffectAuth() {
+        // Given
+        BulkheadRegistry bulkheads = registry(true);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            CompletableFuture.runAsync(() -> bulkheads.acquire(WorkloadClass.MAINTENANCE), executor).join();
+        }
+
+        // When
+        boolean acquired = bulkheads.acquire(WorkloadClass.AUTH);
+
+        // Then
+        assertThat(acquired).isTrue();
+        assertThat(bulkheads.availablePermits(WorkloadClass.MAINTENANCE)).isZero();
+        assertThat(bulkheads.availablePermits(WorkloadClass.AUTH)).isEqualTo(1);
+        bulkheads.release(WorkloadClass.AUTH);
+        assertThat(bulkheads.availablePermits(WorkloadClass.AUTH)).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should give classes without a pool the default pool")
+    void unconfiguredClass_ShouldUseDefaultPool() {
+        // Given
+        BulkheadRegistry bulkheads = new BulkheadRegistry(new BulkheadProperties(true, Duration.ofSeconds(2),
+            new BulkheadProperties.Pool(4, Duration.ofMillis(50)),
+            Map.of(WorkloadClass.AUTH, new BulkheadProperties.Pool(2, Duration.ofMillis(50)))));
+
+        // Then
+        assertThat(bulkheads.availablePermits(WorkloadClass.AUTH)).isEqualTo(2);
+        assertThat(bulkheads.availablePermits(WorkloadClass.DEFAULT)).isEqualTo(4);
+        assertThat(bulkheads.availablePermits(WorkloadClass.MAINTENANCE)).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Should not take a second permit on a thread that holds one")
+    void nestedCall_ShouldReuseOuterPermit() {
+        // Given
+        BulkheadRegistry bulkheads = registry(true);
+        AuthWork auth = proxy(new AuthWork(bulkheads), bulkheads);
+
+        // When
+        int maintenanceFreeInside = auth.outer(proxy(new MaintenanceWork(), bulkheads));
+
+        // Then
+        assertThat(maintenanceFreeInside).isEqualTo(1);
+        assertThat(bulkheads.availablePermits(WorkloadClass.AUTH)).isEqualTo(2);
+        assertThat(bulkheads.availablePermits(WorkloadClass.MAINTENANCE)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should return the permit when the call throws")
+    void failingCall_ShouldReleasePermit() {
+        // Given
+        BulkheadRegistry bulkheads = registry(true);
+        MaintenanceWork maintenance = proxy(new MaintenanceWork(), bulkheads);
+
+        // When
+        assertThatThrownBy(maintenance::fail).isInstanceOf(IllegalStateException.class);
+
+        // Then
+        assertThat(bulkheads.availablePermits(WorkloadClass.MAINTENANCE)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should run work handed to the registry inside the bulkhead")
+    void call_ShouldHoldPermitWhileRunning() {
+        // Given
+        BulkheadRegistry bulkheads = registry(true);
+
+        // When
+        int authFreeInside = bulkheads.call(WorkloadClass.AUTH,
+            () -> bulkheads.availablePermits(WorkloadClass.AUTH));
+
+        // Then
+        assertThat(authFreeInside).isEqualTo(1);
+        assertThat(bulkheads.availablePermits(WorkloadClass.AUTH)).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should return the permit of handed work when it throws")
+    void call_WhenWorkThrows_ShouldReleasePermit() {
+        // Given
+        BulkheadRegistry bulkheads = registry(true);
+
+        // When
+        assertThatThrownBy(() -> bulkheads.call(WorkloadClass.AUTH, () -> {
+            throw new IllegalStateException("query failed");
+        })).isInstanceOf(IllegalStateException.class);
+
+        // Then
+        assertThat(bulkheads.availablePermits(WorkloadClass.AUTH)).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should let a method annotation override its class")
+    void methodAnnotation_ShouldOverrideClassAnnotation() throws NoSuchMethodException {
+        // Then
+        assertThat(BulkheadInterceptor.resolve(MaintenanceWork.class.getMethod("audit"), MaintenanceWork.class))
+            .contains(WorkloadClass.AUTH);
+        assertThat(BulkheadInterceptor.resolve(MaintenanceWork.class.getMethod("run"), MaintenanceWork.class))
+            .contains(WorkloadClass.MAINTENANCE);
+        assertThat(BulkheadInterceptor.resolve(Object.class.getMethod("hashCode"), Object.class))
+            .isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should put unannotated repository and transactional methods in the default bulkhead")
+    void unannotatedDatabaseWork_ShouldUseDefaultClass() throws NoSuchMethodException {
+        // Then
+        assertThat(BulkheadInterceptor.resolve(WidgetRepository.class.getMethod("findAll"), WidgetRepository.class))
+            .contains(WorkloadClass.DEFAULT);
+        assertThat(BulkheadInterceptor.resolve(ReportWork.class.getMethod("report"), ReportWork.class))
+            .contains(WorkloadClass.DEFAULT);
+        assertThat(BulkheadInterceptor.resolve(ReportWork.class.getMethod("render"), ReportWork.class))
+            .isEmpty();
+        assertThat(BulkheadInterceptor.resolve(MaintenanceWork.class.getMethod("run"), MaintenanceWork.class))
+            .contains(WorkloadClass.MAINTENANCE);
+    }
+
+    @Test
+    @DisplayName("Should run default work inside another bulkhead on the outer permit")
+    void defaultWorkInsideAuth_ShouldNotTakeDefaultPermit() {
+        // Given
+        BulkheadRegistry bulkheads = registry(true);
+        ReportWork report = proxy(new ReportWork(bulkheads), bulkheads);
+
+        // When
+        int defaultFreeInside = bulkheads.call(WorkloadClass.AUTH, report::report);
+        int defaultFreeAlone = report.report();
+
+        // Then
+        assertThat(defaultFreeInside).isEqualTo(4);
+        assertThat(defaultFreeAlone).isEqualTo(3);
+        assertThat(bulkheads.availablePermits(WorkloadClass.DEFAULT)).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Should admit every call when disabled")
+    void disabled_ShouldNotTakePermits() {
+        // Given
+        BulkheadRegistry bulkheads = registry(false);
+
+        // Then
+        assertThat(bulkheads.acquire(WorkloadClass.MAINTENANCE)).isFalse();
+        assertThat(bulkheads.acquire(WorkloadClass.MAINTENANCE)).isFalse();
+        assertThat(bulkheads.availablePermits(WorkloadClass.MAINTENANCE)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should reject pools without permits")
+    void poolWithoutPermits_ShouldBeRejected() {
+        assertThatThrownBy(() -> new BulkheadRegistry(new BulkheadProperties(true, Duration.ofSeconds(1),
+            new BulkheadProperties.Pool(0, Duration.ZERO), Map.of())))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static boolean awaitQuietly(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @Bulkhead(WorkloadClass.AUTH)
+    static class AuthWork {
+
+        private final BulkheadRegistry bulkheads;
+
+        AuthWork(BulkheadRegistry bulkheads) {
+            this.bulkheads = bulkheads;
+        }
+
+        public int outer(MaintenanceWork maintenance) {
+            assertThat(bulkheads.availablePermits(WorkloadClass.AUTH)).isEqualTo(1);
+            return maintenance.free(bulkheads);
+        }
+    }
+
+    @Bulkhead(WorkloadClass.MAINTENANCE)
+    static class MaintenanceWork {
+
+        public void run() {
+        }
+
+        public int free(BulkheadRegistry bulkheads) {
+            return bulkheads.availablePermits(WorkloadClass.MAINTENANCE);
+        }
+
+        public void fail() {
+            throw new IllegalStateException("query failed");
+        }
+
+        @Bulkhead(WorkloadClass.AUTH)
+        public void audit() {
+        }
+    }
+
+    interface WidgetRepository extends Repository<Object, Long> {
+
+        List<Object> findAll();
+    }
+
+    static class ReportWork {
+
+        private final BulkheadRegistry bulkheads;
+
+        ReportWork(BulkheadRegistry bulkheads) {
+            this.bulkheads = bulkheads;
+        }
+
+        @Transactional(readOnly = true)
+        public int report() {
+            return bulkheads.availablePermits(WorkloadClass.DEFAULT);
+        }
+
+        @Transactional(propagation = Propagation.NOT_SUPPORTED)
+        public void render() {
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package com.caioniehues.app.infrastructure.persistence;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Two independent databases stand in for a primary and its replica; each holds a row naming
+ * itself, so every read shows where it was routed.
+ */
+@Testcontainers
+@DisplayName("Read Replica Routing DataSource Tests")
+class ReadReplicaRoutingDataSourceTest {
+
+    @Container
+    static PostgreSQLContainer<?> primary = new PostgreSQLContainer<>("postgres:15-alpine")
+        .withDatabaseName("testdb")
+        .withUsername("test")
+        .withPassword("test");
+
+    @Container
+    static PostgreSQLContainer<?> replica = new PostgreSQLContainer<>("postgres:15-alpine")
+        .withDatabaseName("testdb")
+        .withUsername("test")
+        .withPassword("test");
+
+    private static DataSource primaryDataSource;
+    private static DataSource replicaDataSource;
+    private static final DataSource UNREACHABLE =
+        new DriverManagerDataSource("jdbc:postgresql://localhost:1/testdb?connectTimeout=1", "test", "test");
+
+    @BeforeAll
+    static void createMarkers() {
+        primaryDataSource = dataSource(primary);
+        replicaDataSource = dataSource(replica);
+        for (DataSource dataSource : List.of(primaryDataSource, replicaDataSource)) {
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            jdbcTemplate.execute("CREATE TABLE server (name VARCHAR(16) NOT NULL)");
+            jdbcTemplate.update("INSERT INTO server (name) VALUES (?)", dataSource == primaryDataSource ? "primary" : "replica");
+        }
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    private static DataSource dataSource(PostgreSQLContainer<?> container) {
+        return new DriverManagerDataSource(container.getJdbcUrl(), container.getUsername(), container.getPassword());
+    }
+
+    private static ReadReplicaRoutingDataSource router(List<DataSource> replicas, Duration readYourWritesWindow) {
+        return new ReadReplicaRoutingDataSource(primaryDataSource, replicas, Duration.ofSeconds(5), readYourWritesWindow, 1000);
+    }
+
+    /**
+     * Run one transaction against the routed data source.
+     *
+     * @return Name of the server that answered
+     */
+    private static String serverName(ReadReplicaRoutingDataSource router, boolean readOnly) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(router.writeTracking());
+        dataSource.setReadOnlyDataSource(router);
+        dataSource.setDefaultAutoCommit(true);
+        dataSource.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+
+        TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        transaction.setReadOnly(readOnly);
+        return transaction.execute(status ->
+            new JdbcTemplate(dataSource).queryForObject("SELECT name FROM server", String.class));
+    }
+
+    private static void authenticateAs(String username) {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+            username, null, List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+    }
+
+    @Test
+    @DisplayName("Should send read-only transactions to the replica and others to the primary")
+    void transactions_ShouldBeRoutedByReadOnlyFlag() {
+        // Given
+        ReadReplicaRoutingDataSource router = router(List.of(replicaDataSource), Duration.ZERO);
+
+        // Then
+        assertThat(router.availableReplicas()).isEqualTo(1);
+        assertThat(serverName(router, true)).isEqualTo("replica");
+        assertThat(serverName(router, false)).isEqualTo("primary");
+    }
+
+    @Test
+    @DisplayName("Should read from the primary while the replica lags too far behind")
+    void laggingReplica_ShouldFallBackToPrimary() {
+        // Given
+        ReadReplicaRoutingDataSource router = router(List.of(replicaDataSource), Duration.ZERO);
+
+        // When
+        router.recordLag(0, 30);
+
+        // Then
+        assertThat(router.availableReplicas()).isZero();
+        assertThat(serverName(router, true)).isEqualTo("primary");
+
+        // When - the next probe finds it caught up
+        router.checkReplicas();
+
+        // Then
+        assertThat(serverName(router, true)).isEqualTo("replica");
+    }
+
+    @Test
+    @DisplayName("Should read from the primary when no replica is reachable")
+    void unreachableReplica_ShouldFallBackToPrimary() {
+        // Given
+        ReadReplicaRoutingDataSource router = router(List.of(UNREACHABLE), Duration.ZERO);
+
+        // Then
+        assertThat(router.availableReplicas()).isZero();
+        assertThat(serverName(router, true)).isEqualTo("primary");
+    }
+
+    @Test
+    @DisplayName("Should skip a replica that fails between probes")
+    void replicaFailingBetweenProbes_ShouldBeSkipped() {
+        // Given - the probe last saw both replicas healthy
+        ReadReplicaRoutingDataSource router = router(List.of(UNREACHABLE, replicaDataSource), Duration.ZERO);
+        router.recordLag(0, 0);
+
+        // When
+        String first = serverName(router, true);
+        String second = serverName(router, true);
+
+        // Then
+        assertThat(first).isEqualTo("replica");
+        assertThat(second).isEqualTo("replica");
+        assertThat(router.availableReplicas()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should let a session read its own writes from the primary")
+    void readYourWrites_ShouldPinWritingSessionToPrimary() {
+        // Given
+        ReadReplicaRoutingDataSource router = router(List.of(replicaDataSource), Duration.ofMinutes(1));
+
+        // When - alice writes, bob does not
+        authenticateAs("alice");
+        serverName(router, false);
+        String aliceReadsFrom = serverName(router, true);
+        authenticateAs("bob");
+        String bobReadsFrom = serverName(router, true);
+
+        // Then
+        assertThat(aliceReadsFrom).isEqualTo("primary");
+        assertThat(bobReadsFrom).isEqualTo("replica");
+    }
+
+    @Test
+    @DisplayName("Should not track writes made outside of a session")
+    void writeWithoutSession_ShouldNotPinReads() {
+        // Given
+        ReadReplicaRoutingDataSource router = router(List.of(replicaDataSource), Duration.ofMinutes(1));
+
+        // When
+        serverName(router, false);
+
+        // Then
+        assertThat(ReadReplicaRoutingDataSource.currentSession()).isNull();
+        assertThat(serverName(router, true)).isEqualTo("replica");
+    }
+
+    @Test
+    @DisplayName("Should not pin a session for statements that commit nothing")
+    void autocommitStatement_ShouldNotPinReads() {
+        // Given
+        ReadReplicaRoutingDataSource router = router(List.of(replicaDataSource), Duration.ofMinutes(1));
+        authenticateAs("carol");
+
+        // When - e.g. a rate limiter update in autocommit mode
+        new JdbcTemplate(router.writeTracking()).queryForObject("SELECT name FROM server", String.class);
+
+        // Then
+        assertThat(serverName(router, true)).isEqualTo("replica");
+    }
+
+    @Test
+    @DisplayName("Should not pin anonymous requests, which may share a client address")
+    void anonymousWrite_ShouldNotPinReads() {
+        // Given
+        ReadReplicaRoutingDataSource router = router(List.of(replicaDataSource), Duration.ofMinutes(1));
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+
+        // When
+        serverName(router, false);
+
+        // Then
+        assertThat(ReadReplicaRoutingDataSource.currentSession()).isNull();
+        assertThat(serverName(router, true)).isEqualTo("replica");
+    }
+
+    @Test
+    @DisplayName("Should read from the primary inside a @ReadFromPrimary call")
+    void readFromPrimary_ShouldBypassReplicas() {
+        // Given
+        ReadReplicaRoutingDataSource router = router(List.of(replicaDataSource), Duration.ZERO);
+        ProxyFactory proxyFactory = new ProxyFactory((Supplier<String>) () -> serverName(router, true));
+        proxyFactory.addAdvice(new ReadFromPrimaryInterceptor());
+        @SuppressWarnings("unchecked")
+        Supplier<String> readFromPrimary = (Supplier<String>) proxyFactory.getProxy();
+
+        // When
+        String insideCall = readFromPrimary.get();
+        String afterCall = serverName(router, true);
+
+        // Then
+        assertThat(insideCall).isEqualTo("primary");
+        assertThat(afterCall).isEqualTo("replica");
+    }
+
+    @Test
+    @DisplayName("Should reload recently invalidated keys from the primary and other keys from the replica")
+    void recentInvalidations_ShouldOnlyPinInvalidatedKeys() {
+        // Given
+        ReadReplicaRoutingDataSource router = router(List.of(replicaDataSource), Duration.ZERO);
+        RecentInvalidations recentInvalidations = new RecentInvalidations(true, Duration.ofSeconds(5), Duration.ofSeconds(5), 1000);
+
+        // When
+        recentInvalidations.record("changed");
+
+        // Then
+        assertThat(recentInvalidations.read("changed", () -> serverName(router, true))).isEqualTo("primary");
+        assertThat(recentInvalidations.read("unchanged", () -> serverName(router, true))).isEqualTo("replica");
+        assertThat(serverName(router, true)).isEqualTo("replica");
+    }
+
+    @Test
+    @DisplayName("Should reload every key from the primary after everything was invalidated")
+    void recentInvalidations_AfterRecordAll_ShouldPinEveryKey() {
+        // Given
+        ReadReplicaRoutingDataSource router = router(List.of(replicaDataSource), Duration.ZERO);
+        RecentInvalidations recentInvalidations = new RecentInvalidations(true, Duration.ofSeconds(5), Duration.ofSeconds(5), 1000);
+
+        // When
+        recentInvalidations.recordAll();
+
+        // Then
+        assertThat(recentInvalidations.read("any", () -> serverName(router, true))).isEqualTo("primary");
+    }
+
+    @Test
+    @DisplayName("Should forget invalidations once every serving replica has replayed them")
+    void recentInvalidations_AfterWindow_ShouldReadFromReplica() throws InterruptedException {
+        // Given
+        ReadReplicaRoutingDataSource router = router(List.of(replicaDataSource), Duration.ZERO);
+        RecentInvalidations recentInvalidations = new RecentInvalidations(true, Duration.ofMillis(50), Duration.ofMillis(50), 1000);
+        recentInvalidations.record("changed");
+
+        // When
+        Thread.sleep(200);
+
+        // Then
+        assertThat(recentInvalidations.isRecent("changed")).isFalse();
+        assertThat(recentInvalidations.read("changed", () -> serverName(router, true))).isEqualTo("replica");
+    }
+}
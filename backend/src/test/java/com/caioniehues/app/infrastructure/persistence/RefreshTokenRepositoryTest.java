@@ -11,15 +11,26 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.context.annotation.Import;
 import com.caioniehues.app.config.JpaConfig;
+import com.caioniehues.app.infrastructure.security.TokenDigest;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -52,6 +63,9 @@ class RefreshTokenRepositoryTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     private User testUser;
     private RefreshToken validToken;
     private RefreshToken expiredToken;
@@ -75,14 +89,14 @@ class RefreshTokenRepositoryTest {
 
         // Create valid refresh token
         validToken = RefreshToken.builder()
-            .token(UUID.randomUUID().toString())
+            .tokenHash(TokenDigest.sha256(UUID.randomUUID().toString()))
             .user(testUser)
             .expiresAt(Instant.now().plus(7, ChronoUnit.DAYS))
             .build();
 
         // Create expired refresh token
         expiredToken = RefreshToken.builder()
-            .token(UUID.randomUUID().toString())
+            .tokenHash(TokenDigest.sha256(UUID.randomUUID().toString()))
             .user(testUser)
             .expiresAt(Instant.now().minus(1, ChronoUnit.DAYS))
             .build();
@@ -100,38 +114,25 @@ class RefreshTokenRepositoryTest {
 
         RefreshToken found = refreshTokenRepository.findById(saved.getId()).orElse(null);
         assertThat(found).isNotNull();
-        assertThat(found.getToken()).isEqualTo(validToken.getToken());
+        assertThat(found.getTokenHash()).isEqualTo(validToken.getTokenHash());
         assertThat(found.isRevoked()).isFalse();
     }
 
     @Test
-    @DisplayName("Should find refresh token by token string")
-    void shouldFindRefreshTokenByTokenString() {
+    @DisplayName("Should find refresh token by token hash")
+    void shouldFindRefreshTokenByTokenHash() {
         refreshTokenRepository.save(validToken);
         entityManager.flush();
         entityManager.clear();
 
-        var found = refreshTokenRepository.findByToken(validToken.getToken());
+        var found = refreshTokenRepository.findByTokenHash(validToken.getTokenHash());
         assertThat(found).isPresent();
         assertThat(found.get().getUser().getId()).isEqualTo(testUser.getId());
 
-        var notFound = refreshTokenRepository.findByToken("nonexistent-token");
+        var notFound = refreshTokenRepository.findByTokenHash(TokenDigest.sha256("nonexistent-token"));
         assertThat(notFound).isEmpty();
     }
 
-    @Test
-    @DisplayName("Should find refresh token with user")
-    void shouldFindRefreshTokenWithUser() {
-        refreshTokenRepository.save(validToken);
-        entityManager.flush();
-        entityManager.clear();
-
-        var found = refreshTokenRepository.findByTokenWithUser(validToken.getToken());
-        assertThat(found).isPresent();
-        assertThat(found.get().getUser()).isNotNull();
-        assertThat(found.get().getUser().getUsername()).isEqualTo("testuser");
-    }
-
     @Test
     @DisplayName("Should delete all tokens by user ID")
     void shouldDeleteAllTokensByUserId() {
@@ -147,7 +148,7 @@ class RefreshTokenRepositoryTest {
             .build());
 
         RefreshToken anotherToken = refreshTokenRepository.save(RefreshToken.builder()
-            .token(UUID.randomUUID().toString())
+            .tokenHash(TokenDigest.sha256(UUID.randomUUID().toString()))
             .user(anotherUser)
             .expiresAt(Instant.now().plus(7, ChronoUnit.DAYS))
             .build());
@@ -176,8 +177,8 @@ class RefreshTokenRepositoryTest {
         entityManager.flush();
 
         assertThat(refreshTokenRepository.count()).isEqualTo(1);
-        assertThat(refreshTokenRepository.findByToken(validToken.getToken())).isPresent();
-        assertThat(refreshTokenRepository.findByToken(expiredToken.getToken())).isEmpty();
+        assertThat(refreshTokenRepository.findByTokenHash(validToken.getTokenHash())).isPresent();
+        assertThat(refreshTokenRepository.findByTokenHash(expiredToken.getTokenHash())).isEmpty();
     }
 
     @Test
@@ -185,14 +186,14 @@ class RefreshTokenRepositoryTest {
     void shouldRevokeAllValidTokensForUser() {
         RefreshToken token1 = refreshTokenRepository.save(validToken);
         RefreshToken token2 = refreshTokenRepository.save(RefreshToken.builder()
-            .token(UUID.randomUUID().toString())
+            .tokenHash(TokenDigest.sha256(UUID.randomUUID().toString()))
             .user(testUser)
             .expiresAt(Instant.now().plus(7, ChronoUnit.DAYS))
             .build());
 
         // Already revoked token
         RefreshToken revokedToken = refreshTokenRepository.save(RefreshToken.builder()
-            .token(UUID.randomUUID().toString())
+            .tokenHash(TokenDigest.sha256(UUID.randomUUID().toString()))
             .user(testUser)
             .expiresAt(Instant.now().plus(7, ChronoUnit.DAYS))
             .revoked(true)
@@ -221,13 +222,13 @@ class RefreshTokenRepositoryTest {
     void shouldCountValidTokensForUser() {
         refreshTokenRepository.save(validToken);
         refreshTokenRepository.save(RefreshToken.builder()
-            .token(UUID.randomUUID().toString())
+            .tokenHash(TokenDigest.sha256(UUID.randomUUID().toString()))
             .user(testUser)
             .expiresAt(Instant.now().plus(7, ChronoUnit.DAYS))
             .build());
         refreshTokenRepository.save(expiredToken);
         refreshTokenRepository.save(RefreshToken.builder()
-            .token(UUID.randomUUID().toString())
+            .tokenHash(TokenDigest.sha256(UUID.randomUUID().toString()))
             .user(testUser)
             .expiresAt(Instant.now().plus(7, ChronoUnit.DAYS))
             .revoked(true)
@@ -242,4 +243,94 @@ class RefreshTokenRepositoryTest {
 
         assertThat(count).isEqualTo(2); // Only 2 valid, non-expired tokens
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should rotate a valid token exactly once")
+    void shouldRotateValidTokenExactlyOnce() {
+        refreshTokenRepository.save(validToken);
+        entityManager.flush();
+
+        var first = refreshTokenRepository.rotate(validToken.getTokenHash(), Instant.now());
+        var second = refreshTokenRepository.rotate(validToken.getTokenHash(), Instant.now());
+        entityManager.clear();
+
+        assertThat(first).isPresent();
+        assertThat(first.get().getUserId()).isEqualTo(testUser.getId());
+        assertThat(first.get().getFamilyId()).isEqualTo(validToken.getFamilyId());
+        assertThat(first.get().getUsername()).isEqualTo("testuser");
+        assertThat(second).isEmpty();
+        assertThat(refreshTokenRepository.findById(validToken.getId()).orElseThrow().isRevoked()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should let exactly one of two concurrent rotations of a token succeed")
+    void shouldRotateConcurrentlyExactlyOnce() throws Exception {
+        // The rotations run on their own threads, so the token is committed outside the test transaction
+        TransactionTemplate committed = new TransactionTemplate(transactionManager);
+        committed.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        User rotatingUser = committed.execute(status -> userRepository.save(User.builder()
+            .username("rotatinguser")
+            .email("rotating@example.com")
+            .passwordHash("hashedPassword")
+            .fullName("Rotating User")
+            .enabled(true)
+            .build()));
+        RefreshToken token = committed.execute(status -> refreshTokenRepository.save(RefreshToken.builder()
+            .tokenHash(TokenDigest.sha256(UUID.randomUUID().toString()))
+            .user(rotatingUser)
+            .expiresAt(Instant.now().plus(7, ChronoUnit.DAYS))
+            .build()));
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(2)) {
+            CountDownLatch start = new CountDownLatch(1);
+            Callable<Optional<RefreshTokenRotation>> rotation = () -> {
+                start.await();
+                return refreshTokenRepository.rotate(token.getTokenHash(), Instant.now());
+            };
+            Future<Optional<RefreshTokenRotation>> first = executor.submit(rotation);
+            Future<Optional<RefreshTokenRotation>> second = executor.submit(rotation);
+            start.countDown();
+
+            assertThat(Stream.of(first.get(), second.get()).filter(Optional::isPresent)).hasSize(1);
+        } finally {
+            committed.executeWithoutResult(status -> {
+                refreshTokenRepository.deleteAllByUserId(rotatingUser.getId());
+                userRepository.deleteById(rotatingUser.getId());
+            });
+        }
+    }
+
+    @Test
+    @DisplayName("Should not rotate an expired token")
+    void shouldNotRotateExpiredToken() {
+        refreshTokenRepository.save(expiredToken);
+        entityManager.flush();
+
+        assertThat(refreshTokenRepository.rotate(expiredToken.getTokenHash(), Instant.now())).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should revoke every token of a family")
+    void shouldRevokeFamily() {
+        RefreshToken sibling = refreshTokenRepository.save(RefreshToken.builder()
+            .tokenHash(TokenDigest.sha256(UUID.randomUUID().toString()))
+            .familyId(validToken.getFamilyId())
+            .user(testUser)
+            .expiresAt(Instant.now().plus(7, ChronoUnit.DAYS))
+            .build());
+        refreshTokenRepository.save(validToken);
+        RefreshToken otherFamily = refreshTokenRepository.save(RefreshToken.builder()
+            .tokenHash(TokenDigest.sha256(UUID.randomUUID().toString()))
+            .user(testUser)
+            .expiresAt(Instant.now().plus(7, ChronoUnit.DAYS))
+            .build());
+        entityManager.flush();
+
+        int revoked = refreshTokenRepository.revokeFamily(validToken.getFamilyId(), Instant.now());
+        entityManager.clear();
+
+        assertThat(revoked).isEqualTo(2);
+        assertThat(refreshTokenRepository.findById(sibling.getId()).orElseThrow().isRevoked()).isTrue();
+        assertThat(refreshTokenRepository.findById(otherFamily.getId()).orElseThrow().isRevoked()).isFalse();
+    }
+}
@@ -0,0 +1,63 @@
+package com.caioniehues.app.infrastructure.persistence;
+
+import com.caioniehues.app.domain.user.Role;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Role Registry Tests")
+class RoleRegistryTest {
+
+    @Mock
+    private RoleRepository roleRepository;
+
+    private RoleRegistry roleRegistry;
+
+    private final Role userRole = Role.builder().name("USER").build();
+
+    @BeforeEach
+    void setUp() {
+        roleRegistry = new RoleRegistry(roleRepository);
+    }
+
+    @Test
+    @DisplayName("Should answer loaded roles from memory")
+    void loadedRole_ShouldNotQueryDatabase() {
+        // Given
+        when(roleRepository.findAll()).thenReturn(List.of(userRole));
+        roleRegistry.load();
+
+        // When
+        Optional<Role> role = roleRegistry.findByName("USER");
+
+        // Then
+        assertThat(role).contains(userRole);
+        verify(roleRepository, never()).findByName(anyString());
+    }
+
+    @Test
+    @DisplayName("Should look up and keep roles created after the load")
+    void unknownRole_ShouldBeLoadedOnce() {
+        // Given
+        when(roleRepository.findByName("USER")).thenReturn(Optional.of(userRole));
+
+        // When
+        roleRegistry.findByName("USER");
+        Optional<Role> role = roleRegistry.findByName("USER");
+
+        // Then
+        assertThat(role).contains(userRole);
+        verify(roleRepository, times(1)).findByName("USER");
+    }
+}
@@ -0,0 +1,124 @@
+package com.caioniehues.app.infrastructure.persistence;
+
+import com.caioniehues.app.infrastructure.persistence.UserActivityRecorder.UserActivity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.web.context.WebServerGracefulShutdownLifecycle;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("User Activity Recorder Tests")
+class UserActivityRecorderTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private UserActivityRecorder recorder;
+
+    @BeforeEach
+    void setUp() {
+        recorder = new UserActivityRecorder(jdbcTemplate, 1_000);
+    }
+
+    @Test
+    @DisplayName("Should write all touches of a user as one row")
+    @SuppressWarnings("unchecked")
+    void flush_ShouldCoalesceTouchesPerUser() {
+        // Given
+        UUID userId = UUID.randomUUID();
+        UUID otherUserId = UUID.randomUUID();
+        recorder.recordFailedLogin(userId);
+        recorder.recordLogin(userId);
+        recorder.recordSeen(userId);
+        recorder.recordSeen(otherUserId);
+
+        // When
+        recorder.flush();
+
+        // Then
+        ArgumentCaptor<List<Map.Entry<UUID, UserActivity>>> batch = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), batch.capture(), eq(2), any(ParameterizedPreparedStatementSetter.class));
+        Map<UUID, UserActivity> rows = Map.ofEntries(batch.getValue().toArray(Map.Entry[]::new));
+        assertThat(rows.get(userId).lastLoginAt()).isNotNull();
+        assertThat(rows.get(userId).resetFailedLoginAttempts()).isTrue();
+        assertThat(rows.get(userId).failedLoginAttempts()).isZero();
+        assertThat(rows.get(otherUserId).lastLoginAt()).isNull();
+    }
+
+    @Test
+    @DisplayName("Should not touch the database when nothing is pending")
+    void flush_WithNothingPending_ShouldSkipDatabase() {
+        // When
+        recorder.flush();
+
+        // Then
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    @DisplayName("Should keep activity for the next flush when writing fails")
+    @SuppressWarnings("unchecked")
+    void flush_WhenWriteFails_ShouldRetryLater() {
+        // Given
+        UUID userId = UUID.randomUUID();
+        recorder.recordFailedLogin(userId);
+        when(jdbcTemplate.batchUpdate(anyString(), any(List.class), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+            .thenThrow(new QueryTimeoutException("timeout"))
+            .thenReturn(new int[][]{{1}});
+        recorder.flush();
+        recorder.recordFailedLogin(userId);
+
+        // When
+        recorder.flush();
+
+        // Then
+        ArgumentCaptor<List<Map.Entry<UUID, UserActivity>>> batch = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), batch.capture(), anyInt(), any(ParameterizedPreparedStatementSetter.class));
+        assertThat(batch.getValue()).singleElement()
+            .satisfies(entry -> assertThat(entry.getValue().failedLoginAttempts()).isEqualTo(2));
+    }
+
+    @Test
+    @DisplayName("Should count failures after a successful login from zero")
+    void then_ShouldApplyResetBeforeLaterFailures() {
+        // Given
+        Instant loginAt = Instant.now();
+        UserActivity failures = new UserActivity(null, null, false, 3);
+        UserActivity login = new UserActivity(loginAt, loginAt, true, 0);
+        UserActivity failure = new UserActivity(null, null, false, 1);
+
+        // When
+        UserActivity merged = failures.then(login).then(failure);
+
+        // Then
+        assertThat(merged.resetFailedLoginAttempts()).isTrue();
+        assertThat(merged.failedLoginAttempts()).isEqualTo(1);
+        assertThat(merged.lastLoginAt()).isEqualTo(loginAt);
+    }
+
+    @Test
+    @DisplayName("Should drain after the web server has finished in-flight requests")
+    void phase_ShouldStopAfterGracefulShutdown() {
+        // Lifecycles stop in descending phase order
+        assertThat(recorder.getPhase()).isLessThan(WebServerGracefulShutdownLifecycle.SMART_LIFECYCLE_PHASE);
+    }
+}
@@ -19,6 +19,7 @@ import org.testcontainers.junit.jupiter.Testcontainers;
 
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
+import java.util.List;
 import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -149,6 +150,55 @@ class UserRepositoryTest {
         assertThat(userRepository.existsByEmail("nonexistent@example.com")).isFalse();
     }
 
+    @Test
+    @DisplayName("Should check username and email login keys in one query")
+    void shouldCheckIfUserExistsByUsernameOrEmailKey() {
+        userRepository.save(testUser);
+        entityManager.flush();
+
+        assertThat(userRepository.existsByUsernameKeyOrEmailKey("testuser", "other@example.com")).isTrue();
+        assertThat(userRepository.existsByUsernameKeyOrEmailKey("other", "test@example.com")).isTrue();
+        assertThat(userRepository.existsByUsernameKeyOrEmailKey("other", "other@example.com")).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should find user with roles by username or email ignoring case")
+    void shouldFindUserWithRolesByLoginKey() {
+        testUser.setEmail("Test@Example.com");
+        testUser.addRole(adminRole);
+        userRepository.save(testUser);
+        entityManager.flush();
+        entityManager.clear();
+
+        List<User> byUsername = userRepository.findByLoginKeyWithRoles(User.toLoginKey(" TestUser "));
+        List<User> byEmail = userRepository.findByLoginKeyWithRoles(User.toLoginKey("TEST@example.com"));
+
+        assertThat(byUsername).singleElement().satisfies(user -> assertThat(user.getRoles()).hasSize(1));
+        assertThat(byEmail).singleElement().satisfies(user -> assertThat(user.getEmail()).isEqualTo("Test@Example.com"));
+        assertThat(userRepository.findByLoginKeyWithRoles("unknown")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should reject logins that differ only in case")
+    void shouldRejectDuplicateLoginKey() {
+        userRepository.save(testUser);
+        entityManager.flush();
+        entityManager.clear();
+
+        User duplicateUsername = User.builder()
+            .username("TESTUSER")
+            .email("other@example.com")
+            .passwordHash("password")
+            .fullName("Other User")
+            .build();
+
+        userRepository.save(duplicateUsername);
+
+        assertThatThrownBy(() -> entityManager.flush())
+            .isInstanceOf(Exception.class)
+            .hasMessageContaining("constraint");
+    }
+
     @Test
     @DisplayName("Should find user with roles by username")
     void shouldFindUserWithRolesByUsername() {
@@ -0,0 +1,93 @@
+package com.caioniehues.app.infrastructure.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Adaptive Concurrency Limit Filter Tests")
+class AdaptiveConcurrencyLimitFilterTest {
+
+    @Mock
+    private FilterChain filterChain;
+
+    private AdaptiveConcurrencyLimit limit;
+    private AdaptiveConcurrencyLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        limit = new AdaptiveConcurrencyLimit(4, 4, 4, 0.2, 1.5, Duration.ofSeconds(1).toNanos(), 10, 0.25, System.nanoTime());
+        RoutePolicyRegistry routePolicies = new RoutePolicyRegistry(
+            new RoutePolicyProperties(List.of(), List.of(), List.of("/api/health")), "");
+        filter = new AdaptiveConcurrencyLimitFilter(limit, routePolicies, new ProblemResponseWriter(), true, Duration.ofSeconds(2));
+    }
+
+    private MockHttpServletResponse perform(String path) throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.setServletPath(path);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, filterChain);
+        return response;
+    }
+
+    @Test
+    @DisplayName("Should pass requests through and release their slot")
+    void requestWithinLimit_ShouldPassAndRelease() throws ServletException, IOException {
+        // When
+        MockHttpServletResponse response = perform("/api/v1/events");
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(limit.inFlight()).isZero();
+        verify(filterChain).doFilter(any(), any());
+    }
+
+    @Test
+    @DisplayName("Should shed requests over the limit with a fast 503")
+    void requestOverLimit_ShouldBeShed() throws ServletException, IOException {
+        // Given - the share open to normal traffic is taken
+        for (int i = 0; i < 3; i++) {
+            limit.tryAcquire(false);
+        }
+
+        // When
+        MockHttpServletResponse response = perform("/api/v1/events");
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(503);
+        assertThat(response.getHeader("Retry-After")).isEqualTo("2");
+        assertThat(response.getContentAsString()).contains("\"status\":503");
+        verify(filterChain, never()).doFilter(any(), any());
+    }
+
+    @Test
+    @DisplayName("Should admit priority requests from the reserved share")
+    void priorityRequest_ShouldUseReservedShare() throws ServletException, IOException {
+        // Given
+        for (int i = 0; i < 3; i++) {
+            limit.tryAcquire(false);
+        }
+
+        // When
+        MockHttpServletResponse response = perform("/api/health/ready");
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(200);
+        verify(filterChain).doFilter(any(), any());
+    }
+}
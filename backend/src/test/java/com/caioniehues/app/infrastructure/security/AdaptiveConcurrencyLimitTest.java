@@ -0,0 +1,129 @@
+package com.caioniehues.app.infrastructure.security;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Adaptive Concurrency Limit Tests")
+class AdaptiveConcurrencyLimitTest {
+
+    private static final long WINDOW = Duration.ofSeconds(1).toNanos();
+
+    private static AdaptiveConcurrencyLimit limit(int initialLimit) {
+        return new AdaptiveConcurrencyLimit(initialLimit, 4, 200, 0.5, 1.5, WINDOW, 10, 0.25, 0);
+    }
+
+    /**
+     * Run one full window of requests at the given concurrency and latency.
+     *
+     * @return Time at the end of the window
+     */
+    private static long runWindow(AdaptiveConcurrencyLimit limit, long startNanos, int concurrency, Duration latency) {
+        for (int i = 0; i < concurrency; i++) {
+            assertThat(limit.tryAcquire(true)).isTrue();
+        }
+        long end = startNanos + WINDOW;
+        for (int i = 0; i < concurrency; i++) {
+            limit.release(latency.toNanos(), end);
+        }
+        return end;
+    }
+
+    @Test
+    @DisplayName("Should reject requests beyond the limit")
+    void tryAcquire_AtLimit_ShouldReject() {
+        // Given
+        AdaptiveConcurrencyLimit limit = limit(8);
+
+        // When
+        for (int i = 0; i < 8; i++) {
+            limit.tryAcquire(true);
+        }
+
+        // Then
+        assertThat(limit.inFlight()).isEqualTo(8);
+        assertThat(limit.tryAcquire(true)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should keep a share of the limit for priority requests")
+    void tryAcquire_ShouldReserveShareForPriority() {
+        // Given
+        AdaptiveConcurrencyLimit limit = limit(8);
+        for (int i = 0; i < 6; i++) {
+            assertThat(limit.tryAcquire(false)).isTrue();
+        }
+
+        // Then
+        assertThat(limit.tryAcquire(false)).isFalse();
+        assertThat(limit.tryAcquire(true)).isTrue();
+        assertThat(limit.tryAcquire(true)).isTrue();
+        assertThat(limit.tryAcquire(true)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should grow while latency stays steady and the limit is in use")
+    void release_WithSteadyLatency_ShouldGrowLimit() {
+        // Given
+        AdaptiveConcurrencyLimit limit = limit(20);
+        long now = 0;
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            now = runWindow(limit, now, limit.limit(), Duration.ofMillis(20));
+        }
+
+        // Then
+        assertThat(limit.limit()).isGreaterThan(20);
+    }
+
+    @Test
+    @DisplayName("Should not grow while traffic stays well below the limit")
+    void release_WhenAppLimited_ShouldKeepLimit() {
+        // Given
+        AdaptiveConcurrencyLimit limit = limit(100);
+        long now = 0;
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            now = runWindow(limit, now, 10, Duration.ofMillis(20));
+        }
+
+        // Then
+        assertThat(limit.limit()).isEqualTo(100);
+    }
+
+    @Test
+    @DisplayName("Should shrink when latency rises")
+    void release_WithRisingLatency_ShouldShrinkLimit() {
+        // Given
+        AdaptiveConcurrencyLimit limit = limit(40);
+        long now = runWindow(limit, 0, 40, Duration.ofMillis(20));
+        int before = limit.limit();
+
+        // When - the database slows down tenfold
+        for (int i = 0; i < 5; i++) {
+            now = runWindow(limit, now, Math.min(limit.limit(), 40), Duration.ofMillis(200));
+        }
+
+        // Then
+        assertThat(limit.limit()).isLessThan(before * 3 / 4);
+        assertThat(limit.limit()).isGreaterThanOrEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Should not change the limit from too few samples")
+    void release_WithFewSamples_ShouldKeepLimit() {
+        // Given
+        AdaptiveConcurrencyLimit limit = limit(20);
+
+        // When
+        runWindow(limit, 0, 5, Duration.ofSeconds(5));
+
+        // Then
+        assertThat(limit.limit()).isEqualTo(20);
+    }
+}
@@ -0,0 +1,181 @@
+package com.caioniehues.app.infrastructure.security;
+
+import com.caioniehues.app.domain.user.Role;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("API Quota Filter Tests")
+class ApiQuotaFilterTest {
+
+    @Mock
+    private FilterChain filterChain;
+
+    private ApiQuotaFilter apiQuotaFilter;
+
+    @BeforeEach
+    void setUp() {
+        ApiQuotaProperties properties = new ApiQuotaProperties(
+            true,
+            Duration.ofMinutes(1),
+            1000,
+            new ApiQuotaProperties.Budget(2, 1),
+            Map.of(
+                Role.RoleName.ADMIN, new ApiQuotaProperties.Budget(10, 5),
+                Role.RoleName.VIEWER, new ApiQuotaProperties.Budget(3, 1)));
+        Clock clock = Clock.fixed(Instant.parse("2025-01-01T00:00:15Z"), ZoneOffset.UTC);
+        apiQuotaFilter = new ApiQuotaFilter(properties, new ProblemResponseWriter(), clock);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private static void authenticateAs(String username, String... roles) {
+        AuthPrincipal principal = new AuthPrincipal(UUID.nameUUIDFromBytes(username.getBytes(StandardCharsets.UTF_8)),
+            username, username, null, true, AuthorityUtils.createAuthorityList(roles), 0);
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+            principal, null, principal.getAuthorities()));
+    }
+
+    private MockHttpServletResponse perform(String method) throws ServletException, IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        apiQuotaFilter.doFilter(new MockHttpServletRequest(method, "/api/v1/events"), response, filterChain);
+        return response;
+    }
+
+    @Test
+    @DisplayName("Should not count anonymous requests")
+    void anonymousRequest_ShouldSkipQuota() throws ServletException, IOException {
+        // When
+        MockHttpServletResponse response = perform("GET");
+
+        // Then
+        verify(filterChain).doFilter(any(), any());
+        assertThat(response.getHeader(ApiQuotaFilter.LIMIT_HEADER)).isNull();
+    }
+
+    @Test
+    @DisplayName("Should report the remaining quota and reject once it is used up")
+    void authenticatedRequests_ShouldBeCountedAgainstRoleBudget() throws ServletException, IOException {
+        // Given
+        authenticateAs("viewer", "ROLE_VIEWER");
+
+        // When
+        MockHttpServletResponse first = perform("GET");
+        perform("GET");
+        perform("GET");
+        MockHttpServletResponse rejected = perform("GET");
+
+        // Then
+        assertThat(first.getHeader(ApiQuotaFilter.LIMIT_HEADER)).isEqualTo("3");
+        assertThat(first.getHeader(ApiQuotaFilter.REMAINING_HEADER)).isEqualTo("2");
+        assertThat(first.getHeader(ApiQuotaFilter.RESET_HEADER)).isEqualTo("45");
+        assertThat(rejected.getStatus()).isEqualTo(429);
+        assertThat(rejected.getHeader(ApiQuotaFilter.REMAINING_HEADER)).isEqualTo("0");
+        assertThat(rejected.getHeader("Retry-After")).isEqualTo("45");
+        assertThat(rejected.getContentAsString()).contains("\"status\":429");
+        verify(filterChain, times(3)).doFilter(any(), any());
+    }
+
+    @Test
+    @DisplayName("Should keep separate read and write budgets")
+    void writes_ShouldNotConsumeReadBudget() throws ServletException, IOException {
+        // Given
+        authenticateAs("viewer", "ROLE_VIEWER");
+
+        // When
+        perform("POST");
+        MockHttpServletResponse rejectedWrite = perform("DELETE");
+        MockHttpServletResponse read = perform("GET");
+
+        // Then
+        assertThat(rejectedWrite.getStatus()).isEqualTo(429);
+        assertThat(read.getStatus()).isEqualTo(200);
+        assertThat(read.getHeader(ApiQuotaFilter.REMAINING_HEADER)).isEqualTo("2");
+    }
+
+    @Test
+    @DisplayName("Should give users the largest budget of their roles")
+    void userWithSeveralRoles_ShouldGetLargestBudget() throws ServletException, IOException {
+        // Given
+        authenticateAs("admin", "ROLE_VIEWER", "ROLE_ADMIN");
+
+        // When
+        MockHttpServletResponse response = perform("POST");
+
+        // Then
+        assertThat(response.getHeader(ApiQuotaFilter.LIMIT_HEADER)).isEqualTo("5");
+    }
+
+    @Test
+    @DisplayName("Should fall back to the default budget for unconfigured roles")
+    void userWithoutConfiguredRole_ShouldGetDefaultBudget() throws ServletException, IOException {
+        // Given
+        authenticateAs("member", "ROLE_USER");
+
+        // When
+        MockHttpServletResponse response = perform("GET");
+
+        // Then
+        assertThat(response.getHeader(ApiQuotaFilter.LIMIT_HEADER)).isEqualTo("2");
+    }
+
+    @Test
+    @DisplayName("Should track each user separately")
+    void differentUsers_ShouldHaveSeparateQuotas() throws ServletException, IOException {
+        // Given
+        authenticateAs("first", "ROLE_USER");
+        perform("POST");
+
+        // When
+        authenticateAs("second", "ROLE_USER");
+        MockHttpServletResponse response = perform("POST");
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    @DisplayName("Should start counting again in a new window")
+    void tryAcquire_InNewWindow_ShouldReset() {
+        // Given
+        AtomicLong counter = new AtomicLong();
+        assertThat(ApiQuotaFilter.tryAcquire(counter, 100, 2)).isEqualTo(1);
+        assertThat(ApiQuotaFilter.tryAcquire(counter, 100, 2)).isZero();
+        assertThat(ApiQuotaFilter.tryAcquire(counter, 100, 2)).isEqualTo(-1);
+
+        // When
+        long remaining = ApiQuotaFilter.tryAcquire(counter, 101, 2);
+
+        // Then
+        assertThat(remaining).isEqualTo(1);
+    }
+}
@@ -0,0 +1,126 @@
+package com.caioniehues.app.infrastructure.security;
+
+import com.caioniehues.app.config.CacheConfig;
+import com.caioniehues.app.domain.user.User;
+import com.caioniehues.app.infrastructure.persistence.BulkheadProperties;
+import com.caioniehues.app.infrastructure.persistence.BulkheadRegistry;
+import com.caioniehues.app.infrastructure.persistence.RecentInvalidations;
+import com.caioniehues.app.infrastructure.persistence.UserRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.cache.CacheAutoConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@SpringJUnitConfig
+@TestPropertySource(properties = "spring.cache.type=caffeine")
+@DisplayName("Auth Principal Lookup Tests")
+class AuthPrincipalLookupTest {
+
+    @Configuration
+    @ImportAutoConfiguration(CacheAutoConfiguration.class)
+    @Import({CacheConfig.class, AuthPrincipalLookup.class})
+    static class TestConfig {
+
+        @Bean
+        BulkheadRegistry bulkheadRegistry() {
+            return new BulkheadRegistry(new BulkheadProperties(true, Duration.ofSeconds(1),
+                new BulkheadProperties.Pool(4, Duration.ofMillis(50)), Map.of()));
+        }
+
+        @Bean
+        RecentInvalidations recentInvalidations() {
+            return new RecentInvalidations(false, Duration.ZERO, Duration.ZERO, 0);
+        }
+    }
+
+    @MockBean
+    private UserRepository userRepository;
+
+    @Autowired
+    private AuthPrincipalLookup authPrincipalLookup;
+
+    @Test
+    @DisplayName("Should cache found users")
+    void findByLogin_WithKnownUser_ShouldQueryOnce() {
+        // Given
+        User user = User.builder()
+            .username("cached")
+            .email("cached@example.com")
+            .passwordHash("$2a$10$hashedpassword")
+            .fullName("Cached User")
+            .build();
+        user.setId(UUID.randomUUID());
+        when(userRepository.findByLoginKeyWithRoles("cached")).thenReturn(List.of(user));
+
+        // When
+        Optional<AuthPrincipal> first = authPrincipalLookup.findByLogin("cached");
+        Optional<AuthPrincipal> second = authPrincipalLookup.findByLogin("cached");
+
+        // Then
+        assertThat(first).isPresent();
+        assertThat(second).containsSame(first.get());
+        verify(userRepository, times(1)).findByLoginKeyWithRoles("cached");
+    }
+
+    @Test
+    @DisplayName("Should cache unknown logins")
+    void findByLogin_WithUnknownLogin_ShouldQueryOnce() {
+        // Given
+        when(userRepository.findByLoginKeyWithRoles("unknown")).thenReturn(List.of());
+
+        // When
+        Optional<AuthPrincipal> first = authPrincipalLookup.findByLogin("unknown");
+        Optional<AuthPrincipal> second = authPrincipalLookup.findByLogin("unknown");
+
+        // Then
+        assertThat(first).isEmpty();
+        assertThat(second).isEmpty();
+        verify(userRepository, times(1)).findByLoginKeyWithRoles("unknown");
+    }
+
+    @Test
+    @DisplayName("Should share one database fetch between concurrent loads of the same login")
+    void findByLogin_Concurrently_ShouldQueryOnce() throws Exception {
+        // Given
+        CountDownLatch fetchStarted = new CountDownLatch(1);
+        CountDownLatch releaseFetch = new CountDownLatch(1);
+        when(userRepository.findByLoginKeyWithRoles("cold")).thenAnswer(invocation -> {
+            fetchStarted.countDown();
+            releaseFetch.await(5, TimeUnit.SECONDS);
+            return List.of();
+        });
+
+        // When
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            threads.add(Thread.ofVirtual().start(() -> authPrincipalLookup.findByLogin("cold")));
+        }
+        assertThat(fetchStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        releaseFetch.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // Then
+        verify(userRepository, times(1)).findByLoginKeyWithRoles("cold");
+    }
+}
@@ -0,0 +1,72 @@
+package com.caioniehues.app.infrastructure.security;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Bucket Key Tests")
+class BucketKeyTest {
+
+    @Test
+    @DisplayName("Should map IPv4 addresses into the IPv6 space")
+    void of_WithIpv4_ShouldMatchIpv4MappedIpv6() {
+        // When
+        BucketKey ipv4 = BucketKey.of("192.168.1.1", 0);
+        BucketKey mapped = BucketKey.of("::ffff:192.168.1.1", 0);
+
+        // Then
+        assertThat(ipv4).isEqualTo(mapped);
+        assertThat(ipv4.addressHigh()).isZero();
+        assertThat(ipv4.addressLow()).isEqualTo(0xFFFF_C0A8_0101L);
+    }
+
+    @Test
+    @DisplayName("Should treat equivalent IPv6 spellings as one client")
+    void of_WithIpv6_ShouldNormalize() {
+        // When
+        BucketKey compressed = BucketKey.of("2001:db8::1", 1);
+        BucketKey expanded = BucketKey.of("2001:0db8:0000:0000:0000:0000:0000:0001", 1);
+
+        // Then
+        assertThat(compressed).isEqualTo(expanded);
+        assertThat(compressed.addressHigh()).isEqualTo(0x2001_0DB8_0000_0000L);
+        assertThat(compressed.addressLow()).isEqualTo(1L);
+    }
+
+    @Test
+    @DisplayName("Should keep policies apart for the same client")
+    void of_WithDifferentPolicies_ShouldDiffer() {
+        assertThat(BucketKey.of("10.0.0.1", 0)).isNotEqualTo(BucketKey.of("10.0.0.1", 1));
+    }
+
+    @Test
+    @DisplayName("Should key principals by their user ID")
+    void ofPrincipal_ShouldUseUserId() {
+        // Given
+        UUID userId = UUID.randomUUID();
+
+        // When
+        BucketKey key = BucketKey.ofPrincipal(userId, 7);
+
+        // Then
+        assertThat(key.addressHigh()).isEqualTo(userId.getMostSignificantBits());
+        assertThat(key.addressLow()).isEqualTo(userId.getLeastSignificantBits());
+        assertThat(key.policy()).isEqualTo(7);
+    }
+
+    @Test
+    @DisplayName("Should reject anything that is not an IP literal without resolving it")
+    void of_WithNonLiteral_ShouldReturnNull() {
+        assertThat(BucketKey.of("localhost", 0)).isNull();
+        assertThat(BucketKey.of("1.2.3.example.com", 0)).isNull();
+        assertThat(BucketKey.of("256.1.1.1", 0)).isNull();
+        assertThat(BucketKey.of("1.2.3", 0)).isNull();
+        assertThat(BucketKey.of("1..2.3", 0)).isNull();
+        assertThat(BucketKey.of("g::1", 0)).isNull();
+        assertThat(BucketKey.of("", 0)).isNull();
+        assertThat(BucketKey.of(null, 0)).isNull();
+    }
+}
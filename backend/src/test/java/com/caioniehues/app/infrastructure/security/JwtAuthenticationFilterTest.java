@@ -1,7 +1,9 @@
 package com.caioniehues.app.infrastructure.security;
 
 import com.caioniehues.app.domain.user.User;
-import com.caioniehues.app.infrastructure.persistence.TokenBlacklistRepository;
+import com.caioniehues.app.infrastructure.persistence.BulkheadFullException;
+import com.caioniehues.app.infrastructure.persistence.UserActivityRecorder;
+import com.caioniehues.app.infrastructure.persistence.WorkloadClass;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -11,20 +13,26 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -38,7 +46,16 @@ class JwtAuthenticationFilterTest {
     private UserDetailsService userDetailsService;
 
     @Mock
-    private TokenBlacklistRepository tokenBlacklistRepository;
+    private RevokedTokenIndex revokedTokenIndex;
+
+    @Mock
+    private UserTokenStatusCache userTokenStatusCache;
+
+    @Mock
+    private UserActivityRecorder userActivityRecorder;
+
+    @Mock
+    private ProblemResponseWriter problemResponseWriter;
 
     @Mock
     private HttpServletRequest request;
@@ -49,7 +66,6 @@ class JwtAuthenticationFilterTest {
     @Mock
     private FilterChain filterChain;
 
-    @InjectMocks
     private JwtAuthenticationFilter jwtAuthenticationFilter;
 
     private User testUser;
@@ -58,6 +74,12 @@ class JwtAuthenticationFilterTest {
 
     @BeforeEach
     void setUp() {
+        RoutePolicyRegistry routePolicies = new RoutePolicyRegistry(
+            new RoutePolicyProperties(List.of("/api/v1/auth/login", "/api/health", "/v3/api-docs"), List.of(), List.of()), "");
+        jwtAuthenticationFilter = new JwtAuthenticationFilter(
+            jwtService, userDetailsService, revokedTokenIndex, userTokenStatusCache, userActivityRecorder, routePolicies,
+            problemResponseWriter);
+
         testUser = User.builder()
             .username("test@example.com")
             .email("test@example.com")
@@ -83,7 +105,7 @@ class JwtAuthenticationFilterTest {
 
         // Then
         verify(filterChain).doFilter(request, response);
-        verify(jwtService, never()).extractUsername(anyString());
+        verify(jwtService, never()).verify(anyString());
         assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
     }
 
@@ -98,7 +120,7 @@ class JwtAuthenticationFilterTest {
 
         // Then
         verify(filterChain).doFilter(request, response);
-        verify(jwtService, never()).extractUsername(anyString());
+        verify(jwtService, never()).verify(anyString());
         assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
     }
 
@@ -113,7 +135,7 @@ class JwtAuthenticationFilterTest {
 
         // Then
         verify(filterChain).doFilter(request, response);
-        verify(jwtService, never()).extractUsername(anyString());
+        verify(jwtService, never()).verify(anyString());
         assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
     }
 
@@ -129,7 +151,7 @@ class JwtAuthenticationFilterTest {
 
         // Then
         verify(filterChain).doFilter(request, response);
-        verify(jwtService, never()).extractUsername(anyString());
+        verify(jwtService, never()).verify(anyString());
         assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
     }
 
@@ -145,7 +167,7 @@ class JwtAuthenticationFilterTest {
 
         // Then
         verify(filterChain).doFilter(request, response);
-        verify(jwtService, never()).extractUsername(anyString());
+        verify(jwtService, never()).verify(anyString());
         assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
     }
 
@@ -155,11 +177,9 @@ class JwtAuthenticationFilterTest {
         // Given
         when(request.getServletPath()).thenReturn("/api/v1/users/profile");
         when(request.getHeader("Authorization")).thenReturn("Bearer " + validToken);
-        when(jwtService.extractUsername(validToken)).thenReturn("test@example.com");
-        when(jwtService.extractClaim(eq(validToken), any())).thenReturn(validJti);
-        when(tokenBlacklistRepository.existsByJti(validJti)).thenReturn(false);
+        when(jwtService.verify(validToken)).thenReturn(verifiedToken("test@example.com"));
+        when(revokedTokenIndex.isRevoked(validJti)).thenReturn(false);
         when(userDetailsService.loadUserByUsername("test@example.com")).thenReturn(testUser);
-        when(jwtService.validateTokenForUser(validToken, testUser)).thenReturn(true);
 
         // When
         jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
@@ -179,9 +199,8 @@ class JwtAuthenticationFilterTest {
         // Given
         when(request.getServletPath()).thenReturn("/api/v1/users/profile");
         when(request.getHeader("Authorization")).thenReturn("Bearer " + validToken);
-        when(jwtService.extractUsername(validToken)).thenReturn("test@example.com");
-        when(jwtService.extractClaim(eq(validToken), any())).thenReturn(validJti);
-        when(tokenBlacklistRepository.existsByJti(validJti)).thenReturn(true);
+        when(jwtService.verify(validToken)).thenReturn(verifiedToken("test@example.com"));
+        when(revokedTokenIndex.isRevoked(validJti)).thenReturn(true);
 
         // When
         jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
@@ -198,11 +217,9 @@ class JwtAuthenticationFilterTest {
         // Given
         when(request.getServletPath()).thenReturn("/api/v1/users/profile");
         when(request.getHeader("Authorization")).thenReturn("Bearer " + validToken);
-        when(jwtService.extractUsername(validToken)).thenReturn("test@example.com");
-        when(jwtService.extractClaim(eq(validToken), any())).thenReturn(validJti);
-        when(tokenBlacklistRepository.existsByJti(validJti)).thenReturn(false);
-        when(userDetailsService.loadUserByUsername("test@example.com")).thenReturn(testUser);
-        when(jwtService.validateTokenForUser(validToken, testUser)).thenReturn(false);
+        when(jwtService.verify(validToken)).thenReturn(verifiedToken("other@example.com"));
+        when(revokedTokenIndex.isRevoked(validJti)).thenReturn(false);
+        when(userDetailsService.loadUserByUsername("other@example.com")).thenReturn(testUser);
 
         // When
         jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
@@ -218,7 +235,7 @@ class JwtAuthenticationFilterTest {
         // Given
         when(request.getServletPath()).thenReturn("/api/v1/users/profile");
         when(request.getHeader("Authorization")).thenReturn("Bearer " + validToken);
-        when(jwtService.extractUsername(validToken)).thenThrow(new RuntimeException("Invalid JWT"));
+        when(jwtService.verify(validToken)).thenThrow(new RuntimeException("Invalid JWT"));
 
         // When
         jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
@@ -234,9 +251,8 @@ class JwtAuthenticationFilterTest {
         // Given
         when(request.getServletPath()).thenReturn("/api/v1/users/profile");
         when(request.getHeader("Authorization")).thenReturn("Bearer " + validToken);
-        when(jwtService.extractUsername(validToken)).thenReturn("nonexistent@example.com");
-        when(jwtService.extractClaim(eq(validToken), any())).thenReturn(validJti);
-        when(tokenBlacklistRepository.existsByJti(validJti)).thenReturn(false);
+        when(jwtService.verify(validToken)).thenReturn(verifiedToken("nonexistent@example.com"));
+        when(revokedTokenIndex.isRevoked(validJti)).thenReturn(false);
         when(userDetailsService.loadUserByUsername("nonexistent@example.com"))
             .thenThrow(new RuntimeException("User not found"));
 
@@ -266,7 +282,7 @@ class JwtAuthenticationFilterTest {
 
         // Then
         verify(filterChain).doFilter(request, response);
-        verify(jwtService, never()).extractUsername(anyString());
+        verify(jwtService, never()).verify(anyString());
         assertThat(SecurityContextHolder.getContext().getAuthentication()).isEqualTo(existingAuth);
     }
 
@@ -277,21 +293,141 @@ class JwtAuthenticationFilterTest {
         String fullHeader = "Bearer " + validToken;
         when(request.getServletPath()).thenReturn("/api/v1/users/profile");
         when(request.getHeader("Authorization")).thenReturn(fullHeader);
-        when(jwtService.extractUsername(validToken)).thenReturn("test@example.com");
-        when(jwtService.extractClaim(eq(validToken), any())).thenReturn(validJti);
-        when(tokenBlacklistRepository.existsByJti(validJti)).thenReturn(false);
+        when(jwtService.verify(validToken)).thenReturn(verifiedToken("test@example.com"));
+        when(revokedTokenIndex.isRevoked(validJti)).thenReturn(false);
         when(userDetailsService.loadUserByUsername("test@example.com")).thenReturn(testUser);
-        when(jwtService.validateTokenForUser(validToken, testUser)).thenReturn(true);
 
         // When
         jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
 
         // Then
         ArgumentCaptor<String> tokenCaptor = ArgumentCaptor.forClass(String.class);
-        verify(jwtService).extractUsername(tokenCaptor.capture());
+        verify(jwtService).verify(tokenCaptor.capture());
         assertThat(tokenCaptor.getValue()).isEqualTo(validToken);
 
         verify(filterChain).doFilter(request, response);
         assertThat(SecurityContextHolder.getContext().getAuthentication()).isNotNull();
     }
+
+    @Test
+    @DisplayName("Should verify the token only once per request")
+    void validJwtToken_ShouldVerifyTokenOnce() throws ServletException, IOException {
+        // Given
+        when(request.getServletPath()).thenReturn("/api/v1/users/profile");
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + validToken);
+        when(jwtService.verify(validToken)).thenReturn(verifiedToken("test@example.com"));
+        when(revokedTokenIndex.isRevoked(validJti)).thenReturn(false);
+        when(userDetailsService.loadUserByUsername("test@example.com")).thenReturn(testUser);
+
+        // When
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+
+        // Then
+        verify(jwtService, times(1)).verify(validToken);
+        verifyNoMoreInteractions(jwtService);
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Should authenticate from token claims without loading the user in stateless mode")
+    void statelessMode_ShouldAuthenticateFromClaims() throws ServletException, IOException {
+        // Given
+        ReflectionTestUtils.setField(jwtAuthenticationFilter, "statelessAuthorization", true);
+        when(request.getServletPath()).thenReturn("/api/v1/users/profile");
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + validToken);
+        VerifiedToken token = verifiedToken("test@example.com");
+        when(jwtService.verify(validToken)).thenReturn(token);
+        when(revokedTokenIndex.isRevoked(validJti)).thenReturn(false);
+        when(userTokenStatusCache.isRevoked(any(VerifiedToken.class))).thenReturn(false);
+
+        // When
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+
+        // Then
+        verify(filterChain).doFilter(request, response);
+        verify(userDetailsService, never()).loadUserByUsername(anyString());
+
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        assertThat(auth).isNotNull();
+        assertThat(auth.getName()).isEqualTo("test@example.com");
+        assertThat(auth.getAuthorities())
+            .extracting(GrantedAuthority::getAuthority)
+            .containsExactly("ROLE_USER");
+        assertThat(auth.getPrincipal()).isInstanceOf(AuthPrincipal.class);
+        assertThat(AuthPrincipal.idOf(auth)).isEqualTo(token.userId());
+    }
+
+    @Test
+    @DisplayName("Should reject token of revoked user in stateless mode")
+    void statelessMode_WithRevokedUser_ShouldNotAuthenticate() throws ServletException, IOException {
+        // Given
+        ReflectionTestUtils.setField(jwtAuthenticationFilter, "statelessAuthorization", true);
+        when(request.getServletPath()).thenReturn("/api/v1/users/profile");
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + validToken);
+        when(jwtService.verify(validToken)).thenReturn(verifiedToken("test@example.com"));
+        when(revokedTokenIndex.isRevoked(validJti)).thenReturn(false);
+        when(userTokenStatusCache.isRevoked(any(VerifiedToken.class))).thenReturn(true);
+
+        // When
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+
+        // Then
+        verify(filterChain).doFilter(request, response);
+        verify(userDetailsService, never()).loadUserByUsername(anyString());
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+    }
+
+    @Test
+    @DisplayName("Should reject token issued before the user's current token epoch")
+    void tokenFromOlderEpoch_ShouldNotAuthenticate() throws ServletException, IOException {
+        // Given
+        when(request.getServletPath()).thenReturn("/api/v1/users/profile");
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + validToken);
+        when(jwtService.verify(validToken)).thenReturn(verifiedToken("test@example.com"));
+        when(revokedTokenIndex.isRevoked(validJti)).thenReturn(false);
+        when(userTokenStatusCache.isRevoked(any(VerifiedToken.class))).thenReturn(true);
+
+        // When
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+
+        // Then
+        verify(filterChain).doFilter(request, response);
+        verify(userDetailsService, never()).loadUserByUsername(anyString());
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+    }
+
+    @Test
+    @DisplayName("Should answer 503 when the token cannot be checked for a full bulkhead")
+    void fullBulkhead_ShouldRespondServiceUnavailable() throws ServletException, IOException {
+        // Given
+        when(request.getServletPath()).thenReturn("/api/v1/users/profile");
+        when(request.getHeader("Authorization")).thenReturn("Bearer " + validToken);
+        when(request.getRequestURI()).thenReturn("/api/v1/users/profile");
+        when(jwtService.verify(validToken)).thenReturn(verifiedToken("test@example.com"));
+        when(revokedTokenIndex.isRevoked(validJti)).thenReturn(false);
+        when(userTokenStatusCache.isRevoked(any(VerifiedToken.class)))
+            .thenThrow(new BulkheadFullException(WorkloadClass.AUTH, Duration.ofSeconds(2)));
+
+        // When
+        jwtAuthenticationFilter.doFilterInternal(request, response, filterChain);
+
+        // Then
+        verify(response).setHeader("Retry-After", "2");
+        verify(problemResponseWriter).writeWithRetryAfter(eq(response), any(), eq("/api/v1/users/profile"), eq(2L));
+        verify(filterChain, never()).doFilter(request, response);
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+    }
+
+    private VerifiedToken verifiedToken(String subject) {
+        return new VerifiedToken(
+            subject,
+            validJti,
+            UUID.randomUUID(),
+            VerifiedToken.ACCESS,
+            Instant.now(),
+            Instant.now().plusSeconds(900),
+            Set.of("USER"),
+            0
+        );
+    }
 }
\ No newline at end of file
@@ -4,7 +4,10 @@ import com.caioniehues.app.domain.user.Role;
 import com.caioniehues.app.domain.user.User;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.security.SignatureException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -14,8 +17,8 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.Duration;
 import java.time.Instant;
-import java.util.Date;
 import java.util.Set;
 import java.util.UUID;
 
@@ -32,7 +35,7 @@ class JwtServiceTest {
 
     @BeforeEach
     void setUp() {
-        jwtService = new JwtService();
+        jwtService = new JwtService(new VerifiedTokenCache(1_000));
         ReflectionTestUtils.setField(jwtService, "secretKey", TEST_SECRET);
         ReflectionTestUtils.setField(jwtService, "accessTokenExpiration", 900000L); // 15 minutes
         ReflectionTestUtils.setField(jwtService, "refreshTokenExpiration", 604800000L); // 7 days
@@ -65,12 +68,14 @@ class JwtServiceTest {
         // Then
         assertThat(token).isNotNull().isNotEmpty();
 
-        Claims claims = jwtService.extractAllClaims(token);
-        assertThat(claims.getSubject()).isEqualTo(testUser.getUsername());
-        assertThat(claims.get("userId", String.class)).isEqualTo(testUser.getId().toString());
+        VerifiedToken verified = jwtService.verify(token);
+        assertThat(verified.subject()).isEqualTo(testUser.getUsername());
+        assertThat(verified.userId()).isEqualTo(testUser.getId());
+        assertThat(verified.tokenType()).isEqualTo(VerifiedToken.ACCESS);
+
+        Claims claims = claimsOf(token);
         assertThat(claims.get("email", String.class)).isEqualTo(testUser.getEmail());
         assertThat(claims.get("fullName", String.class)).isEqualTo(testUser.getFullName());
-        assertThat(claims.get("tokenType", String.class)).isEqualTo("ACCESS");
         assertThat(claims.getIssuer()).isEqualTo("everything-app");
     }
 
@@ -81,14 +86,8 @@ class JwtServiceTest {
         String token = jwtService.generateAccessToken(testUser);
 
         // Then
-        Claims claims = jwtService.extractAllClaims(token);
-        Date expiration = claims.getExpiration();
-        Date issuedAt = claims.getIssuedAt();
-
-        long differenceInMillis = expiration.getTime() - issuedAt.getTime();
-        long fifteenMinutesInMillis = 15 * 60 * 1000;
-
-        assertThat(differenceInMillis).isEqualTo(fifteenMinutesInMillis);
+        VerifiedToken verified = jwtService.verify(token);
+        assertThat(Duration.between(verified.issuedAt(), verified.expiresAt())).isEqualTo(Duration.ofMinutes(15));
     }
 
     @Test
@@ -100,10 +99,10 @@ class JwtServiceTest {
         // Then
         assertThat(token).isNotNull().isNotEmpty();
 
-        Claims claims = jwtService.extractAllClaims(token);
-        assertThat(claims.getSubject()).isEqualTo(testUser.getUsername());
-        assertThat(claims.get("userId", String.class)).isEqualTo(testUser.getId().toString());
-        assertThat(claims.get("tokenType", String.class)).isEqualTo("REFRESH");
+        VerifiedToken verified = jwtService.verify(token);
+        assertThat(verified.subject()).isEqualTo(testUser.getUsername());
+        assertThat(verified.userId()).isEqualTo(testUser.getId());
+        assertThat(verified.tokenType()).isEqualTo(VerifiedToken.REFRESH);
     }
 
     @Test
@@ -113,45 +112,39 @@ class JwtServiceTest {
         String token = jwtService.generateRefreshToken(testUser);
 
         // Then
-        Claims claims = jwtService.extractAllClaims(token);
-        Date expiration = claims.getExpiration();
-        Date issuedAt = claims.getIssuedAt();
-
-        long differenceInMillis = expiration.getTime() - issuedAt.getTime();
-        long sevenDaysInMillis = 7L * 24 * 60 * 60 * 1000;
-
-        assertThat(differenceInMillis).isEqualTo(sevenDaysInMillis);
+        VerifiedToken verified = jwtService.verify(token);
+        assertThat(Duration.between(verified.issuedAt(), verified.expiresAt())).isEqualTo(Duration.ofDays(7));
     }
 
     @Test
-    @DisplayName("Should validate token with correct signature")
-    void validateToken_WithValidToken_ShouldReturnTrue() {
+    @DisplayName("Should verify token with correct signature")
+    void verify_WithValidToken_ShouldReturnUnexpiredToken() {
         // Given
         String token = jwtService.generateAccessToken(testUser);
 
         // When
-        boolean isValid = jwtService.validateToken(token);
+        VerifiedToken verified = jwtService.verify(token);
 
         // Then
-        assertThat(isValid).isTrue();
+        assertThat(verified.isExpired()).isFalse();
     }
 
     @Test
     @DisplayName("Should reject token with invalid signature")
-    void validateToken_WithInvalidSignature_ShouldThrowException() {
+    void verify_WithInvalidSignature_ShouldThrowException() {
         // Given
         String validToken = jwtService.generateAccessToken(testUser);
         String tamperedToken = validToken.substring(0, validToken.length() - 10) + "TAMPERED";
 
         // When/Then
-        assertThrows(SignatureException.class, () -> jwtService.validateToken(tamperedToken));
+        assertThrows(SignatureException.class, () -> jwtService.verify(tamperedToken));
     }
 
     @Test
     @DisplayName("Should reject expired token")
-    void validateToken_WithExpiredToken_ShouldThrowException() {
+    void verify_WithExpiredToken_ShouldThrowException() {
         // Given - Create service with 1ms expiry for testing
-        JwtService shortExpiryService = new JwtService();
+        JwtService shortExpiryService = new JwtService(new VerifiedTokenCache(1_000));
         ReflectionTestUtils.setField(shortExpiryService, "secretKey", TEST_SECRET);
         ReflectionTestUtils.setField(shortExpiryService, "accessTokenExpiration", 1L);
         ReflectionTestUtils.setField(shortExpiryService, "issuer", "everything-app");
@@ -166,169 +159,206 @@ class JwtServiceTest {
         }
 
         // When/Then
-        assertThrows(ExpiredJwtException.class, () -> jwtService.validateToken(token));
+        assertThrows(ExpiredJwtException.class, () -> jwtService.verify(token));
     }
 
     @Test
     @DisplayName("Should reject malformed token")
-    void validateToken_WithMalformedToken_ShouldThrowException() {
+    void verify_WithMalformedToken_ShouldThrowException() {
         // Given
         String malformedToken = "not.a.valid.jwt.token";
 
         // When/Then
-        assertThrows(MalformedJwtException.class, () -> jwtService.validateToken(malformedToken));
+        assertThrows(MalformedJwtException.class, () -> jwtService.verify(malformedToken));
     }
 
     @Test
-    @DisplayName("Should extract username from valid token")
-    void extractUsername_WithValidToken_ShouldReturnCorrectUsername() {
+    @DisplayName("Should accept token for the user it was issued to")
+    void isValidFor_WithMatchingUser_ShouldReturnTrue() {
         // Given
         String token = jwtService.generateAccessToken(testUser);
 
         // When
-        String username = jwtService.extractUsername(token);
+        boolean isValid = jwtService.verify(token).isValidFor(testUser);
 
         // Then
-        assertThat(username).isEqualTo(testUser.getUsername());
+        assertThat(isValid).isTrue();
     }
 
     @Test
-    @DisplayName("Should extract all claims from valid token")
-    void extractAllClaims_WithValidToken_ShouldReturnAllClaims() {
+    @DisplayName("Should reject token for different user")
+    void isValidFor_WithDifferentUser_ShouldReturnFalse() {
         // Given
         String token = jwtService.generateAccessToken(testUser);
 
+        User differentUser = User.builder()
+            .username("differentuser")
+            .build();
+
         // When
-        Claims claims = jwtService.extractAllClaims(token);
+        boolean isValid = jwtService.verify(token).isValidFor(differentUser);
 
         // Then
-        assertThat(claims).isNotNull();
-        assertThat(claims.getSubject()).isEqualTo(testUser.getUsername());
-        assertThat(claims.get("userId")).isNotNull();
-        assertThat(claims.get("email")).isNotNull();
-        assertThat(claims.getIssuer()).isEqualTo("everything-app");
+        assertThat(isValid).isFalse();
     }
 
     @Test
-    @DisplayName("Should correctly identify expired token")
-    void isTokenExpired_WithExpiredToken_ShouldReturnTrue() {
-        // Given - Create service with 1ms expiry
-        JwtService shortExpiryService = new JwtService();
-        ReflectionTestUtils.setField(shortExpiryService, "secretKey", TEST_SECRET);
-        ReflectionTestUtils.setField(shortExpiryService, "accessTokenExpiration", 1L);
-        ReflectionTestUtils.setField(shortExpiryService, "issuer", "everything-app");
-
-        String token = shortExpiryService.generateAccessToken(testUser);
-
-        // Wait for expiry
-        try {
-            Thread.sleep(10);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
-
+    @DisplayName("Should generate unique JTI for each token")
+    void generateToken_ShouldHaveUniqueJti() {
         // When
-        boolean isExpired = jwtService.isTokenExpired(token);
+        String token1 = jwtService.generateAccessToken(testUser);
+        String token2 = jwtService.generateAccessToken(testUser);
 
         // Then
-        assertThat(isExpired).isTrue();
+        String jti1 = jwtService.verify(token1).jti();
+        String jti2 = jwtService.verify(token2).jti();
+
+        assertThat(jti1).isNotNull();
+        assertThat(jti2).isNotNull();
+        assertThat(jti1).isNotEqualTo(jti2);
     }
 
     @Test
-    @DisplayName("Should correctly identify non-expired token")
-    void isTokenExpired_WithValidToken_ShouldReturnFalse() {
+    @DisplayName("Should verify token once and expose all claims")
+    void verify_WithValidToken_ShouldReturnVerifiedToken() {
         // Given
         String token = jwtService.generateAccessToken(testUser);
 
         // When
-        boolean isExpired = jwtService.isTokenExpired(token);
+        VerifiedToken verified = jwtService.verify(token);
 
         // Then
-        assertThat(isExpired).isFalse();
+        assertThat(verified.subject()).isEqualTo(testUser.getUsername());
+        assertThat(verified.jti()).isNotBlank();
+        assertThat(verified.userId()).isEqualTo(testUser.getId());
+        assertThat(verified.tokenType()).isEqualTo(VerifiedToken.ACCESS);
+        assertThat(verified.expiresAt()).isAfter(Instant.now());
+        assertThat(verified.isValidFor(testUser)).isTrue();
     }
 
     @Test
-    @DisplayName("Should validate token matches user")
-    void validateTokenForUser_WithMatchingUser_ShouldReturnTrue() {
+    @DisplayName("Should reject tampered token on verify")
+    void verify_WithInvalidSignature_ShouldThrowException() {
         // Given
-        String token = jwtService.generateAccessToken(testUser);
+        String validToken = jwtService.generateAccessToken(testUser);
+        String tamperedToken = validToken.substring(0, validToken.length() - 10) + "TAMPERED";
 
-        // When
-        boolean isValid = jwtService.validateTokenForUser(token, testUser);
+        // When/Then
+        assertThrows(SignatureException.class, () -> jwtService.verify(tamperedToken));
+    }
 
-        // Then
-        assertThat(isValid).isTrue();
+    @Test
+    @DisplayName("Should reject expired token on verify")
+    void verify_WithExpiredToken_ShouldThrowException() throws InterruptedException {
+        // Given
+        JwtService shortExpiryService = new JwtService(new VerifiedTokenCache(1_000));
+        ReflectionTestUtils.setField(shortExpiryService, "secretKey", TEST_SECRET);
+        ReflectionTestUtils.setField(shortExpiryService, "accessTokenExpiration", 1L);
+        ReflectionTestUtils.setField(shortExpiryService, "issuer", "everything-app");
+
+        String token = shortExpiryService.generateAccessToken(testUser);
+        Thread.sleep(10);
+
+        // When/Then
+        assertThrows(ExpiredJwtException.class, () -> jwtService.verify(token));
     }
 
     @Test
-    @DisplayName("Should reject token for different user")
-    void validateTokenForUser_WithDifferentUser_ShouldReturnFalse() {
+    @DisplayName("Should serve repeated verification from the cache")
+    void verify_SameTokenTwice_ShouldReturnCachedInstance() {
         // Given
         String token = jwtService.generateAccessToken(testUser);
 
-        User differentUser = User.builder()
-            .username("differentuser")
-            .build();
-
         // When
-        boolean isValid = jwtService.validateTokenForUser(token, differentUser);
+        VerifiedToken first = jwtService.verify(token);
+        VerifiedToken second = jwtService.verify(token);
 
         // Then
-        assertThat(isValid).isFalse();
+        assertThat(second).isSameAs(first);
     }
 
     @Test
-    @DisplayName("Should extract user ID from token")
-    void extractUserId_WithValidToken_ShouldReturnCorrectUserId() {
+    @DisplayName("Should re-verify token after eviction")
+    void verify_AfterEvict_ShouldVerifyAgain() {
         // Given
         String token = jwtService.generateAccessToken(testUser);
+        VerifiedToken first = jwtService.verify(token);
 
         // When
-        UUID userId = jwtService.extractUserId(token);
+        jwtService.evict(token);
+        VerifiedToken second = jwtService.verify(token);
 
         // Then
-        assertThat(userId).isEqualTo(testUser.getId());
+        assertThat(second).isNotSameAs(first).isEqualTo(first);
     }
 
     @Test
-    @DisplayName("Should extract token type from access token")
-    void extractTokenType_WithAccessToken_ShouldReturnACCESS() {
+    @DisplayName("Should re-verify token after eviction by JTI")
+    void verify_AfterEvictJti_ShouldVerifyAgain() {
         // Given
         String token = jwtService.generateAccessToken(testUser);
+        String otherToken = jwtService.generateAccessToken(testUser);
+        VerifiedToken first = jwtService.verify(token);
+        VerifiedToken other = jwtService.verify(otherToken);
 
         // When
-        String tokenType = jwtService.extractTokenType(token);
+        jwtService.evictJti(first.jti());
 
         // Then
-        assertThat(tokenType).isEqualTo("ACCESS");
+        assertThat(jwtService.verify(token)).isNotSameAs(first).isEqualTo(first);
+        assertThat(jwtService.verify(otherToken)).isSameAs(other);
     }
 
     @Test
-    @DisplayName("Should extract token type from refresh token")
-    void extractTokenType_WithRefreshToken_ShouldReturnREFRESH() {
+    @DisplayName("Should not cache tokens that fail verification")
+    void verify_WithTamperedToken_ShouldNotPopulateCache() {
         // Given
-        String token = jwtService.generateRefreshToken(testUser);
+        VerifiedTokenCache cache = new VerifiedTokenCache(1_000);
+        JwtService service = new JwtService(cache);
+        ReflectionTestUtils.setField(service, "secretKey", TEST_SECRET);
+        ReflectionTestUtils.setField(service, "accessTokenExpiration", 900000L);
+        ReflectionTestUtils.setField(service, "issuer", "everything-app");
+        String token = service.generateAccessToken(testUser);
+        String tamperedToken = token.substring(0, token.length() - 10) + "TAMPERED";
 
+        // When/Then
+        assertThrows(SignatureException.class, () -> service.verify(tamperedToken));
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should embed role names in access token")
+    void generateAccessToken_ShouldEmbedRoles() {
         // When
-        String tokenType = jwtService.extractTokenType(token);
+        String token = jwtService.generateAccessToken(testUser);
 
         // Then
-        assertThat(tokenType).isEqualTo("REFRESH");
+        VerifiedToken verified = jwtService.verify(token);
+        assertThat(verified.roles()).containsExactly("USER");
+        assertThat(verified.isSelfContained()).isTrue();
     }
 
     @Test
-    @DisplayName("Should generate unique JTI for each token")
-    void generateToken_ShouldHaveUniqueJti() {
+    @DisplayName("Should embed the user's token epoch in access token")
+    void generateAccessToken_ShouldEmbedTokenEpoch() {
+        // Given
+        testUser.setTokenEpoch(3);
+
         // When
-        String token1 = jwtService.generateAccessToken(testUser);
-        String token2 = jwtService.generateAccessToken(testUser);
+        String token = jwtService.generateAccessToken(testUser);
 
         // Then
-        Claims claims1 = jwtService.extractAllClaims(token1);
-        Claims claims2 = jwtService.extractAllClaims(token2);
+        assertThat(jwtService.verify(token).epoch()).isEqualTo(3);
+    }
 
-        assertThat(claims1.getId()).isNotNull();
-        assertThat(claims2.getId()).isNotNull();
-        assertThat(claims1.getId()).isNotEqualTo(claims2.getId());
+    /**
+     * Claims that {@link VerifiedToken} does not carry, parsed with the test secret.
+     */
+    private static Claims claimsOf(String token) {
+        return Jwts.parser()
+            .verifyWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(TEST_SECRET)))
+            .build()
+            .parseSignedClaims(token)
+            .getPayload();
     }
-}
\ No newline at end of file
+}
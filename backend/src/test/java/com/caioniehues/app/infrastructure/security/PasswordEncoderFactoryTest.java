@@ -0,0 +1,96 @@
+package com.caioniehues.app.infrastructure.security;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("Password Encoder Factory Tests")
+class PasswordEncoderFactoryTest {
+
+    private static PasswordEncoderFactory factory(String algorithm, int bcryptStrength, int pbkdf2Iterations) {
+        return new PasswordEncoderFactory(
+            algorithm, Duration.ofMillis(50), bcryptStrength, 4, 6, pbkdf2Iterations, 1_000);
+    }
+
+    @Test
+    @DisplayName("Should verify and upgrade hashes stored before algorithm prefixes were used")
+    void legacyBcryptHash_ShouldMatchAndBeUpgraded() {
+        // Given
+        PasswordEncoder encoder = factory("bcrypt", 5, 0).create();
+        String legacyHash = new BCryptPasswordEncoder(5).encode("Secret123!");
+
+        // When/Then
+        assertThat(encoder.matches("Secret123!", legacyHash)).isTrue();
+        assertThat(encoder.upgradeEncoding(legacyHash)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should upgrade BCrypt hashes weaker than the current strength only")
+    void weakerBcryptHash_ShouldBeUpgraded() {
+        // Given
+        PasswordEncoder weak = factory("bcrypt", 4, 0).create();
+        PasswordEncoder strong = factory("bcrypt", 5, 0).create();
+        String weakHash = weak.encode("Secret123!");
+        String strongHash = strong.encode("Secret123!");
+
+        // When/Then
+        assertThat(weakHash).startsWith("{bcrypt}");
+        assertThat(strong.matches("Secret123!", weakHash)).isTrue();
+        assertThat(strong.upgradeEncoding(weakHash)).isTrue();
+        assertThat(strong.upgradeEncoding(strongHash)).isFalse();
+        assertThat(weak.upgradeEncoding(strongHash)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should verify PBKDF2 hashes made with any iteration count")
+    void pbkdf2Hash_ShouldKeepItsIterationCount() {
+        // Given
+        PasswordEncoder before = factory("pbkdf2", 0, 1_000).create();
+        PasswordEncoder after = factory("pbkdf2", 0, 2_000).create();
+        String hash = before.encode("Secret123!");
+
+        // When/Then
+        assertThat(hash).startsWith("{pbkdf2}1000$");
+        assertThat(after.matches("Secret123!", hash)).isTrue();
+        assertThat(after.matches("Wrong123!", hash)).isFalse();
+        assertThat(after.upgradeEncoding(hash)).isTrue();
+        assertThat(before.upgradeEncoding(hash)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should migrate BCrypt hashes when PBKDF2 becomes the current algorithm")
+    void algorithmSwitch_ShouldUpgradeOtherAlgorithm() {
+        // Given
+        String bcryptHash = factory("bcrypt", 4, 0).create().encode("Secret123!");
+        PasswordEncoder pbkdf2 = factory("pbkdf2", 0, 1_000).create();
+
+        // When/Then
+        assertThat(pbkdf2.matches("Secret123!", bcryptHash)).isTrue();
+        assertThat(pbkdf2.upgradeEncoding(bcryptHash)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should keep calibrated work factors within the configured bounds")
+    void calibration_ShouldRespectBounds() {
+        // Given
+        PasswordEncoderFactory factory = factory("bcrypt", 0, 0);
+
+        // When/Then
+        assertThat(factory.calibrateBcryptStrength()).isBetween(4, 6);
+        assertThat(factory.calibratePbkdf2Iterations()).isGreaterThanOrEqualTo(1_000);
+    }
+
+    @Test
+    @DisplayName("Should reject unsupported algorithms")
+    void unsupportedAlgorithm_ShouldFail() {
+        // When/Then
+        assertThatThrownBy(() -> factory("md5", 0, 0))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
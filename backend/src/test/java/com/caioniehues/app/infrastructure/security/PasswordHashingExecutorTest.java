@@ -0,0 +1,126 @@
+package com.caioniehues.app.infrastructure.security;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("Password Hashing Executor Tests")
+class PasswordHashingExecutorTest {
+
+    private PasswordHashingExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = new PasswordHashingExecutor(1, 1, Duration.ofSeconds(5), Duration.ofSeconds(2));
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.destroy();
+    }
+
+    @Test
+    @DisplayName("Should return the result of the hashing operation")
+    void execute_ShouldReturnResult() {
+        // When
+        String hash = executor.execute(() -> "hashed");
+
+        // Then
+        assertThat(hash).isEqualTo("hashed");
+    }
+
+    @Test
+    @DisplayName("Should rethrow runtime exceptions of the hashing operation")
+    void execute_ShouldPropagateFailures() {
+        // When/Then
+        assertThatThrownBy(() -> executor.execute(() -> {
+            throw new IllegalArgumentException("bad hash");
+        }))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("bad hash");
+    }
+
+    @Test
+    @DisplayName("Should reject work immediately once the thread and queue are full")
+    void execute_WhenSaturated_ShouldReject() throws Exception {
+        // Given
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Boolean> running = CompletableFuture.supplyAsync(() -> executor.execute(() -> {
+            started.countDown();
+            return release.await(5, TimeUnit.SECONDS);
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> executor.execute(() -> "queued"));
+        while (executor.queuedOperations() == 0) {
+            Thread.onSpinWait();
+        }
+
+        // When/Then
+        assertThatThrownBy(() -> executor.execute(() -> "rejected"))
+            .isInstanceOf(PasswordHashingSaturatedException.class)
+            .extracting("retryAfter")
+            .isEqualTo(Duration.ofSeconds(2));
+
+        release.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("queued");
+    }
+
+    @Test
+    @DisplayName("Should give up on work that cannot start within the maximum wait")
+    void execute_WhenWaitExceeded_ShouldReject() throws Exception {
+        // Given
+        PasswordHashingExecutor impatient = new PasswordHashingExecutor(1, 4, Duration.ofMillis(50), Duration.ofSeconds(1));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Boolean> running = CompletableFuture.supplyAsync(() -> impatient.execute(() -> {
+            started.countDown();
+            return release.await(5, TimeUnit.SECONDS);
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        AtomicBoolean ran = new AtomicBoolean();
+
+        try {
+            // When/Then
+            assertThatThrownBy(() -> impatient.execute(() -> ran.getAndSet(true)))
+                .isInstanceOf(PasswordHashingSaturatedException.class);
+            assertThat(impatient.queuedOperations()).isZero();
+        } finally {
+            release.countDown();
+        }
+        assertThat(running.get(5, TimeUnit.SECONDS)).isTrue();
+        impatient.destroy();
+        assertThat(ran).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should let a hash that has started finish past the maximum wait")
+    void execute_WhenStartedInTime_ShouldFinish() {
+        // Given
+        PasswordHashingExecutor impatient = new PasswordHashingExecutor(1, 4, Duration.ofMillis(50), Duration.ofSeconds(1));
+
+        try {
+            // When
+            String hash = impatient.execute(() -> {
+                Thread.sleep(200);
+                return "slow";
+            });
+
+            // Then
+            assertThat(hash).isEqualTo("slow");
+        } finally {
+            impatient.destroy();
+        }
+    }
+}
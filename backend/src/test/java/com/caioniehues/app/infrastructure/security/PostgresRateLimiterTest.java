@@ -0,0 +1,214 @@
+package com.caioniehues.app.infrastructure.security;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.lang.NonNull;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+@Testcontainers
+@DisplayName("PostgreSQL Rate Limiter Tests")
+class PostgresRateLimiterTest {
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine")
+        .withDatabaseName("testdb")
+        .withUsername("test")
+        .withPassword("test");
+
+    /**
+     * Read replicas are off, so there is no separate primary pool.
+     */
+    private static final ObjectProvider<DataSource> NO_PRIMARY_POOL =
+        new StaticListableBeanFactory().getBeanProvider(DataSource.class);
+
+    private static DataSource dataSource;
+
+    @BeforeAll
+    static void createTable() {
+        dataSource = new DriverManagerDataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+        new JdbcTemplate(dataSource).execute("""
+            CREATE TABLE rate_limit_buckets (
+                bucket_key BYTEA PRIMARY KEY,
+                tokens DOUBLE PRECISION NOT NULL,
+                updated_at TIMESTAMP WITH TIME ZONE NOT NULL
+            )
+            """);
+    }
+
+    @AfterEach
+    void clearBuckets() {
+        new JdbcTemplate(dataSource).update("DELETE FROM rate_limit_buckets");
+    }
+
+    private static PostgresRateLimiter limiter(DataSource dataSource) {
+        return new PostgresRateLimiter(dataSource, NO_PRIMARY_POOL, Duration.ofSeconds(5), 3, Duration.ofSeconds(30),
+            4, 0.1, Duration.ofMinutes(1), 1000, Duration.ofHours(1));
+    }
+
+    private static double storedTokens() {
+        return new JdbcTemplate(dataSource).queryForObject("SELECT tokens FROM rate_limit_buckets", Double.class);
+    }
+
+    @Test
+    @DisplayName("Should enforce one limit across all nodes")
+    void tryConsume_FromTwoNodes_ShouldShareOneBucket() {
+        // Given - two nodes sharing the database
+        PostgresRateLimiter first = limiter(dataSource);
+        PostgresRateLimiter second = limiter(dataSource);
+        BucketKey key = BucketKey.of("192.168.1.1", 0);
+
+        // When
+        int consumed = 0;
+        for (int i = 0; i < 5; i++) {
+            PostgresRateLimiter node = i % 2 == 0 ? first : second;
+            if (node.tryConsume(key, 3, Duration.ofMinutes(1)).orElseThrow().consumed()) {
+                consumed++;
+            }
+        }
+
+        // Then
+        assertThat(consumed).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should report the time until the next token")
+    void tryConsume_WhenDrained_ShouldReportWait() {
+        // Given
+        PostgresRateLimiter node = limiter(dataSource);
+        BucketKey key = BucketKey.of("192.168.1.2", 0);
+        node.tryConsume(key, 1, Duration.ofMinutes(1));
+
+        // When
+        PostgresRateLimiter.Decision decision = node.tryConsume(key, 1, Duration.ofMinutes(1)).orElseThrow();
+
+        // Then
+        assertThat(decision.consumed()).isFalse();
+        assertThat(Duration.ofNanos(decision.nanosToWaitForRefill()))
+            .isGreaterThan(Duration.ofSeconds(50))
+            .isLessThanOrEqualTo(Duration.ofMinutes(1));
+    }
+
+    @Test
+    @DisplayName("Should answer repeated rejections without the database")
+    void tryConsume_WhenRejectedBefore_ShouldRejectLocally() {
+        // Given
+        PostgresRateLimiter node = limiter(dataSource);
+        BucketKey key = BucketKey.of("192.168.1.3", 0);
+        node.tryConsume(key, 1, Duration.ofMinutes(1));
+        node.tryConsume(key, 1, Duration.ofMinutes(1));
+
+        // When - the shared bucket is refilled behind the node's back
+        new JdbcTemplate(dataSource).update("UPDATE rate_limit_buckets SET tokens = 1");
+
+        // Then - the node still rejects from its local cache
+        assertThat(node.tryConsume(key, 1, Duration.ofMinutes(1)).orElseThrow().consumed()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should give no decision when the database is unreachable")
+    void tryConsume_WithUnreachableDatabase_ShouldFallBack() {
+        // Given
+        PostgresRateLimiter node = limiter(new DriverManagerDataSource("jdbc:postgresql://127.0.0.1:1/none", "none", "none"));
+        BucketKey key = BucketKey.of("192.168.1.4", 0);
+
+        // When
+        Optional<PostgresRateLimiter.Decision> decision = node.tryConsume(key, 5, Duration.ofMinutes(1));
+
+        // Then
+        assertThat(decision).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should spend a leased share of the bucket without the database")
+    void tryConsume_WithLease_ShouldDecideLocally() {
+        // Given - a lease is a tenth of the capacity
+        PostgresRateLimiter node = limiter(dataSource);
+        BucketKey key = BucketKey.of("192.168.1.5", 0);
+
+        // When
+        boolean allConsumed = true;
+        for (int i = 0; i < 10; i++) {
+            allConsumed &= node.tryConsume(key, 100, Duration.ofHours(1)).orElseThrow().consumed();
+        }
+
+        // Then - one round trip took the whole lease
+        assertThat(allConsumed).isTrue();
+        assertThat(storedTokens()).isCloseTo(90.0, within(0.1));
+
+        // When - the lease is spent
+        node.tryConsume(key, 100, Duration.ofHours(1));
+
+        // Then
+        assertThat(storedTokens()).isCloseTo(80.0, within(0.1));
+    }
+
+    @Test
+    @DisplayName("Should take a single token when the bucket has less than a lease left")
+    void tryConsume_WithSmallRemainder_ShouldTakeSingleToken() {
+        // Given
+        PostgresRateLimiter first = limiter(dataSource);
+        PostgresRateLimiter second = limiter(dataSource);
+        BucketKey key = BucketKey.of("192.168.1.6", 0);
+        first.tryConsume(key, 20, Duration.ofHours(1));
+        new JdbcTemplate(dataSource).update("UPDATE rate_limit_buckets SET tokens = 1");
+
+        // When
+        boolean consumed = second.tryConsume(key, 20, Duration.ofHours(1)).orElseThrow().consumed();
+
+        // Then
+        assertThat(consumed).isTrue();
+        assertThat(storedTokens()).isLessThan(1.0);
+    }
+
+    @Test
+    @DisplayName("Should fall back without waiting while every database call is in flight")
+    void tryConsume_WithAllCallsInFlight_ShouldFallBack() {
+        // Given - a database that never hands out a connection, and room for one call
+        AtomicInteger connectionRequests = new AtomicInteger();
+        CountDownLatch never = new CountDownLatch(1);
+        DataSource stuck = new DelegatingDataSource(dataSource) {
+            @Override
+            @NonNull
+            public Connection getConnection() {
+                connectionRequests.incrementAndGet();
+                while (true) {
+                    try {
+                        never.await();
+                    } catch (InterruptedException e) {
+                        // Ignore, like a driver stuck in a socket read
+                    }
+                }
+            }
+        };
+        PostgresRateLimiter node = new PostgresRateLimiter(stuck, NO_PRIMARY_POOL, Duration.ofMillis(50), 100, Duration.ofSeconds(30),
+            1, 0.1, Duration.ofMinutes(1), 1000, Duration.ofHours(1));
+
+        // When
+        Optional<PostgresRateLimiter.Decision> first = node.tryConsume(BucketKey.of("192.168.1.7", 0), 5, Duration.ofMinutes(1));
+        Optional<PostgresRateLimiter.Decision> second = node.tryConsume(BucketKey.of("192.168.1.8", 0), 5, Duration.ofMinutes(1));
+
+        // Then - the abandoned call still holds the only slot
+        assertThat(first).isEmpty();
+        assertThat(second).isEmpty();
+        assertThat(connectionRequests).hasValue(1);
+    }
+}
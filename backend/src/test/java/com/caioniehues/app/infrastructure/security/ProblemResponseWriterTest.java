@@ -0,0 +1,120 @@
+package com.caioniehues.app.infrastructure.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Problem Response Writer Tests")
+class ProblemResponseWriterTest {
+
+    private static final ProblemResponseWriter.Template FORBIDDEN = ProblemResponseWriter.template(
+        403, "Forbidden", "You do not have permission to access this resource");
+
+    private final ProblemResponseWriter writer = new ProblemResponseWriter();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private JsonNode parse(MockHttpServletResponse response) throws IOException {
+        return objectMapper.readTree(response.getContentAsByteArray());
+    }
+
+    @Test
+    @DisplayName("Should write a problem detail with status, content type and length")
+    void write_ShouldWriteProblemDetail() throws IOException {
+        // Given
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        writer.write(response, FORBIDDEN, "/api/v1/admin/users");
+
+        // Then
+        assertThat(response.getStatus()).isEqualTo(403);
+        assertThat(response.getContentType()).isEqualTo("application/json");
+        assertThat(response.getContentLength()).isEqualTo(response.getContentAsByteArray().length);
+
+        JsonNode body = parse(response);
+        assertThat(body.get("type").asText()).isEqualTo("about:blank");
+        assertThat(body.get("title").asText()).isEqualTo("Forbidden");
+        assertThat(body.get("status").asInt()).isEqualTo(403);
+        assertThat(body.get("detail").asText()).isEqualTo("You do not have permission to access this resource");
+        assertThat(body.get("instance").asText()).isEqualTo("/api/v1/admin/users");
+        assertThat(Instant.parse(body.get("timestamp").asText())).isBeforeOrEqualTo(Instant.now());
+        assertThat(body.has("retryAfter")).isFalse();
+        assertThat(body.has("user")).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should add the retryAfter member as a number")
+    void writeWithRetryAfter_ShouldAddRetryAfter() throws IOException {
+        // Given
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        writer.writeWithRetryAfter(response, FORBIDDEN, "/api/v1/auth/login", 3600);
+
+        // Then
+        JsonNode body = parse(response);
+        assertThat(body.get("retryAfter").isNumber()).isTrue();
+        assertThat(body.get("retryAfter").asLong()).isEqualTo(3600);
+        assertThat(response.getContentLength()).isEqualTo(response.getContentAsByteArray().length);
+    }
+
+    @Test
+    @DisplayName("Should write zero seconds to retry as a single digit")
+    void writeWithRetryAfter_Zero_ShouldWriteZero() throws IOException {
+        // Given
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        writer.writeWithRetryAfter(response, FORBIDDEN, "/", 0);
+
+        // Then
+        assertThat(parse(response).get("retryAfter").asLong()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should escape quotes, control characters and non-ASCII text")
+    void write_ShouldEscapeUntrustedValues() throws IOException {
+        // Given
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        String user = "josé\"\\\n😀";
+
+        // When
+        writer.writeWithUser(response, FORBIDDEN, "/api/v1/\"café\"", user);
+
+        // Then
+        byte[] content = response.getContentAsByteArray();
+        for (byte b : content) {
+            assertThat(b).isBetween((byte) 0x20, (byte) 0x7E);
+        }
+        assertThat(response.getContentLength()).isEqualTo(content.length);
+
+        JsonNode body = parse(response);
+        assertThat(body.get("user").asText()).isEqualTo(user);
+        assertThat(body.get("instance").asText()).isEqualTo("/api/v1/\"café\"");
+    }
+
+    @Test
+    @DisplayName("Should escape non-ASCII text in templates")
+    void template_ShouldEscapeNonAscii() throws IOException {
+        // Given
+        ProblemResponseWriter.Template template = ProblemResponseWriter.template(
+            503, "Service Unavailable", "Réessayez \"bientôt\"");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        // When
+        writer.write(response, template, null);
+
+        // Then
+        JsonNode body = parse(response);
+        assertThat(template.status()).isEqualTo(503);
+        assertThat(body.get("detail").asText()).isEqualTo("Réessayez \"bientôt\"");
+        assertThat(body.get("instance").asText()).isEmpty();
+    }
+}
@@ -1,25 +1,33 @@
 package com.caioniehues.app.infrastructure.security;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import io.github.bucket4j.Bucket;
 import io.github.bucket4j.ConsumptionProbe;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.DelegatingServletOutputStream;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
 
-import static org.mockito.ArgumentMatchers.anyString;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -36,27 +44,41 @@ class RateLimitFilterTest {
     @Mock
     private FilterChain filterChain;
 
-    @Mock
-    private PrintWriter writer;
-
     @Mock
     private Bucket bucket;
 
     @Mock
     private ConsumptionProbe consumptionProbe;
 
-    @Mock
-    private ObjectMapper objectMapper;
-
     private RateLimitFilter rateLimitFilter;
-    private ConcurrentHashMap<String, Bucket> buckets;
+    private RateLimitBucketStore bucketStore;
+    private RoutePolicyRegistry routePolicies;
+    private ByteArrayOutputStream body;
 
     @BeforeEach
     void setUp() throws IOException {
-        buckets = new ConcurrentHashMap<>();
-        rateLimitFilter = new RateLimitFilter(objectMapper);
+        bucketStore = new RateLimitBucketStore(1000, Duration.ofHours(1));
+        routePolicies = new RoutePolicyRegistry(new RoutePolicyProperties(List.of(), List.of(
+            limit("/api/v1/auth/login", 5, Duration.ofMinutes(1)),
+            limit("/api/v1/auth/register", 3, Duration.ofHours(1)),
+            limit("/api/v1/auth/forgot-password", 2, Duration.ofHours(1)),
+            new RoutePolicyProperties.RateLimit("/api/v1/reports", Set.of("POST"), Set.of(), Set.of(),
+                RoutePolicyProperties.Key.PRINCIPAL, 1, Duration.ofMinutes(1))
+        ), List.of()), "");
+        SecurityContextHolder.clearContext();
+        rateLimitFilter = new RateLimitFilter(new ProblemResponseWriter(), bucketStore, Optional.empty(), routePolicies);
+
+        body = new ByteArrayOutputStream();
+        when(response.getOutputStream()).thenReturn(new DelegatingServletOutputStream(body));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
 
-        when(response.getWriter()).thenReturn(writer);
+    private static RoutePolicyProperties.RateLimit limit(String path, int capacity, Duration period) {
+        return new RoutePolicyProperties.RateLimit(path, null, null, null, RoutePolicyProperties.Key.ADDRESS, capacity, period);
     }
 
     @Test
@@ -83,9 +105,9 @@ class RateLimitFilterTest {
         when(bucket.tryConsume(1)).thenReturn(true);
 
         // Create a mock rate limit filter that uses our mock bucket
-        RateLimitFilter mockRateLimitFilter = new RateLimitFilter(objectMapper) {
+        RateLimitFilter mockRateLimitFilter = new RateLimitFilter(new ProblemResponseWriter(), bucketStore, Optional.empty(), routePolicies) {
             @Override
-            protected Bucket createBucket(String endpoint) {
+            protected Bucket createBucket(RateLimitPolicy policy) {
                 return bucket;
             }
         };
@@ -109,9 +131,9 @@ class RateLimitFilterTest {
         when(consumptionProbe.getNanosToWaitForRefill()).thenReturn(Duration.ofSeconds(30).toNanos());
 
         // Create a mock rate limit filter that uses our mock bucket
-        RateLimitFilter mockRateLimitFilter = new RateLimitFilter(objectMapper) {
+        RateLimitFilter mockRateLimitFilter = new RateLimitFilter(new ProblemResponseWriter(), bucketStore, Optional.empty(), routePolicies) {
             @Override
-            protected Bucket createBucket(String endpoint) {
+            protected Bucket createBucket(RateLimitPolicy policy) {
                 return bucket;
             }
         };
@@ -178,9 +200,9 @@ class RateLimitFilterTest {
         when(consumptionProbe.getNanosToWaitForRefill()).thenReturn(Duration.ofMinutes(1).toNanos());
 
         // Create a mock rate limit filter that uses our mock bucket
-        RateLimitFilter mockRateLimitFilter = new RateLimitFilter(objectMapper) {
+        RateLimitFilter mockRateLimitFilter = new RateLimitFilter(new ProblemResponseWriter(), bucketStore, Optional.empty(), routePolicies) {
             @Override
-            protected Bucket createBucket(String endpoint) {
+            protected Bucket createBucket(RateLimitPolicy policy) {
                 return bucket;
             }
         };
@@ -192,8 +214,10 @@ class RateLimitFilterTest {
         verify(response).setStatus(429);
         verify(response).setContentType("application/json");
         verify(response).setHeader("Retry-After", "60");
-        verify(writer).write(anyString()); // Error response body
-        verify(writer).flush();
+        assertThat(body.toString(StandardCharsets.US_ASCII))
+            .contains("\"status\":429")
+            .contains("\"detail\":\"Rate limit exceeded. Please try again later.\"")
+            .endsWith("\"retryAfter\":60}");
     }
 
     @Test
@@ -252,9 +276,9 @@ class RateLimitFilterTest {
         when(consumptionProbe.getNanosToWaitForRefill()).thenReturn(Duration.ofSeconds(45).toNanos());
 
         // Create a mock rate limit filter that uses our mock bucket
-        RateLimitFilter mockRateLimitFilter = new RateLimitFilter(objectMapper) {
+        RateLimitFilter mockRateLimitFilter = new RateLimitFilter(new ProblemResponseWriter(), bucketStore, Optional.empty(), routePolicies) {
             @Override
-            protected Bucket createBucket(String endpoint) {
+            protected Bucket createBucket(RateLimitPolicy policy) {
                 return bucket;
             }
         };
@@ -280,4 +304,79 @@ class RateLimitFilterTest {
         // Then - Should continue processing with default IP handling
         verify(filterChain).doFilter(request, response);
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should share one bucket per endpoint for all paths below it")
+    void subPaths_ShouldShareEndpointBucket() throws ServletException, IOException {
+        // Given
+        when(request.getRemoteAddr()).thenReturn("127.0.0.1");
+        when(request.getServletPath()).thenReturn("/api/v1/auth/login", "/api/v1/auth/login/extra");
+
+        // When
+        rateLimitFilter.doFilter(request, response, filterChain);
+        rateLimitFilter.doFilter(request, response, filterChain);
+
+        // Then
+        assertThat(bucketStore.size()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should ignore forwarding headers that are not IP literals")
+    void invalidForwardedFor_ShouldFallBackToRemoteAddress() throws ServletException, IOException {
+        // Given
+        when(request.getServletPath()).thenReturn("/api/v1/auth/login");
+        when(request.getRemoteAddr()).thenReturn("10.0.0.7");
+        when(request.getHeader("X-Forwarded-For")).thenReturn("spoofed-1", "spoofed-2", "not.an.ip.example.com");
+
+        // When
+        for (int i = 0; i < 3; i++) {
+            rateLimitFilter.doFilter(request, response, filterChain);
+        }
+
+        // Then - all three requests land in the bucket of the remote address
+        assertThat(bucketStore.size()).isEqualTo(1);
+        verify(filterChain, times(3)).doFilter(request, response);
+    }
+
+    @Test
+    @DisplayName("Should keep per-principal buckets apart for callers behind one address")
+    void perPrincipalPolicy_ShouldKeepBucketsPerPrincipal() throws ServletException, IOException {
+        // Given
+        when(request.getServletPath()).thenReturn("/api/v1/reports");
+        when(request.getMethod()).thenReturn("POST");
+        when(request.getRemoteAddr()).thenReturn("10.0.0.1");
+
+        // When - two users behind the same proxy, each within their own limit of one
+        authenticateAs("alice");
+        rateLimitFilter.doFilter(request, response, filterChain);
+        authenticateAs("bob");
+        rateLimitFilter.doFilter(request, response, filterChain);
+
+        // Then
+        assertThat(bucketStore.size()).isEqualTo(2);
+        verify(filterChain, times(2)).doFilter(request, response);
+        verify(response, never()).setStatus(eq(429));
+    }
+
+    @Test
+    @DisplayName("Should only apply method-specific policies to their methods")
+    void methodSpecificPolicy_WithOtherMethod_ShouldSkipRateLimit() throws ServletException, IOException {
+        // Given
+        when(request.getServletPath()).thenReturn("/api/v1/reports");
+        when(request.getMethod()).thenReturn("GET");
+
+        // When
+        rateLimitFilter.doFilter(request, response, filterChain);
+
+        // Then
+        assertThat(bucketStore.size()).isZero();
+        verify(filterChain).doFilter(request, response);
+    }
+
+    private static void authenticateAs(String username) {
+        AuthPrincipal principal = new AuthPrincipal(UUID.nameUUIDFromBytes(username.getBytes(StandardCharsets.UTF_8)),
+            username, username, null, true, List.of(new SimpleGrantedAuthority("ROLE_USER")), 0);
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+            principal, null, principal.getAuthorities()));
+    }
+}
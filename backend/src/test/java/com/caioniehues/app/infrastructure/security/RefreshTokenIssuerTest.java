@@ -0,0 +1,56 @@
+package com.caioniehues.app.infrastructure.security;
+
+import com.caioniehues.app.domain.user.User;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Refresh Token Issuer Tests")
+class RefreshTokenIssuerTest {
+
+    @Mock
+    private JwtService jwtService;
+
+    private final User user = User.builder()
+        .username("test@example.com")
+        .email("test@example.com")
+        .build();
+
+    @Test
+    @DisplayName("Should issue 256-bit URL-safe opaque tokens in opaque mode")
+    void opaqueMode_ShouldIssueRandomUrlSafeTokens() {
+        // Given
+        RefreshTokenIssuer issuer = new RefreshTokenIssuer(jwtService, RefreshTokenIssuer.Format.OPAQUE);
+
+        // When
+        String first = issuer.issue(user);
+        String second = issuer.issue(user);
+
+        // Then
+        assertThat(first).hasSize(43).matches("[A-Za-z0-9_-]+");
+        assertThat(first).isNotEqualTo(second);
+        assertThat(RefreshTokenIssuer.isOpaque(first)).isTrue();
+        verifyNoInteractions(jwtService);
+    }
+
+    @Test
+    @DisplayName("Should issue signed JWTs in jwt mode")
+    void jwtMode_ShouldDelegateToJwtService() {
+        // Given
+        RefreshTokenIssuer issuer = new RefreshTokenIssuer(jwtService, RefreshTokenIssuer.Format.JWT);
+        when(jwtService.generateRefreshToken(user)).thenReturn("header.payload.signature");
+
+        // When
+        String token = issuer.issue(user);
+
+        // Then
+        assertThat(token).isEqualTo("header.payload.signature");
+        assertThat(RefreshTokenIssuer.isOpaque(token)).isFalse();
+    }
+}
@@ -0,0 +1,155 @@
+package com.caioniehues.app.infrastructure.security;
+
+import com.caioniehues.app.infrastructure.persistence.BulkheadProperties;
+import com.caioniehues.app.infrastructure.persistence.BulkheadRegistry;
+import com.caioniehues.app.infrastructure.persistence.RecentInvalidations;
+import com.caioniehues.app.infrastructure.persistence.TokenBlacklistRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Revoked Token Index Tests")
+class RevokedTokenIndexTest {
+
+    @Mock
+    private TokenBlacklistRepository tokenBlacklistRepository;
+
+    private RevokedTokenIndex revokedTokenIndex;
+
+    @BeforeEach
+    void setUp() {
+        BulkheadRegistry bulkheads = new BulkheadRegistry(new BulkheadProperties(true, Duration.ofSeconds(1),
+            new BulkheadProperties.Pool(4, Duration.ofMillis(50)), Map.of()));
+        RecentInvalidations recentInvalidations = new RecentInvalidations(false, Duration.ZERO, Duration.ZERO, 0);
+        revokedTokenIndex = new RevokedTokenIndex(tokenBlacklistRepository, bulkheads, recentInvalidations, 1_000, 0.01);
+    }
+
+    @Test
+    @DisplayName("Should consult the database for every JTI before the first load")
+    void beforeLoad_ShouldFallBackToDatabase() {
+        // Given
+        when(tokenBlacklistRepository.existsByJti("jti-1")).thenReturn(false);
+
+        // When
+        boolean revoked = revokedTokenIndex.isRevoked("jti-1");
+
+        // Then
+        assertThat(revoked).isFalse();
+        verify(tokenBlacklistRepository).existsByJti("jti-1");
+    }
+
+    @Test
+    @DisplayName("Should answer from memory for JTIs that were never blacklisted")
+    void unknownJti_ShouldNotQueryDatabase() {
+        // Given
+        when(tokenBlacklistRepository.findActiveJtis(any(Instant.class))).thenReturn(List.of("revoked-jti"));
+        revokedTokenIndex.load();
+
+        // When
+        boolean revoked = revokedTokenIndex.isRevoked("never-revoked-jti");
+
+        // Then
+        assertThat(revoked).isFalse();
+        verify(tokenBlacklistRepository, never()).existsByJti(anyString());
+    }
+
+    @Test
+    @DisplayName("Should confirm loaded JTIs against the database")
+    void loadedJti_ShouldBeConfirmedByDatabase() {
+        // Given
+        when(tokenBlacklistRepository.findActiveJtis(any(Instant.class))).thenReturn(List.of("revoked-jti"));
+        when(tokenBlacklistRepository.existsByJti("revoked-jti")).thenReturn(true);
+        revokedTokenIndex.load();
+
+        // When
+        boolean revoked = revokedTokenIndex.isRevoked("revoked-jti");
+
+        // Then
+        assertThat(revoked).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should include revocations added after the load")
+    void addedRevocation_ShouldBeVisible() {
+        // Given
+        when(tokenBlacklistRepository.findActiveJtis(any(Instant.class))).thenReturn(List.of());
+        revokedTokenIndex.load();
+
+        // When
+        revokedTokenIndex.add("logged-out-jti");
+
+        // Then
+        assertThat(revokedTokenIndex.mightBeRevoked("logged-out-jti")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should drop expired JTIs on rebuild")
+    void rebuild_ShouldDropExpiredEntries() {
+        // Given
+        when(tokenBlacklistRepository.findActiveJtis(any(Instant.class)))
+            .thenReturn(List.of("expiring-jti"))
+            .thenReturn(List.of());
+        revokedTokenIndex.load();
+        assertThat(revokedTokenIndex.mightBeRevoked("expiring-jti")).isTrue();
+
+        // When
+        revokedTokenIndex.rebuild();
+
+        // Then
+        assertThat(revokedTokenIndex.mightBeRevoked("expiring-jti")).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should keep JTIs revoked since the previous rebuild when a lagging replica misses them")
+    void rebuild_WithRowsMissingOnReplica_ShouldKeepRecentRevocations() {
+        // Given
+        when(tokenBlacklistRepository.findActiveJtis(any(Instant.class))).thenReturn(List.of());
+        revokedTokenIndex.load();
+        revokedTokenIndex.add("fresh-jti");
+
+        // When
+        revokedTokenIndex.rebuild();
+
+        // Then
+        assertThat(revokedTokenIndex.mightBeRevoked("fresh-jti")).isTrue();
+
+        // And - By the rebuild after, every replica serving reads has the row
+        revokedTokenIndex.rebuild();
+        assertThat(revokedTokenIndex.mightBeRevoked("fresh-jti")).isFalse();
+    }
+
+    @Test
+    @DisplayName("Bloom filter should have no false negatives and a bounded false-positive rate")
+    void bloomFilter_ShouldStayWithinFalsePositiveRate() {
+        // Given
+        BloomFilter filter = BloomFilter.create(10_000, 0.01);
+        List<String> inserted = IntStream.range(0, 10_000).mapToObj(i -> UUID.randomUUID().toString()).toList();
+        inserted.forEach(filter::put);
+
+        // When
+        long falsePositives = IntStream.range(0, 10_000)
+            .mapToObj(i -> UUID.randomUUID().toString())
+            .filter(filter::mightContain)
+            .count();
+
+        // Then
+        assertThat(inserted).allMatch(filter::mightContain);
+        assertThat(falsePositives).isLessThan(300);
+    }
+}
@@ -0,0 +1,102 @@
+package com.caioniehues.app.infrastructure.security;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("Route Policy Registry Tests")
+class RoutePolicyRegistryTest {
+
+    private static final RoutePolicyProperties DEFAULTS =
+        new RoutePolicyProperties(List.of("/api/health"), List.of(), List.of());
+
+    @TempDir
+    Path directory;
+
+    private static void write(Path file, String content, Instant modifiedAt) throws IOException {
+        Files.writeString(file, content);
+        Files.setLastModifiedTime(file, FileTime.from(modifiedAt));
+    }
+
+    @Test
+    @DisplayName("Should use the application configuration when no policy file is set")
+    void withoutFile_ShouldUseConfiguredPolicies() {
+        // When
+        RoutePolicyRegistry registry = new RoutePolicyRegistry(DEFAULTS, "");
+
+        // Then
+        assertThat(registry.current().isPublic("/api/health")).isTrue();
+        assertThat(registry.reload()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should replace the policies when the policy file changes")
+    void reload_WhenFileChanges_ShouldApplyNewPolicies() throws IOException {
+        // Given
+        Path file = directory.resolve("route-policies.yml");
+        write(file, """
+            app:
+              route-policies:
+                rate-limits:
+                  - path: /api/v1/auth/login
+                    capacity: 5
+                    period: 1m
+            """, Instant.parse("2025-01-01T00:00:00Z"));
+        RoutePolicyRegistry registry = new RoutePolicyRegistry(DEFAULTS, file.toString());
+        assertThat(registry.current().findRateLimit("/api/v1/auth/login", "POST", null).capacity()).isEqualTo(5);
+
+        // When
+        write(file, """
+            app:
+              route-policies:
+                rate-limits:
+                  - path: /api/v1/auth/login
+                    methods: [POST]
+                    key: principal
+                    capacity: 1
+                    period: 5m
+            """, Instant.parse("2025-01-01T00:01:00Z"));
+        boolean reloaded = registry.reload();
+
+        // Then
+        assertThat(reloaded).isTrue();
+        RateLimitPolicy policy = registry.current().findRateLimit("/api/v1/auth/login", "POST", null);
+        assertThat(policy.capacity()).isEqualTo(1);
+        assertThat(policy.perPrincipal()).isTrue();
+        assertThat(registry.current().isPublic("/api/health")).isFalse();
+        assertThat(registry.reload()).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should keep the previous policies when the policy file is invalid")
+    void reload_WithInvalidFile_ShouldKeepPreviousPolicies() throws IOException {
+        // Given
+        Path file = directory.resolve("route-policies.yml");
+        RoutePolicyRegistry registry = new RoutePolicyRegistry(DEFAULTS, file.toString());
+
+        // When
+        write(file, """
+            app:
+              route-policies:
+                rate-limits:
+                  - path: /api/v1/auth/login
+                    capacity: 0
+                    period: 1m
+            """, Instant.parse("2025-01-01T00:00:00Z"));
+        boolean reloaded = registry.reload();
+
+        // Then
+        assertThat(reloaded).isFalse();
+        assertThat(registry.current().isPublic("/api/health")).isTrue();
+        assertThat(registry.current().findRateLimit("/api/v1/auth/login", "POST", null)).isNull();
+    }
+}
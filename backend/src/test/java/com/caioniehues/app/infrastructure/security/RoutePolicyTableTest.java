@@ -0,0 +1,119 @@
+package com.caioniehues.app.infrastructure.security;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("Route Policy Table Tests")
+class RoutePolicyTableTest {
+
+    private static RoutePolicyProperties.RateLimit limit(
+            String path, Set<String> methods, Set<String> roles, Set<String> principals, int capacity) {
+        return new RoutePolicyProperties.RateLimit(
+            path, methods, roles, principals, RoutePolicyProperties.Key.ADDRESS, capacity, Duration.ofMinutes(1));
+    }
+
+    private static Authentication user(String name, String... roles) {
+        return new UsernamePasswordAuthenticationToken(name, null, AuthorityUtils.createAuthorityList(roles));
+    }
+
+    @Test
+    @DisplayName("Should match public paths by prefix, as the filters always have")
+    void isPublic_ShouldMatchPrefixes() {
+        // Given
+        RoutePolicyTable table = RoutePolicyTable.compile(
+            new RoutePolicyProperties(List.of("/api/health", "/swagger-ui"), List.of(), List.of()));
+
+        // Then
+        assertThat(table.isPublic("/api/health")).isTrue();
+        assertThat(table.isPublic("/api/health/db")).isTrue();
+        assertThat(table.isPublic("/swagger-ui.html")).isTrue();
+        assertThat(table.isPublic("/api/heal")).isFalse();
+        assertThat(table.isPublic("/api/v1/users")).isFalse();
+        assertThat(table.isPublic("")).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should prefer the longest matching path")
+    void findRateLimit_ShouldPreferLongestPrefix() {
+        // Given
+        RoutePolicyTable table = RoutePolicyTable.compile(new RoutePolicyProperties(List.of(), List.of(
+            limit("/api", null, null, null, 100),
+            limit("/api/v1/auth/login", null, null, null, 5)), List.of()));
+
+        // Then
+        assertThat(table.findRateLimit("/api/v1/auth/login", "POST", null).capacity()).isEqualTo(5);
+        assertThat(table.findRateLimit("/api/v1/auth/logout", "POST", null).capacity()).isEqualTo(100);
+        assertThat(table.findRateLimit("/other", "POST", null)).isNull();
+    }
+
+    @Test
+    @DisplayName("Should fall back to a shorter path when no limit on the longer one applies")
+    void findRateLimit_WithNonMatchingMethod_ShouldFallBackToShorterPrefix() {
+        // Given
+        RoutePolicyTable table = RoutePolicyTable.compile(new RoutePolicyProperties(List.of(), List.of(
+            limit("/api", null, null, null, 100),
+            limit("/api/v1/reports", Set.of("post"), null, null, 2)), List.of()));
+
+        // Then
+        assertThat(table.findRateLimit("/api/v1/reports", "POST", null).capacity()).isEqualTo(2);
+        assertThat(table.findRateLimit("/api/v1/reports", "GET", null).capacity()).isEqualTo(100);
+    }
+
+    @Test
+    @DisplayName("Should apply per-principal and per-role limits in the order listed")
+    void findRateLimit_ShouldMatchPrincipalsAndRolesInOrder() {
+        // Given
+        RoutePolicyTable table = RoutePolicyTable.compile(new RoutePolicyProperties(List.of(), List.of(
+            limit("/api/v1/reports", null, null, Set.of("batch-job"), 1000),
+            limit("/api/v1/reports", null, Set.of("ADMIN"), null, 100),
+            limit("/api/v1/reports", null, null, null, 10)), List.of()));
+
+        // Then
+        assertThat(table.findRateLimit("/api/v1/reports", "GET", user("batch-job", "ROLE_USER")).capacity()).isEqualTo(1000);
+        assertThat(table.findRateLimit("/api/v1/reports", "GET", user("alice", "ROLE_ADMIN")).capacity()).isEqualTo(100);
+        assertThat(table.findRateLimit("/api/v1/reports", "GET", user("bob", "ROLE_USER")).capacity()).isEqualTo(10);
+        assertThat(table.findRateLimit("/api/v1/reports", "GET", null).capacity()).isEqualTo(10);
+        assertThat(table.findRateLimit("/api/v1/reports", "GET", new AnonymousAuthenticationToken(
+            "key", "anonymousUser", AuthorityUtils.createAuthorityList("ROLE_ADMIN"))).capacity()).isEqualTo(10);
+    }
+
+    @Test
+    @DisplayName("Should give a policy the same ID wherever and whenever it is compiled")
+    void compile_ShouldDeriveStableIds() {
+        // Given
+        RoutePolicyProperties.RateLimit login = limit("/api/v1/auth/login", Set.of("POST"), null, null, 5);
+        RoutePolicyProperties.RateLimit register = limit("/api/v1/auth/register", null, null, null, 3);
+
+        // When
+        RoutePolicyTable first = RoutePolicyTable.compile(new RoutePolicyProperties(List.of(), List.of(login, register), List.of()));
+        RoutePolicyTable reordered = RoutePolicyTable.compile(new RoutePolicyProperties(List.of(), List.of(register, login), List.of()));
+        RoutePolicyTable tightened = RoutePolicyTable.compile(new RoutePolicyProperties(List.of(), List.of(
+            limit("/api/v1/auth/login", Set.of("POST"), null, null, 2)), List.of()));
+
+        // Then
+        int id = first.findRateLimit("/api/v1/auth/login", "POST", null).id();
+        assertThat(reordered.findRateLimit("/api/v1/auth/login", "POST", null).id()).isEqualTo(id);
+        assertThat(tightened.findRateLimit("/api/v1/auth/login", "POST", null).id()).isNotEqualTo(id);
+    }
+
+    @Test
+    @DisplayName("Should reject incomplete policies")
+    void compile_WithInvalidPolicy_ShouldThrow() {
+        assertThatThrownBy(() -> RoutePolicyTable.compile(new RoutePolicyProperties(List.of("api"), List.of(), List.of())))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> RoutePolicyTable.compile(new RoutePolicyProperties(List.of(), List.of(
+            limit("/api", null, null, null, 0)), List.of())))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -63,13 +63,12 @@ public class AuthLoginIntegrationTest extends BaseIntegrationTest {
         assertThat(response.expiresIn()).isPositive();
 
         // Verify token claims
-        String extractedUsername = jwtService.extractUsername(response.accessToken());
+        String extractedUsername = jwtService.verify(response.accessToken()).subject();
         assertThat(extractedUsername).isEqualTo(email);
 
         // Verify token is valid
-        var userDetails = (com.caioniehues.app.domain.user.User)
-            userDetailsService.loadUserByUsername(email);
-        assertThat(jwtService.validateTokenForUser(response.accessToken(), userDetails)).isTrue();
+        var userDetails = userDetailsService.loadUserByUsername(email);
+        assertThat(jwtService.verify(response.accessToken()).isValidFor(userDetails)).isTrue();
     }
 
     @Test
@@ -187,10 +186,9 @@ public class AuthLoginIntegrationTest extends BaseIntegrationTest {
         assertThat(firstLogin.refreshToken()).isNotEqualTo(secondLogin.refreshToken());
 
         // Both tokens should be valid
-        var userDetails = (com.caioniehues.app.domain.user.User)
-            userDetailsService.loadUserByUsername(email);
-        assertThat(jwtService.validateTokenForUser(firstLogin.accessToken(), userDetails)).isTrue();
-        assertThat(jwtService.validateTokenForUser(secondLogin.accessToken(), userDetails)).isTrue();
+        var userDetails = userDetailsService.loadUserByUsername(email);
+        assertThat(jwtService.verify(firstLogin.accessToken()).isValidFor(userDetails)).isTrue();
+        assertThat(jwtService.verify(secondLogin.accessToken()).isValidFor(userDetails)).isTrue();
     }
 
     @Test
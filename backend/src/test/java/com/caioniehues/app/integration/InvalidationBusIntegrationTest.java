@@ -0,0 +1,194 @@
+package com.caioniehues.app.integration;
+
+import com.caioniehues.app.application.dto.request.RegisterRequest;
+import com.caioniehues.app.application.dto.response.TokenResponse;
+import com.caioniehues.app.domain.user.User;
+import com.caioniehues.app.infrastructure.messaging.InvalidationEvent;
+import com.caioniehues.app.infrastructure.security.JwtService;
+import com.caioniehues.app.infrastructure.security.UserTokenStatusCache;
+import com.caioniehues.app.infrastructure.security.VerifiedToken;
+import com.caioniehues.app.util.AuthTestHelper;
+import com.caioniehues.app.util.TestDataBuilder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the PostgreSQL invalidation bus against a real database. Another node is played by plain
+ * SQL on a separate connection, publishing the way the bus does or only logging an event, as if
+ * its notification had been lost.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Testcontainers
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+    "app.auth.invalidation-bus.enabled=true",
+    "app.auth.invalidation-bus.poll-timeout=PT0.1S"
+})
+@DisplayName("Invalidation Bus Integration Tests")
+class InvalidationBusIntegrationTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15")
+        .withDatabaseName("testdb")
+        .withUsername("testuser")
+        .withPassword("testpass")
+        .withInitScript("invalidation-bus-init.sql");
+
+    @Autowired
+    private AuthTestHelper authTestHelper;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private UserTokenStatusCache userTokenStatusCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private DataSource dataSource;
+
+    /**
+     * Newest log entry and events applied when the test started.
+     */
+    private long logMark;
+    private double appliedMark;
+
+    @BeforeEach
+    void awaitListener() throws InterruptedException {
+        await(() -> meterRegistry.get("auth.invalidation.listener.connected").gauge().value() == 1);
+        logMark = anotherNode().queryForObject("SELECT COALESCE(MAX(id), 0) FROM auth_invalidation_log", Long.class);
+        appliedMark = applied();
+    }
+
+    private double applied() {
+        return meterRegistry.get("auth.invalidation.applied").functionCounter().count();
+    }
+
+    private static JdbcTemplate anotherNode() {
+        return new JdbcTemplate(new DriverManagerDataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword()));
+    }
+
+    /**
+     * Log and announce an event like the bus of another node.
+     */
+    private void publishFromAnotherNode(InvalidationEvent event) throws Exception {
+        anotherNode().queryForList("""
+            WITH entry AS (
+                INSERT INTO auth_invalidation_log (event_type, payload) VALUES (?, ?) RETURNING id, payload
+            )
+            SELECT pg_notify('auth_invalidation', entry.id || ':' || entry.payload) FROM entry
+            """, event.type().name(), objectMapper.writeValueAsString(event));
+    }
+
+    /**
+     * Log an event without announcing it, like a notification that never arrived.
+     */
+    private void logFromAnotherNode(InvalidationEvent event) throws Exception {
+        anotherNode().update("INSERT INTO auth_invalidation_log (event_type, payload) VALUES (?, ?)",
+            event.type().name(), objectMapper.writeValueAsString(event));
+    }
+
+    /**
+     * Log in and cache the token status of the user, then move the user to a new token epoch
+     * behind this node's back.
+     */
+    private VerifiedToken cachedTokenOfRevokedUser(String email) throws Exception {
+        RegisterRequest registerRequest = TestDataBuilder.aRegisterRequest()
+            .email(email)
+            .build();
+        TokenResponse tokens = authTestHelper.registerAndLoginUser(registerRequest);
+
+        // This node hears its own events too; let them evict before the status is cached
+        await(() -> applied() - appliedMark >= anotherNode().queryForObject(
+            "SELECT COUNT(*) FROM auth_invalidation_log WHERE id > ?", Long.class, logMark));
+        VerifiedToken token = jwtService.verify(tokens.accessToken());
+        assertThat(userTokenStatusCache.isRevoked(token)).isFalse();
+
+        anotherNode().update("UPDATE users SET token_epoch = token_epoch + 1 WHERE id = ?", token.userId());
+        assertThat(userTokenStatusCache.isRevoked(token)).isFalse();
+        return token;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime() - deadline).as("condition not met within %s", TIMEOUT).isNegative();
+            Thread.sleep(50);
+        }
+    }
+
+    @Test
+    @DisplayName("Should listen on a connection outside the application pool")
+    void listener_ShouldNotHoldPooledConnection() throws Exception {
+        // When
+        Integer listeners = anotherNode().queryForObject(
+            "SELECT COUNT(*) FROM pg_stat_activity WHERE application_name = 'auth-invalidation-listener'", Integer.class);
+
+        // Then
+        assertThat(listeners).isPositive();
+        assertThat(dataSource.unwrap(HikariDataSource.class).getHikariPoolMXBean().getActiveConnections()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should evict a cached token status when another node revokes the sessions")
+    void notification_FromAnotherNode_ShouldEvictCachedStatus() throws Exception {
+        // Given
+        String email = "bus-notify@example.com";
+        VerifiedToken token = cachedTokenOfRevokedUser(email);
+
+        // When
+        publishFromAnotherNode(InvalidationEvent.sessionsRevoked(token.userId(), List.of(User.toLoginKey(email))));
+
+        // Then
+        await(() -> userTokenStatusCache.isRevoked(token));
+    }
+
+    @Test
+    @DisplayName("Should replay events it missed once the listener reconnects")
+    void reconnect_ShouldCatchUpOnMissedEvents() throws Exception {
+        // Given
+        String email = "bus-catch-up@example.com";
+        VerifiedToken token = cachedTokenOfRevokedUser(email);
+        double reconnects = meterRegistry.get("auth.invalidation.reconnects").functionCounter().count();
+        logFromAnotherNode(InvalidationEvent.sessionsRevoked(token.userId(), List.of(User.toLoginKey(email))));
+
+        // When
+        anotherNode().queryForList(
+            "SELECT pg_terminate_backend(pid) FROM pg_stat_activity WHERE application_name = 'auth-invalidation-listener'");
+
+        // Then
+        await(() -> userTokenStatusCache.isRevoked(token));
+        assertThat(meterRegistry.get("auth.invalidation.reconnects").functionCounter().count()).isGreaterThan(reconnects);
+    }
+}
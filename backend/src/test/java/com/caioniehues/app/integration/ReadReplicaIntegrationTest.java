@@ -0,0 +1,158 @@
+package com.caioniehues.app.integration;
+
+import com.caioniehues.app.application.dto.request.RegisterRequest;
+import com.caioniehues.app.application.dto.response.TokenResponse;
+import com.caioniehues.app.util.AuthTestHelper;
+import com.caioniehues.app.util.TestDataBuilder;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.Container.ExecResult;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Two independent databases stand in for a primary and a replica that stopped replaying. The
+ * replica only changes when a test copies the primary over, so every write after the copy is
+ * one the replica lags behind on. Read-your-writes is off, as for a request of another session.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Testcontainers
+@ActiveProfiles("test")
+@DisplayName("Read Replica Integration Tests")
+class ReadReplicaIntegrationTest {
+
+    @Container
+    static PostgreSQLContainer<?> primary = new PostgreSQLContainer<>("postgres:15")
+        .withDatabaseName("testdb")
+        .withUsername("testuser")
+        .withPassword("testpass")
+        .withInitScript("test-init.sql");
+
+    @Container
+    static PostgreSQLContainer<?> replica = new PostgreSQLContainer<>("postgres:15")
+        .withDatabaseName("testdb")
+        .withUsername("testuser")
+        .withPassword("testpass");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", primary::getJdbcUrl);
+        registry.add("spring.datasource.username", primary::getUsername);
+        registry.add("spring.datasource.password", primary::getPassword);
+        registry.add("app.datasource.read-replicas.enabled", () -> "true");
+        registry.add("app.datasource.read-replicas.read-your-writes-window", () -> "PT0S");
+        registry.add("app.datasource.read-replicas.replicas[0].url", replica::getJdbcUrl);
+    }
+
+    @TestConfiguration
+    static class ReplicaSchemaConfig {
+
+        /**
+         * Give the replica the schema Hibernate just created on the primary, before the
+         * startup reads run.
+         */
+        @Bean
+        ApplicationListener<ContextRefreshedEvent> replicaSchema() {
+            return event -> replicate();
+        }
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private AuthTestHelper authTestHelper;
+
+    /**
+     * Replace everything on the replica with a copy of the primary as it is now.
+     */
+    static void replicate() {
+        try {
+            ExecResult dump = primary.execInContainer("pg_dump", "--username=" + primary.getUsername(),
+                "--inserts", "--no-owner", "--no-privileges", primary.getDatabaseName());
+            assertThat(dump.getExitCode()).as(dump.getStderr()).isZero();
+
+            JdbcTemplate jdbcTemplate = replicaJdbcTemplate();
+            jdbcTemplate.execute("DROP SCHEMA public CASCADE");
+            jdbcTemplate.execute("CREATE SCHEMA public");
+            jdbcTemplate.execute(dump.getStdout());
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not copy the primary to the replica", e);
+        }
+    }
+
+    private static JdbcTemplate replicaJdbcTemplate() {
+        return new JdbcTemplate(new DriverManagerDataSource(replica.getJdbcUrl(), replica.getUsername(), replica.getPassword()));
+    }
+
+    private String loggedInUser(String email) throws Exception {
+        RegisterRequest registerRequest = TestDataBuilder.aRegisterRequest()
+            .email(email)
+            .build();
+        TokenResponse tokens = authTestHelper.registerAndLoginUser(registerRequest);
+        String authHeader = authTestHelper.getAuthorizationHeader(tokens.accessToken());
+
+        mockMvc.perform(get("/api/v1/auth/me").header("Authorization", authHeader))
+            .andExpect(status().isOk());
+        return authHeader;
+    }
+
+    @Test
+    @DisplayName("Should reject a logged out token while the replica has not seen the logout")
+    void logout_WithLaggingReplica_ShouldRejectToken() throws Exception {
+        // Given
+        String authHeader = loggedInUser("replica-logout@example.com");
+        replicate();
+
+        // When
+        mockMvc.perform(post("/api/v1/auth/logout").header("Authorization", authHeader))
+            .andExpect(status().is2xxSuccessful());
+
+        // Then
+        assertThat(replicaJdbcTemplate().queryForObject("SELECT COUNT(*) FROM token_blacklist", Integer.class))
+            .isZero();
+        mockMvc.perform(get("/api/v1/auth/me").header("Authorization", authHeader))
+            .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    @DisplayName("Should reject tokens revoked by logout-all while the replica has not seen the new epoch")
+    void logoutAll_WithLaggingReplica_ShouldRejectToken() throws Exception {
+        // Given
+        String email = "replica-logout-all@example.com";
+        String authHeader = loggedInUser(email);
+        replicate();
+        Integer replicaEpoch = replicaJdbcTemplate().queryForObject(
+            "SELECT token_epoch FROM users WHERE email = ?", Integer.class, email);
+
+        // When
+        mockMvc.perform(post("/api/v1/auth/logout-all").header("Authorization", authHeader))
+            .andExpect(status().is2xxSuccessful());
+
+        // Then
+        assertThat(replicaJdbcTemplate().queryForObject(
+            "SELECT token_epoch FROM users WHERE email = ?", Integer.class, email)).isEqualTo(replicaEpoch);
+        mockMvc.perform(get("/api/v1/auth/me").header("Authorization", authHeader))
+            .andExpect(status().isUnauthorized());
+    }
+}
@@ -11,6 +11,8 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.http.MediaType.APPLICATION_JSON;
@@ -61,8 +63,8 @@ public class TokenManagementIntegrationTest extends BaseIntegrationTest {
         assertThat(refreshResponse.refreshToken()).isNotEqualTo(loginResponse.refreshToken());
 
         // New access token should be valid
-        var userDetails = (com.caioniehues.app.domain.user.User) userDetailsService.loadUserByUsername(email);
-        assertThat(jwtService.validateTokenForUser(refreshResponse.accessToken(), userDetails)).isTrue();
+        var userDetails = userDetailsService.loadUserByUsername(email);
+        assertThat(jwtService.verify(refreshResponse.accessToken()).isValidFor(userDetails)).isTrue();
 
         // Original refresh token should be invalidated (token rotation)
         RefreshRequest oldTokenRequest = new RefreshRequest(loginResponse.refreshToken());
@@ -166,6 +168,37 @@ public class TokenManagementIntegrationTest extends BaseIntegrationTest {
             .andExpect(status().isUnauthorized());
     }
 
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DisplayName("Should accept tokens from a new login after logout-all for a mixed-case login")
+    void logoutAll_WithMixedCaseLogin_ShouldAcceptTokensFromNextLogin() throws Exception {
+        // Given - Caches are only invalidated once the logout-all transaction commits
+        String email = "Mixed.Case@Example.com";
+        String password = "MixedCasePassword123!";
+        RegisterRequest registerRequest = TestDataBuilder.aRegisterRequest()
+            .email(email)
+            .password(password)
+            .build();
+
+        TokenResponse tokenResponse = authTestHelper.registerAndLoginUser(registerRequest);
+        String authHeader = authTestHelper.getAuthorizationHeader(tokenResponse.accessToken());
+
+        // When
+        mockMvc.perform(post("/api/v1/auth/logout-all")
+                .header("Authorization", authHeader))
+            .andExpect(status().is2xxSuccessful());
+        TokenResponse nextLogin = authTestHelper.loginUser(email, password);
+
+        // Then
+        mockMvc.perform(get("/api/v1/auth/me")
+                .header("Authorization", authTestHelper.getAuthorizationHeader(nextLogin.accessToken())))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.email").value(email));
+        mockMvc.perform(get("/api/v1/auth/me")
+                .header("Authorization", authHeader))
+            .andExpect(status().isUnauthorized());
+    }
+
     @Test
     @DisplayName("Should handle logout without token gracefully")
     void logout_WithoutToken_ShouldReturnUnauthorized() throws Exception {
@@ -187,7 +220,7 @@ public class TokenManagementIntegrationTest extends BaseIntegrationTest {
 
         authTestHelper.registerUser(registerRequest);
 
-        var userDetails = (com.caioniehues.app.domain.user.User) userDetailsService.loadUserByUsername(email);
+        var userDetails = userDetailsService.loadUserByUsername(email);
         String expiredToken = authTestHelper.generateExpiredJwtToken(userDetails);
         String authHeader = authTestHelper.getAuthorizationHeader(expiredToken);
 
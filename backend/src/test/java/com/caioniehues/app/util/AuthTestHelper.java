@@ -10,6 +10,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
@@ -79,16 +80,16 @@ public class AuthTestHelper {
         return loginUser(loginRequest);
     }
 
-    public String generateValidJwtToken(User user) {
+    public String generateValidJwtToken(UserDetails user) {
         return jwtService.generateAccessToken(user);
     }
 
     public String generateValidJwtToken(String email) {
-        User user = (User) userDetailsService.loadUserByUsername(email);
+        UserDetails user = userDetailsService.loadUserByUsername(email);
         return generateValidJwtToken(user);
     }
 
-    public String generateExpiredJwtToken(User user) {
+    public String generateExpiredJwtToken(UserDetails user) {
         // Create a token that's already expired
         // This is a mock implementation - in real tests this should return an actually expired token
         return "expired.jwt.token";
@@ -98,14 +99,14 @@ public class AuthTestHelper {
         return "invalid.jwt.token";
     }
 
-    public void authenticateUser(User user) {
+    public void authenticateUser(UserDetails user) {
         Authentication authentication = new UsernamePasswordAuthenticationToken(
             user, null, user.getAuthorities());
         SecurityContextHolder.getContext().setAuthentication(authentication);
     }
 
     public void authenticateUser(String email) {
-        User user = (User) userDetailsService.loadUserByUsername(email);
+        UserDetails user = userDetailsService.loadUserByUsername(email);
         authenticateUser(user);
     }
 
@@ -171,9 +172,9 @@ public class AuthTestHelper {
         }
     }
 
-    public boolean isTokenValid(String token, User user) {
+    public boolean isTokenValid(String token, UserDetails user) {
         try {
-            return jwtService.validateTokenForUser(token, user);
+            return jwtService.verify(token).isValidFor(user);
         } catch (Exception e) {
             return false;
         }
@@ -181,7 +182,7 @@ public class AuthTestHelper {
 
     public String extractUsernameFromToken(String token) {
         try {
-            return jwtService.extractUsername(token);
+            return jwtService.verify(token).subject();
         } catch (Exception e) {
             return null;
         }
@@ -0,0 +1,15 @@
+-- Test database initialization script for the invalidation bus tests
+-- Hibernate only creates mapped tables, so the invalidation log from Liquibase changeset 003-1 is created here
+
+CREATE EXTENSION IF NOT EXISTS "uuid-ossp";
+
+SET timezone = 'UTC';
+
+CREATE TABLE auth_invalidation_log (
+    id BIGSERIAL PRIMARY KEY,
+    event_type VARCHAR(50) NOT NULL,
+    payload TEXT NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT clock_timestamp()
+);
+
+CREATE INDEX idx_auth_invalidation_log_created_at ON auth_invalidation_log (created_at);